@@ -0,0 +1,46 @@
+package in.bushansirgur.foodiesapi.config;
+
+import in.bushansirgur.foodiesapi.service.ClusterTransport;
+import in.bushansirgur.foodiesapi.service.LoopbackClusterTransport;
+import in.bushansirgur.foodiesapi.service.TcpClusterTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.UUID;
+
+@Configuration
+public class ClusterConfig {
+    
+    @Bean
+    @ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+    public ClusterTransport clusterTransport(@Value("${cluster.transport:tcp}") String transport,
+                                             @Value("${cluster.node-id:}") String nodeId,
+                                             @Value("${cluster.loopback.name:default}") String loopbackName,
+                                             @Value("${cluster.tcp.bind-address:127.0.0.1}") String bindAddress,
+                                             @Value("${cluster.tcp.port:9700}") int port,
+                                             @Value("${cluster.tcp.peers:}") List<String> peers,
+                                             @Value("${cluster.tcp.queue-capacity:10000}") int queueCapacity,
+                                             @Value("${cluster.tcp.shared-secret:}") String sharedSecret) {
+        String id = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        return switch (transport) {
+            case "loopback" -> new LoopbackClusterTransport(loopbackName, id);
+            case "tcp" -> new TcpClusterTransport(id, new InetSocketAddress(bindAddress, port), peers.stream()
+                    .filter(peer -> !peer.isBlank())
+                    .map(ClusterConfig::parseAddress)
+                    .toList(), queueCapacity, sharedSecret);
+            default -> throw new IllegalArgumentException("Unknown cluster.transport: " + transport);
+        };
+    }
+    
+    private static InetSocketAddress parseAddress(String peer) {
+        int colon = peer.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Cluster peer must be host:port, got " + peer);
+        }
+        return new InetSocketAddress(peer.substring(0, colon).trim(), Integer.parseInt(peer.substring(colon + 1).trim()));
+    }
+}
@@ -0,0 +1,45 @@
+package in.bushansirgur.foodiesapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution mode is selected with spring.threads.virtual.enabled: Boot then runs Tomcat request
+ * handling, @Async work and scheduling on virtual threads, and WebSocketConfig does the same for
+ * the STOMP channels. Virtual threads remove the Tomcat worker cap, so the Mongo connection pool
+ * becomes the real concurrency limit and is sized per mode here.
+ */
+@Configuration
+@EnableAsync
+public class ExecutionModeConfig {
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    @Value("${mongo.pool.platform.max-size:100}")
+    private int platformPoolSize;
+    
+    @Value("${mongo.pool.virtual.max-size:500}")
+    private int virtualPoolSize;
+    
+    @Value("${mongo.pool.min-size:10}")
+    private int minPoolSize;
+    
+    @Value("${mongo.pool.max-wait-ms:2000}")
+    private long maxWaitMs;
+    
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer() {
+        int maxSize = virtualThreads ? virtualPoolSize : platformPoolSize;
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .minSize(Math.min(minPoolSize, maxSize))
+                // Fail fast instead of parking thousands of virtual threads on an exhausted pool
+                .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,122 @@
+package in.bushansirgur.foodiesapi.config;
+
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import in.bushansirgur.foodiesapi.security.PasswordHashingExecutor;
+import in.bushansirgur.foodiesapi.service.DeliveryLocationBroadcaster;
+import in.bushansirgur.foodiesapi.service.NotificationService;
+import in.bushansirgur.foodiesapi.service.OrderEventOutbox;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Meters that are not tied to a single call site. Request, repository and Mongo command latency
+ * come from Boot ({@code http.server.requests}, {@code spring.data.repository.invocations},
+ * {@code mongodb.driver.commands}); this adds the number of documents each repository method
+ * returns and gauges for the in-process queues. Everything is scraped from /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+    
+    @Bean
+    static BeanPostProcessor repositoryDocumentMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(documentCounter(meterRegistry,
+                                    repositoryInformation.getRepositoryInterface().getSimpleName(),
+                                    repositoryInformation.getDomainType()))));
+                }
+                return bean;
+            }
+        };
+    }
+    
+    @Bean
+    public MeterBinder queueMetrics(NotificationService notificationService,
+                                    PasswordHashingExecutor passwordHashingExecutor,
+                                    DeliveryLocationBroadcaster deliveryLocationBroadcaster,
+                                    OrderEventOutbox orderEventOutbox) {
+        return registry -> {
+            Gauge.builder("notifications.mail.queue.size", notificationService, service -> service.getStats().pending())
+                    .register(registry);
+            FunctionCounter.builder("notifications.mail.sent", notificationService, service -> service.getStats().sent())
+                    .register(registry);
+            FunctionCounter.builder("notifications.mail.rejected", notificationService, service -> service.getStats().rejected())
+                    .register(registry);
+            FunctionCounter.builder("notifications.mail.dead.lettered", notificationService, service -> service.getStats().deadLettered())
+                    .register(registry);
+            
+            Gauge.builder("auth.bcrypt.queue.size", passwordHashingExecutor, executor -> executor.getStats().queued())
+                    .register(registry);
+            Gauge.builder("auth.bcrypt.active", passwordHashingExecutor, executor -> executor.getStats().active())
+                    .register(registry);
+            FunctionCounter.builder("auth.bcrypt.rejected", passwordHashingExecutor, executor -> executor.getStats().rejected())
+                    .register(registry);
+            
+            Gauge.builder("delivery.locations.pending", deliveryLocationBroadcaster, broadcaster -> broadcaster.getStats().pending())
+                    .register(registry);
+            
+            // Counted over the dispatch index, so a scrape stays cheap unless there is a real backlog
+            Gauge.builder("outbox.events.pending", orderEventOutbox,
+                            outbox -> outbox.countByStatus(OrderEvent.DispatchStatus.PENDING))
+                    .register(registry);
+            Gauge.builder("outbox.events.failed", orderEventOutbox,
+                            outbox -> outbox.countByStatus(OrderEvent.DispatchStatus.FAILED))
+                    .register(registry);
+        };
+    }
+    
+    private static MethodInterceptor documentCounter(ObjectProvider<MeterRegistry> meterRegistry, String repository,
+                                                     Class<?> domainType) {
+        Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+        return invocation -> {
+            Object result = invocation.proceed();
+            long documents = documentCount(result, invocation.getMethod().getReturnType(), domainType);
+            if (documents >= 0) {
+                summaries.computeIfAbsent(invocation.getMethod(), method -> DistributionSummary
+                                .builder("spring.data.repository.documents")
+                                .description("Documents returned per repository method call")
+                                .tag("repository", repository)
+                                .tag("method", method.getName())
+                                .register(meterRegistry.getObject()))
+                        .record(documents);
+            }
+            return result;
+        };
+    }
+    
+    /** Documents in a repository result, or -1 for results that are not documents (counts, streams, void). */
+    private static long documentCount(Object result, Class<?> returnType, Class<?> domainType) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (domainType.isAssignableFrom(returnType)) {
+            return result != null ? 1 : 0;
+        }
+        return -1;
+    }
+}
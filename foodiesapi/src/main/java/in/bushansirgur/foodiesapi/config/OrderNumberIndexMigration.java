@@ -0,0 +1,66 @@
+package in.bushansirgur.foodiesapi.config;
+
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.util.OrderNumberGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Orders created before order numbers were node-scoped used {@code ORD<millis>}, so two orders
+ * placed in the same millisecond share a number. Before the unique {@code orderNumber} index is
+ * built, every duplicate except the oldest order of each group gets a fresh number. Once the
+ * index exists there is nothing left to renumber, so later starts skip the scan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderNumberIndexMigration {
+    
+    private final MongoTemplate mongoTemplate;
+    private final OrderNumberGenerator orderNumberGenerator;
+    
+    private static final String INDEX_NAME = "orderNumber";
+    
+    @PostConstruct
+    void migrate() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Order.class);
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> INDEX_NAME.equals(index.getName()))) {
+            return;
+        }
+        
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.sort(Sort.by("createdAt", "_id")),
+                Aggregation.group("orderNumber").count().as("count").push("_id").as("ids"),
+                Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        
+        int renumbered = 0;
+        for (Document group : mongoTemplate.aggregate(duplicates, Order.class, Document.class)) {
+            List<?> ids = group.getList("ids", Object.class);
+            for (Object id : ids.subList(1, ids.size())) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                        Update.update("orderNumber", orderNumberGenerator.nextOrderNumber()), Order.class);
+                renumbered++;
+            }
+        }
+        if (renumbered > 0) {
+            log.warn("Renumbered {} orders with duplicate order numbers", renumbered);
+        }
+        
+        indexOps.createIndex(new Index("orderNumber", Sort.Direction.ASC).unique().named(INDEX_NAME));
+    }
+}
@@ -0,0 +1,22 @@
+package in.bushansirgur.foodiesapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+@Configuration
+public class OutboxConfig {
+    
+    /**
+     * Commits order changes and their outbox events atomically. Needs MongoDB running as a
+     * replica set (a single-node one is enough), so it is opt-in; without it each write is a
+     * single-document update and a crash between the two writes can lose the event.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "outbox.transactions.enabled", havingValue = "true")
+    public MongoTransactionManager mongoTransactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+}
@@ -0,0 +1,74 @@
+package in.bushansirgur.foodiesapi.config;
+
+import in.bushansirgur.foodiesapi.model.Review;
+import in.bushansirgur.foodiesapi.service.ReviewService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reviews used to be accepted repeatedly for the same order and target, and each copy counted
+ * towards the rating. Before the unique {@code (orderId, type, menuItemId)} index is built, every
+ * duplicate except the oldest review of each group is removed and, if any were, the ratings are
+ * rebuilt. Once the index exists there is nothing left to remove, so later starts skip the scan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReviewIndexMigration {
+    
+    private final MongoTemplate mongoTemplate;
+    private final ReviewService reviewService;
+    
+    private static final String INDEX_NAME = "order_type_target";
+    
+    @PostConstruct
+    void migrate() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Review.class);
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> INDEX_NAME.equals(index.getName()))) {
+            return;
+        }
+        
+        // Only menu item reviews are keyed by menu item; older reviews of other types may carry one
+        mongoTemplate.updateMulti(Query.query(Criteria.where("type").ne(Review.ReviewType.MENU_ITEM.name())
+                        .and("menuItemId").exists(true)),
+                new Update().unset("menuItemId"), Review.class);
+        
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.sort(Sort.by("createdAt", "_id")),
+                Aggregation.group("orderId", "type", "menuItemId").count().as("count").push("_id").as("ids"),
+                Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        
+        int removed = 0;
+        for (Document group : mongoTemplate.aggregate(duplicates, Review.class, Document.class)) {
+            List<?> ids = group.getList("ids", Object.class);
+            removed += (int) mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids.subList(1, ids.size()))),
+                    Review.class).getDeletedCount();
+        }
+        if (removed > 0) {
+            log.warn("Removed {} duplicate reviews, rebuilding ratings", removed);
+            reviewService.rebuildRatings();
+        }
+        
+        indexOps.createIndex(new Index()
+                .on("orderId", Sort.Direction.ASC)
+                .on("type", Sort.Direction.ASC)
+                .on("menuItemId", Sort.Direction.ASC)
+                .unique()
+                .named(INDEX_NAME));
+    }
+}
@@ -0,0 +1,111 @@
+package in.bushansirgur.foodiesapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-subscription payload encoding. A SUBSCRIBE carrying {@code payload-format: cbor} on a
+ * binary-capable connection (the non-SockJS {@code /ws-native} endpoint) receives MESSAGE frames
+ * transcoded from JSON to CBOR as binary frames; everyone else keeps JSON. The broker hands the
+ * same payload array to every subscriber, so each payload is transcoded once and the result is
+ * shared through a weak identity cache.
+ */
+@Slf4j
+@Component
+public class StompPayloadEncoder implements ExecutorChannelInterceptor {
+    
+    public static final String FORMAT_HEADER = "payload-format";
+    public static final String BINARY_FRAMES_ATTRIBUTE = "binaryFrames";
+    private static final String CBOR = "cbor";
+    
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+    
+    // sessionId -> subscriptionIds that asked for CBOR
+    private final Map<String, Map<String, Boolean>> cborSubscriptions = new ConcurrentHashMap<>();
+    // byte[] uses identity equality, so this is a weak identity map of JSON payload -> CBOR payload
+    private final Map<byte[], byte[]> transcoded = Collections.synchronizedMap(new WeakHashMap<>());
+    
+    public StompPayloadEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.SUBSCRIBE) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            Map<String, Object> attributes = accessor.getSessionAttributes();
+            if (CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(FORMAT_HEADER))
+                    && attributes != null && Boolean.TRUE.equals(attributes.get(BINARY_FRAMES_ATTRIBUTE))) {
+                cborSubscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                        .put(accessor.getSubscriptionId(), Boolean.TRUE);
+            }
+        } else if (type == SimpMessageType.UNSUBSCRIBE) {
+            Map<String, Boolean> subscriptions = cborSubscriptions.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+            if (subscriptions != null) {
+                subscriptions.remove(SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()));
+            }
+        } else if (type == SimpMessageType.DISCONNECT) {
+            cborSubscriptions.remove(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        }
+        return message;
+    }
+    
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        Map<String, Boolean> subscriptions = cborSubscriptions.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        if (subscriptions == null || subscriptionId == null || !subscriptions.containsKey(subscriptionId)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        MimeType contentType = accessor.getContentType();
+        if (contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+        
+        byte[] cbor = transcoded.computeIfAbsent(json, this::toCbor);
+        if (cbor.length == 0) {
+            return message;
+        }
+        // Only octet-stream frames are written as binary WebSocket messages
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(FORMAT_HEADER, CBOR);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+    
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+    }
+    
+    private byte[] toCbor(byte[] json) {
+        try {
+            return cborMapper.writeValueAsBytes(objectMapper.readTree(json));
+        } catch (IOException e) {
+            log.warn("Failed to transcode STOMP payload to CBOR: {}", e.getMessage());
+            return new byte[0];
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package in.bushansirgur.foodiesapi.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Backpressure for the STOMP client outbound channel. Frames sent with the {@link #CONFLATE_HEADER}
+ * (delivery locations) are conflated per session subscription: a frame still queued when a newer
+ * one for the same subscription arrives is skipped, so a slow client only ever gets the latest
+ * position. Only message frames (client SEND, broker MESSAGE) are ever dropped by a full channel queue; session
+ * control frames (CONNECT, SUBSCRIBE, DISCONNECT, ...) run on the caller's thread instead.
+ * Frames rejected by a full channel queue, conflated frames and sessions closed for
+ * exceeding the send buffer/time limits are counted per destination pattern, along with the
+ * frames actually sent. All counters and the channel queue depths are also published as meters.
+ */
+@Component
+public class StompTrafficMonitor implements ExecutorChannelInterceptor {
+    
+    public static final String CONFLATE_HEADER = "conflate";
+    
+    // Collapses ObjectId, UUID and numeric segments so per-destination counters stay bounded
+    // (e.g. /topic/orders/{id}); literal segments such as /delivery-location are kept
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "/(?:[0-9a-fA-F]{24}|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9]+)(?=/|$)");
+    
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Message<?>> latestConflated = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> sentByDestination = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> droppedByDestination = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> conflatedByDestination = new ConcurrentHashMap<>();
+    private final Map<String, ThreadPoolTaskExecutor> channels = new LinkedHashMap<>();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final LongAdder slowSessionsClosed = new LongAdder();
+    
+    public record ChannelStats(int queueDepth, int activeThreads, int poolSize) {
+    }
+    
+    public record Stats(Map<String, ChannelStats> channels,
+                        int activeSessions,
+                        Map<String, Long> sentFrames,
+                        Map<String, Long> droppedFrames,
+                        Map<String, Long> conflatedFrames,
+                        long slowSessionsClosed) {
+    }
+    
+    public StompTrafficMonitor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("websocket.sessions.active", activeSessions, AtomicInteger::get).register(meterRegistry);
+        FunctionCounter.builder("websocket.sessions.closed.slow", slowSessionsClosed, LongAdder::sum).register(meterRegistry);
+    }
+    
+    public void registerChannel(String name, ThreadPoolTaskExecutor executor) {
+        synchronized (channels) {
+            channels.put(name, executor);
+        }
+        Gauge.builder("websocket.channel.queue.size", executor, StompTrafficMonitor::queueDepth)
+                .tag("channel", name)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.active.threads", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", name)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Counts message frames (client SENDs inbound, broker MESSAGEs outbound; both are
+     * {@link SimpMessageType#MESSAGE}) the bounded channel queue had no room for, then discards
+     * them. Anything else is session control and is handled on the caller's thread rather than lost.
+     */
+    public RejectedExecutionHandler dropHandler() {
+        return (task, executor) -> {
+            Message<?> message = task instanceof MessageHandlingRunnable runnable ? runnable.getMessage() : null;
+            SimpMessageType type = message != null ? SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) : null;
+            if (type != SimpMessageType.MESSAGE) {
+                if (!executor.isShutdown()) {
+                    task.run();
+                }
+                return;
+            }
+            String key = conflationKey(message);
+            if (key != null) {
+                latestConflated.remove(key, message);
+            }
+            count(droppedByDestination, "websocket.frames.dropped", message);
+        };
+    }
+    
+    public void sessionOpened() {
+        activeSessions.incrementAndGet();
+    }
+    
+    public void sessionClosed(boolean slowConsumer) {
+        activeSessions.decrementAndGet();
+        if (slowConsumer) {
+            slowSessionsClosed.increment();
+        }
+    }
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String key = conflationKey(message);
+        if (key != null) {
+            latestConflated.put(key, message);
+        }
+        return message;
+    }
+    
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        String key = conflationKey(message);
+        if (key == null || latestConflated.remove(key, message)) {
+            return message;
+        }
+        // A newer frame for this subscription is already queued
+        count(conflatedByDestination, "websocket.frames.conflated", message);
+        return null;
+    }
+    
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex == null) {
+            count(sentByDestination, "websocket.frames.sent", message);
+        }
+    }
+    
+    public Stats getStats() {
+        Map<String, ChannelStats> channelStats = new LinkedHashMap<>();
+        synchronized (channels) {
+            channels.forEach((name, executor) -> channelStats.put(name, new ChannelStats(
+                    queueDepth(executor),
+                    executor.getActiveCount(),
+                    executor.getPoolSize())));
+        }
+        return new Stats(channelStats, activeSessions.get(), snapshot(sentByDestination),
+                snapshot(droppedByDestination), snapshot(conflatedByDestination), slowSessionsClosed.sum());
+    }
+    
+    private static int queueDepth(ThreadPoolTaskExecutor executor) {
+        try {
+            return executor.getThreadPoolExecutor().getQueue().size();
+        } catch (IllegalStateException e) {
+            // Not initialized yet
+            return 0;
+        }
+    }
+    
+    private static String conflationKey(Message<?> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (!"true".equals(accessor.getFirstNativeHeader(CONFLATE_HEADER))) {
+            return null;
+        }
+        return accessor.getSessionId() + "|" + accessor.getSubscriptionId();
+    }
+    
+    private void count(Map<String, LongAdder> counters, String meterName, Message<?> message) {
+        String destination = message != null ? SimpMessageHeaderAccessor.getDestination(message.getHeaders()) : null;
+        String pattern = destination != null ? ID_SEGMENT.matcher(destination).replaceAll("/{id}") : "unknown";
+        counters.computeIfAbsent(pattern, d -> {
+            LongAdder counter = new LongAdder();
+            FunctionCounter.builder(meterName, counter, LongAdder::sum)
+                    .tag("destination", d)
+                    .register(meterRegistry);
+            return counter;
+        }).increment();
+    }
+    
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((destination, count) -> result.put(destination, count.sum()));
+        return result;
+    }
+}
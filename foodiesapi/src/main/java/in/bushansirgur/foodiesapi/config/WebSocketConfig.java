@@ -1,19 +1,84 @@
 package in.bushansirgur.foodiesapi.config;
 
+import in.bushansirgur.foodiesapi.security.StompAuthChannelInterceptor;
+import in.bushansirgur.foodiesapi.service.ClusterRelay;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final StompTrafficMonitor stompTrafficMonitor;
+    private final StompPayloadEncoder stompPayloadEncoder;
+    private final ClusterRelay clusterRelay;
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    @Value("${websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+    
+    @Value("${websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+    
+    @Value("${websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+    
+    @Value("${websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+    
+    @Value("${websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+    
+    @Value("${websocket.outbound.queue-capacity:50000}")
+    private int outboundQueueCapacity;
+    
+    @Value("${websocket.send-buffer-size-limit-bytes:524288}")
+    private int sendBufferSizeLimit;
+    
+    @Value("${websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+    
+    @Value("${websocket.message-size-limit-bytes:65536}")
+    private int messageSizeLimit;
+    
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor,
+                           StompTrafficMonitor stompTrafficMonitor,
+                           StompPayloadEncoder stompPayloadEncoder,
+                           ClusterRelay clusterRelay) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.stompTrafficMonitor = stompTrafficMonitor;
+        this.stompPayloadEncoder = stompPayloadEncoder;
+        this.clusterRelay = clusterRelay;
+    }
+    
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
+        
+        // Publications, including unresolved /user/{name}/... sends, reach sessions on other nodes
+        // through the cluster relay
+        config.configureBrokerChannel().interceptors(clusterRelay.publicationForwarder());
     }
     
     @Override
@@ -21,5 +86,77 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        
+        // Plain WebSocket endpoint for clients that can take binary (CBOR) frames
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(new HandshakeInterceptor() {
+                    @Override
+                    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                        attributes.put(StompPayloadEncoder.BINARY_FRAMES_ATTRIBUTE, Boolean.TRUE);
+                        return true;
+                    }
+                    
+                    @Override
+                    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                               WebSocketHandler wsHandler, Exception exception) {
+                    }
+                });
+    }
+    
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session whose buffered frames exceed either limit is closed rather than growing the heap
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+                    @Override
+                    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                        stompTrafficMonitor.sessionOpened();
+                        super.afterConnectionEstablished(session);
+                    }
+                    
+                    @Override
+                    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                        stompTrafficMonitor.sessionClosed(CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus));
+                        super.afterConnectionClosed(session, closeStatus);
+                    }
+                });
+    }
+    
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authenticate CONNECT from the JWT and authorize every SUBSCRIBE/SEND, then record
+        // the payload format and cluster interest of each accepted subscription
+        registration.interceptors(stompAuthChannelInterceptor, stompPayloadEncoder, clusterRelay.subscriptionTracker());
+        registration.taskExecutor(channelExecutor("stomp-inbound-",
+                inboundCorePoolSize, inboundMaxPoolSize, inboundQueueCapacity));
+    }
+    
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Conflates queued delivery-location frames and counts drops per destination; frames
+        // that survive are then encoded for their subscription
+        registration.interceptors(stompTrafficMonitor, stompPayloadEncoder);
+        registration.taskExecutor(channelExecutor("stomp-outbound-",
+                outboundCorePoolSize, outboundMaxPoolSize, outboundQueueCapacity));
+    }
+    
+    private ThreadPoolTaskExecutor channelExecutor(String prefix, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix(prefix);
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name(prefix, 0).factory());
+        }
+        // A full queue drops SEND/MESSAGE frames instead of blocking the broker or the client's reader thread
+        executor.setRejectedExecutionHandler(stompTrafficMonitor.dropHandler());
+        stompTrafficMonitor.registerChannel(prefix.substring(0, prefix.length() - 1), executor);
+        return executor;
     }
 }
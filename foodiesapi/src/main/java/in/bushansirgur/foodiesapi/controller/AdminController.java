@@ -0,0 +1,137 @@
+package in.bushansirgur.foodiesapi.controller;
+
+import in.bushansirgur.foodiesapi.config.StompTrafficMonitor;
+import in.bushansirgur.foodiesapi.model.OrderRollup;
+import in.bushansirgur.foodiesapi.security.PasswordHashingExecutor;
+import in.bushansirgur.foodiesapi.security.UserCredentialCache;
+import in.bushansirgur.foodiesapi.service.AnalyticsOrderEventSink;
+import in.bushansirgur.foodiesapi.service.ClusterRelay;
+import in.bushansirgur.foodiesapi.service.DeliveryLocationBroadcaster;
+import in.bushansirgur.foodiesapi.service.MenuCacheService;
+import in.bushansirgur.foodiesapi.service.NotificationService;
+import in.bushansirgur.foodiesapi.service.OrderEventOutbox;
+import in.bushansirgur.foodiesapi.service.ReviewService;
+import in.bushansirgur.foodiesapi.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AdminController {
+    
+    private final MenuCacheService menuCacheService;
+    private final StompTrafficMonitor stompTrafficMonitor;
+    private final DeliveryLocationBroadcaster deliveryLocationBroadcaster;
+    private final ClusterRelay clusterRelay;
+    private final OrderEventOutbox orderEventOutbox;
+    private final AnalyticsOrderEventSink analyticsOrderEventSink;
+    private final NotificationService notificationService;
+    private final UserCredentialCache userCredentialCache;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final ReviewService reviewService;
+    private final RollupService rollupService;
+    
+    @GetMapping("/cache/menu")
+    public ResponseEntity<?> getMenuCacheStats() {
+        return ResponseEntity.ok(menuCacheService.getStats());
+    }
+    
+    @GetMapping("/auth")
+    public ResponseEntity<?> getAuthStats() {
+        return ResponseEntity.ok(Map.of(
+                "credentialCache", userCredentialCache.getStats(),
+                "bcrypt", passwordHashingExecutor.getStats()
+        ));
+    }
+    
+    @GetMapping("/websocket")
+    public ResponseEntity<?> getWebSocketStats() {
+        return ResponseEntity.ok(stompTrafficMonitor.getStats());
+    }
+    
+    @GetMapping("/websocket/delivery-locations")
+    public ResponseEntity<?> getDeliveryBroadcastStats() {
+        return ResponseEntity.ok(deliveryLocationBroadcaster.getStats());
+    }
+    
+    @GetMapping("/cluster")
+    public ResponseEntity<?> getClusterStats() {
+        return ResponseEntity.ok(clusterRelay.getStats());
+    }
+    
+    @GetMapping("/order-events")
+    public ResponseEntity<?> getOrderEvents(@RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(orderEventOutbox.eventsAfter(after, Math.min(Math.max(limit, 1), 1000)));
+    }
+    
+    @PostMapping("/order-events/replay")
+    public ResponseEntity<?> replayOrderEvents(@RequestParam long from,
+                                               @RequestParam(required = false) String sink) {
+        return ResponseEntity.ok(Map.of("replayed", orderEventOutbox.replayFrom(from, sink)));
+    }
+    
+    @GetMapping("/order-events/analytics")
+    public ResponseEntity<?> getOrderEventAnalytics() {
+        return ResponseEntity.ok(analyticsOrderEventSink.getCounts());
+    }
+    
+    @PostMapping("/ratings/rebuild")
+    public ResponseEntity<?> rebuildRatings() {
+        try {
+            return ResponseEntity.ok(reviewService.rebuildRatings());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/rollups")
+    public ResponseEntity<?> getRollups(@RequestParam OrderRollup.Granularity granularity,
+                                        @RequestParam OrderRollup.Dimension dimension,
+                                        @RequestParam(required = false) String key,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(rollupService.getReport(granularity, dimension, key, from, to));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/rollups/backfill")
+    public ResponseEntity<?> backfillRollups(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(rollupService.backfill(from, to));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/mail")
+    public ResponseEntity<?> getMailStats() {
+        return ResponseEntity.ok(notificationService.getStats());
+    }
+    
+    @GetMapping("/mail/dead-letters")
+    public ResponseEntity<?> getMailDeadLetters() {
+        return ResponseEntity.ok(notificationService.getDeadLetters());
+    }
+    
+    @PostMapping("/mail/dead-letters/{id}/retry")
+    public ResponseEntity<?> retryMailDeadLetter(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(notificationService.retryDeadLetter(id));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -38,9 +38,7 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
         try {
-            String token = authService.login(loginRequest.getEmail(), loginRequest.getPassword());
-            User user = authService.getUserByEmail(loginRequest.getEmail());
-            LoginResponse response = LoginResponse.fromUser(user, token);
+            LoginResponse response = authService.login(loginRequest.getEmail(), loginRequest.getPassword());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
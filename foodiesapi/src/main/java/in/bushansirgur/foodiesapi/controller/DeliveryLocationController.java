@@ -0,0 +1,27 @@
+package in.bushansirgur.foodiesapi.controller;
+
+import in.bushansirgur.foodiesapi.dto.WebSocketMessage;
+import in.bushansirgur.foodiesapi.service.DeliveryLocationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Controller
+@RequiredArgsConstructor
+public class DeliveryLocationController {
+    
+    private final DeliveryLocationService deliveryLocationService;
+    
+    @MessageMapping("/orders/{orderId}/location")
+    public void handleDeliveryLocation(@DestinationVariable String orderId,
+                                       WebSocketMessage.DeliveryLocation location,
+                                       Principal principal) {
+        boolean admin = principal instanceof Authentication auth
+                && auth.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        deliveryLocationService.ingest(orderId, principal.getName(), admin, location.getLatitude(), location.getLongitude());
+    }
+}
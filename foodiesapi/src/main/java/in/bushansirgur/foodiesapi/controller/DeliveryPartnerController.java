@@ -0,0 +1,53 @@
+package in.bushansirgur.foodiesapi.controller;
+
+import in.bushansirgur.foodiesapi.security.CurrentUser;
+import in.bushansirgur.foodiesapi.service.DispatchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/delivery")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class DeliveryPartnerController {
+    
+    private final DispatchService dispatchService;
+    
+    @PutMapping("/{deliveryPartnerId}/location")
+    public ResponseEntity<?> updateLocation(@PathVariable String deliveryPartnerId,
+                                            @RequestBody Map<String, Object> request) {
+        try {
+            CurrentUser.requireSelfOrAdmin(deliveryPartnerId);
+            double latitude = Double.parseDouble(request.get("latitude").toString());
+            double longitude = Double.parseDouble(request.get("longitude").toString());
+            dispatchService.updateRiderLocation(deliveryPartnerId, latitude, longitude);
+            return ResponseEntity.ok(Map.of("message", "Location updated"));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{deliveryPartnerId}/availability")
+    public ResponseEntity<?> updateAvailability(@PathVariable String deliveryPartnerId,
+                                                @RequestBody Map<String, Object> request) {
+        try {
+            CurrentUser.requireSelfOrAdmin(deliveryPartnerId);
+            boolean online = Boolean.parseBoolean(request.get("available").toString());
+            double latitude = Double.parseDouble(request.get("latitude").toString());
+            double longitude = Double.parseDouble(request.get("longitude").toString());
+            boolean available = dispatchService.setRiderAvailability(deliveryPartnerId, latitude, longitude, online);
+            return ResponseEntity.ok(Map.of("online", online, "available", available));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package in.bushansirgur.foodiesapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.bushansirgur.foodiesapi.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/exports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ExportController {
+    
+    private final ExportService exportService;
+    private final ObjectMapper objectMapper;
+    
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "NDJSON") ExportService.Format format,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                          @RequestParam(required = false) String afterId,
+                                          @RequestParam(required = false) List<String> fields,
+                                          @RequestParam(required = false) Integer batchSize,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return export(ExportService.Dataset.ORDERS, format, from, to, afterId, fields, batchSize, acceptEncoding);
+    }
+    
+    @GetMapping("/payments")
+    public ResponseEntity<StreamingResponseBody> exportPayments(@RequestParam(defaultValue = "NDJSON") ExportService.Format format,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                            @RequestParam(required = false) String afterId,
+                                            @RequestParam(required = false) List<String> fields,
+                                            @RequestParam(required = false) Integer batchSize,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return export(ExportService.Dataset.PAYMENTS, format, from, to, afterId, fields, batchSize, acceptEncoding);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> export(ExportService.Dataset dataset, ExportService.Format format,
+                                     LocalDateTime from, LocalDateTime to, String afterId,
+                                     List<String> fields, Integer batchSize, String acceptEncoding) {
+        try {
+            boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+            StreamingResponseBody body = exportService.export(dataset, format, from, to, afterId, fields, batchSize, gzip);
+            
+            String filename = dataset.name().toLowerCase()
+                    + (from != null ? "-" + from.toLocalDate() : "")
+                    + (to != null ? "-" + to.toLocalDate() : "")
+                    + "." + format.extension();
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(new MediaType(MediaType.parseMediaType(format.contentType()), StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.body(body);
+        } catch (Exception e) {
+            // The return type is fixed to a stream so Spring's streaming handler picks it up
+            Map<String, String> error = Map.of("error", String.valueOf(e.getMessage()));
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(outputStream -> objectMapper.writeValue(outputStream, error));
+        }
+    }
+}
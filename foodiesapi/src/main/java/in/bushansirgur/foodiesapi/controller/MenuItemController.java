@@ -0,0 +1,33 @@
+package in.bushansirgur.foodiesapi.controller;
+
+import in.bushansirgur.foodiesapi.service.SearchIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/menu-items")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class MenuItemController {
+    
+    private final SearchIndexService searchIndexService;
+    
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMenuItems(@RequestParam(required = false) String q,
+                                             @RequestParam(required = false) String restaurantId,
+                                             @RequestParam(required = false) Boolean vegetarian,
+                                             @RequestParam(required = false) Boolean vegan,
+                                             @RequestParam(required = false) Boolean glutenFree,
+                                             @RequestParam(required = false) Integer limit) {
+        try {
+            SearchIndexService.SearchResult<SearchIndexService.MenuItemHit> result = searchIndexService.searchMenuItems(
+                    q, restaurantId, new SearchIndexService.DietaryFilter(vegetarian, vegan, glutenFree), limit);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
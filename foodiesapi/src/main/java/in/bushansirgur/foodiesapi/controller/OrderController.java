@@ -1,9 +1,18 @@
 package in.bushansirgur.foodiesapi.controller;
 
+import in.bushansirgur.foodiesapi.dto.CursorPage;
+import in.bushansirgur.foodiesapi.dto.DeliveryPosition;
+import in.bushansirgur.foodiesapi.dto.OrderSummary;
+import in.bushansirgur.foodiesapi.dto.PriceQuote;
+import in.bushansirgur.foodiesapi.dto.QuoteRequest;
 import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.security.CurrentUser;
 import in.bushansirgur.foodiesapi.service.OrderService;
+import in.bushansirgur.foodiesapi.service.PricingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,21 +25,35 @@ import java.util.Map;
 public class OrderController {
     
     private final OrderService orderService;
+    private final PricingService pricingService;
     
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody Order order) {
+    public ResponseEntity<?> createOrder(@RequestBody Order order,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            Order createdOrder = orderService.createOrder(order);
+            Order createdOrder = orderService.createOrder(order, idempotencyKey);
             return ResponseEntity.ok(createdOrder);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
     
+    @PostMapping("/quote")
+    public ResponseEntity<?> quote(@RequestBody QuoteRequest request) {
+        try {
+            PriceQuote quote = pricingService.quote(request.getRestaurantId(), request.getItems(), request.getDeliveryAddress());
+            return ResponseEntity.ok(quote);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<?> getOrdersByCustomer(@PathVariable String customerId) {
+    public ResponseEntity<?> getOrdersByCustomer(@PathVariable String customerId,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limit) {
         try {
-            List<Order> orders = orderService.getOrdersByCustomer(customerId);
+            CursorPage<OrderSummary> orders = orderService.getOrdersByCustomer(customerId, cursor, limit);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -38,9 +61,11 @@ public class OrderController {
     }
     
     @GetMapping("/restaurant/{restaurantId}")
-    public ResponseEntity<?> getOrdersByRestaurant(@PathVariable String restaurantId) {
+    public ResponseEntity<?> getOrdersByRestaurant(@PathVariable String restaurantId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limit) {
         try {
-            List<Order> orders = orderService.getOrdersByRestaurant(restaurantId);
+            CursorPage<OrderSummary> orders = orderService.getOrdersByRestaurant(restaurantId, cursor, limit);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -48,9 +73,11 @@ public class OrderController {
     }
     
     @GetMapping("/delivery/{deliveryPartnerId}")
-    public ResponseEntity<?> getOrdersByDeliveryPartner(@PathVariable String deliveryPartnerId) {
+    public ResponseEntity<?> getOrdersByDeliveryPartner(@PathVariable String deliveryPartnerId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
         try {
-            List<Order> orders = orderService.getOrdersByDeliveryPartner(deliveryPartnerId);
+            CursorPage<OrderSummary> orders = orderService.getOrdersByDeliveryPartner(deliveryPartnerId, cursor, limit);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -91,14 +118,37 @@ public class OrderController {
         }
     }
     
+    @PostMapping("/{orderId}/auto-assign")
+    public ResponseEntity<?> autoAssignDeliveryPartner(@PathVariable String orderId) {
+        try {
+            Order updatedOrder = orderService.autoAssignDeliveryPartner(orderId);
+            return ResponseEntity.ok(updatedOrder);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @PutMapping("/{orderId}/delivery-location")
     public ResponseEntity<?> updateDeliveryLocation(@PathVariable String orderId, 
                                                  @RequestBody Map<String, Object> request) {
         try {
             Double latitude = Double.valueOf(request.get("latitude").toString());
             Double longitude = Double.valueOf(request.get("longitude").toString());
-            Order updatedOrder = orderService.updateDeliveryLocation(orderId, latitude, longitude);
-            return ResponseEntity.ok(updatedOrder);
+            DeliveryPosition position = orderService.updateDeliveryLocation(
+                    orderId, CurrentUser.userId(), CurrentUser.isAdmin(), latitude, longitude);
+            return ResponseEntity.ok(position);
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/{orderId}/delivery-location")
+    public ResponseEntity<?> getDeliveryLocation(@PathVariable String orderId) {
+        try {
+            DeliveryPosition position = orderService.getDeliveryLocation(orderId);
+            return ResponseEntity.ok(position);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
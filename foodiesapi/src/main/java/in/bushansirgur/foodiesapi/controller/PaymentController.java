@@ -1,13 +1,18 @@
 package in.bushansirgur.foodiesapi.controller;
 
+import in.bushansirgur.foodiesapi.dto.PaymentVerificationResult;
 import in.bushansirgur.foodiesapi.model.Payment;
 import in.bushansirgur.foodiesapi.service.PaymentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -18,22 +23,23 @@ public class PaymentController {
     private final PaymentService paymentService;
     
     @PostMapping("/create-razorpay-order")
-    public ResponseEntity<?> createRazorpayOrder(@RequestBody Map<String, Object> request) {
+    public CompletableFuture<ResponseEntity<?>> createRazorpayOrder(@RequestBody Map<String, Object> request) {
         try {
             String orderId = request.get("orderId").toString();
-            String customerId = request.get("customerId").toString();
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
             
-            Payment payment = paymentService.createRazorpayOrder(orderId, customerId, amount);
-            
-            return ResponseEntity.ok(Map.of(
-                "paymentId", payment.getId(),
-                "razorpayOrderId", payment.getRazorpayOrderId(),
-                "amount", payment.getAmount(),
-                "currency", payment.getCurrency()
-            ));
+            // Async result releases the servlet thread while the gateway call is in flight
+            return paymentService.createRazorpayOrder(orderId)
+                    .<ResponseEntity<?>>thenApply(payment -> ResponseEntity.ok(Map.of(
+                        "paymentId", payment.getId(),
+                        "razorpayOrderId", payment.getRazorpayOrderId(),
+                        "amount", payment.getAmount(),
+                        "currency", payment.getCurrency()
+                    )))
+                    .exceptionally(e -> ResponseEntity.badRequest().body(Map.of("error", rootMessage(e))));
+        } catch (AccessDeniedException e) {
+            return CompletableFuture.<ResponseEntity<?>>completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage())));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.<ResponseEntity<?>>completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         }
     }
     
@@ -56,6 +62,16 @@ public class PaymentController {
         }
     }
     
+    @PostMapping("/verify-razorpay-payments")
+    public ResponseEntity<?> verifyRazorpayPayments(@RequestBody List<Map<String, String>> requests) {
+        try {
+            PaymentVerificationResult result = paymentService.verifyPayments(requests);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{paymentId}")
     public ResponseEntity<?> getPaymentById(@PathVariable String paymentId) {
         try {
@@ -75,4 +91,9 @@ public class PaymentController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return String.valueOf(cause.getMessage());
+    }
 }
@@ -4,9 +4,14 @@ import in.bushansirgur.foodiesapi.model.MenuItem;
 import in.bushansirgur.foodiesapi.model.User;
 import in.bushansirgur.foodiesapi.repository.MenuItemRepository;
 import in.bushansirgur.foodiesapi.repository.UserRepository;
+import in.bushansirgur.foodiesapi.service.MenuCacheService;
+import in.bushansirgur.foodiesapi.service.PricingService;
+import in.bushansirgur.foodiesapi.service.SearchIndexService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -19,6 +24,9 @@ public class RestaurantController {
     
     private final UserRepository userRepository;
     private final MenuItemRepository menuItemRepository;
+    private final MenuCacheService menuCacheService;
+    private final SearchIndexService searchIndexService;
+    private final PricingService pricingService;
     
     @GetMapping
     public ResponseEntity<?> getAllRestaurants() {
@@ -33,19 +41,15 @@ public class RestaurantController {
     @GetMapping("/search")
     public ResponseEntity<?> searchRestaurants(@RequestParam(required = false) String name,
                                             @RequestParam(required = false) String cuisineType,
-                                            @RequestParam(required = false) String city) {
+                                            @RequestParam(required = false) String city,
+                                            @RequestParam(required = false) Boolean vegetarian,
+                                            @RequestParam(required = false) Boolean vegan,
+                                            @RequestParam(required = false) Boolean glutenFree,
+                                            @RequestParam(required = false) Integer limit) {
         try {
-            List<User> restaurants;
-            
-            if (name != null && !name.isEmpty()) {
-                restaurants = userRepository.findByRestaurantNameContainingIgnoreCase(name);
-            } else if (cuisineType != null && !cuisineType.isEmpty()) {
-                restaurants = userRepository.findByCuisineType(cuisineType);
-            } else {
-                restaurants = userRepository.findApprovedRestaurants();
-            }
-            
-            return ResponseEntity.ok(restaurants);
+            SearchIndexService.SearchResult<SearchIndexService.RestaurantHit> result = searchIndexService.searchRestaurants(
+                    name, cuisineType, city, new SearchIndexService.DietaryFilter(vegetarian, vegan, glutenFree), limit);
+            return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -68,10 +72,18 @@ public class RestaurantController {
     }
     
     @GetMapping("/{restaurantId}/menu")
-    public ResponseEntity<?> getRestaurantMenu(@PathVariable String restaurantId) {
+    public ResponseEntity<?> getRestaurantMenu(@PathVariable String restaurantId, WebRequest webRequest) {
         try {
-            List<MenuItem> menuItems = menuItemRepository.findByRestaurantIdAndIsAvailable(restaurantId, true);
-            return ResponseEntity.ok(menuItems);
+            // Served from the cache when present, so conditional GETs usually skip the database
+            MenuCacheService.CachedMenu menu = menuCacheService.getMenu(restaurantId);
+            // Handles weak tags, tag lists and "*", and writes the 304 with the ETag itself
+            if (webRequest.checkNotModified(menu.etag())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(menu.etag())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(menu.json());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -87,6 +99,8 @@ public class RestaurantController {
             menuItem.setRestaurantId(restaurantId);
             menuItem.setIsAvailable(true);
             MenuItem savedMenuItem = menuItemRepository.save(menuItem);
+            menuCacheService.invalidate(restaurantId);
+            pricingService.updateMenuItem(savedMenuItem);
             
             return ResponseEntity.ok(savedMenuItem);
         } catch (Exception e) {
@@ -109,6 +123,8 @@ public class RestaurantController {
             menuItem.setId(menuItemId);
             menuItem.setRestaurantId(restaurantId);
             MenuItem updatedMenuItem = menuItemRepository.save(menuItem);
+            menuCacheService.invalidate(restaurantId);
+            pricingService.updateMenuItem(updatedMenuItem);
             
             return ResponseEntity.ok(updatedMenuItem);
         } catch (Exception e) {
@@ -128,6 +144,8 @@ public class RestaurantController {
             }
             
             menuItemRepository.delete(menuItem);
+            menuCacheService.invalidate(restaurantId);
+            pricingService.removeMenuItem(menuItemId);
             return ResponseEntity.ok(Map.of("message", "Menu item deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -0,0 +1,104 @@
+package in.bushansirgur.foodiesapi.controller;
+
+import in.bushansirgur.foodiesapi.dto.RatingSummary;
+import in.bushansirgur.foodiesapi.model.Review;
+import in.bushansirgur.foodiesapi.repository.ReviewRepository;
+import in.bushansirgur.foodiesapi.security.CurrentUser;
+import in.bushansirgur.foodiesapi.service.ReviewService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reviews")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReviewController {
+    
+    private final ReviewService reviewService;
+    private final ReviewRepository reviewRepository;
+    
+    @PostMapping
+    public ResponseEntity<?> createReview(@Valid @RequestBody Review review) {
+        try {
+            review.setCustomerId(CurrentUser.userId());
+            Review createdReview = reviewService.createReview(review);
+            return ResponseEntity.ok(createdReview);
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{reviewId}")
+    public ResponseEntity<?> updateReview(@PathVariable String reviewId, @RequestBody Review review) {
+        try {
+            Review updatedReview = reviewService.updateReview(reviewId, review, CurrentUser.userId(), CurrentUser.isAdmin());
+            return ResponseEntity.ok(updatedReview);
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @DeleteMapping("/{reviewId}")
+    public ResponseEntity<?> deleteReview(@PathVariable String reviewId) {
+        try {
+            reviewService.deleteReview(reviewId, CurrentUser.userId(), CurrentUser.isAdmin());
+            return ResponseEntity.ok(Map.of("message", "Review deleted successfully"));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/restaurant/{restaurantId}")
+    public ResponseEntity<?> getRestaurantReviews(@PathVariable String restaurantId) {
+        try {
+            List<Review> reviews = reviewRepository.findRestaurantReviews(restaurantId);
+            return ResponseEntity.ok(reviews);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/menu-item/{menuItemId}")
+    public ResponseEntity<?> getMenuItemReviews(@PathVariable String menuItemId) {
+        try {
+            List<Review> reviews = reviewRepository.findMenuItemReviews(menuItemId);
+            return ResponseEntity.ok(reviews);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/delivery-partner/{deliveryPartnerId}")
+    public ResponseEntity<?> getDeliveryPartnerReviews(@PathVariable String deliveryPartnerId) {
+        try {
+            List<Review> reviews = reviewRepository.findDeliveryPartnerReviews(deliveryPartnerId);
+            return ResponseEntity.ok(reviews);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/ratings/{target}/{targetId}")
+    public ResponseEntity<?> getRatingSummary(@PathVariable ReviewService.RatingTarget target,
+                                              @PathVariable String targetId) {
+        try {
+            RatingSummary summary = reviewService.getRatingSummary(target, targetId);
+            return ResponseEntity.ok(summary);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
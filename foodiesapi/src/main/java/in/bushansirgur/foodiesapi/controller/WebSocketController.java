@@ -1,10 +1,14 @@
 package in.bushansirgur.foodiesapi.controller;
 
+import in.bushansirgur.foodiesapi.config.StompTrafficMonitor;
+import in.bushansirgur.foodiesapi.dto.OrderDelta;
 import in.bushansirgur.foodiesapi.dto.WebSocketMessage;
-import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import in.bushansirgur.foodiesapi.model.Order;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.MimeTypeUtils;
 
 import lombok.RequiredArgsConstructor;
 
@@ -12,27 +16,49 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class WebSocketController {
     
+    public static final String RIDER_QUEUE = "/queue/rider";
+    
     private final SimpMessagingTemplate messagingTemplate;
     
-    @MessageMapping("/order.update")
-    @SendTo("/topic/order.updates")
-    public WebSocketMessage handleOrderUpdate(WebSocketMessage message) {
-        return message;
+    public static String orderTopic(String orderId) {
+        return "/topic/orders/" + orderId;
+    }
+    
+    public static String restaurantOrdersTopic(String restaurantId) {
+        return "/topic/restaurants/" + restaurantId + "/orders";
+    }
+    
+    public void sendOrderUpdate(String orderId, String status, Order order) {
+        publish(orderId, order, WebSocketMessage.orderUpdate(orderId, status, order));
     }
     
-    @MessageMapping("/delivery.location")
-    @SendTo("/topic/delivery.updates")
-    public WebSocketMessage handleDeliveryLocation(WebSocketMessage message) {
-        return message;
+    /**
+     * Sends only what changed; {@code order} supplies the routing ids (e.g. an event summary).
+     */
+    public void sendOrderDelta(Order order, OrderDelta delta) {
+        publish(order.getId(), order, WebSocketMessage.orderDelta(delta));
     }
     
-    public void sendOrderUpdate(String orderId, String status, Object data) {
-        WebSocketMessage message = WebSocketMessage.orderUpdate(orderId, status, data);
-        messagingTemplate.convertAndSend("/topic/order.updates", message);
+    private void publish(String orderId, Order order, WebSocketMessage message) {
+        // Only the sessions that care about this order receive it
+        messagingTemplate.convertAndSend(orderTopic(orderId), message);
+        if (order.getRestaurantId() != null) {
+            messagingTemplate.convertAndSend(restaurantOrdersTopic(order.getRestaurantId()), message);
+        }
+        if (order.getDeliveryPartnerId() != null) {
+            messagingTemplate.convertAndSendToUser(order.getDeliveryPartnerId(), RIDER_QUEUE, message);
+        }
     }
     
-    public void sendDeliveryUpdate(String orderId, Double latitude, Double longitude) {
-        WebSocketMessage message = WebSocketMessage.deliveryUpdate(orderId, latitude, longitude);
-        messagingTemplate.convertAndSend("/topic/delivery.updates", message);
+    /**
+     * Sends an already-encoded DELIVERY_UPDATE frame; the broker shares the bytes across subscribers.
+     */
+    public void sendDeliveryUpdate(String orderId, byte[] encodedMessage) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        // Location frames are superseded by the next one, so slow clients only get the latest
+        accessor.setNativeHeader(StompTrafficMonitor.CONFLATE_HEADER, "true");
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(orderTopic(orderId), MessageBuilder.createMessage(encodedMessage, accessor.getMessageHeaders()));
     }
 }
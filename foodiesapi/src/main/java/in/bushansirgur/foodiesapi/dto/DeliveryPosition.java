@@ -0,0 +1,4 @@
+package in.bushansirgur.foodiesapi.dto;
+
+public record DeliveryPosition(String orderId, String riderId, double latitude, double longitude, long recordedAt) {
+}
@@ -0,0 +1,45 @@
+package in.bushansirgur.foodiesapi.dto;
+
+import in.bushansirgur.foodiesapi.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * WebSocket payload for an order change: identity, status and only the fields that changed,
+ * instead of the whole order document.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDelta {
+    private String orderId;
+    private String orderNumber;
+    private String status;
+    private LocalDateTime updatedAt;
+    private Map<String, Object> changes;
+    
+    public static OrderDelta statusChanged(Order order, String trackingField) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("status", order.getStatus());
+        if (trackingField != null) {
+            changes.put(trackingField, order.getUpdatedAt());
+        }
+        return of(order, changes);
+    }
+    
+    public static OrderDelta deliveryPartnerAssigned(Order order) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("deliveryPartnerId", order.getDeliveryPartnerId());
+        return of(order, changes);
+    }
+    
+    private static OrderDelta of(Order order, Map<String, Object> changes) {
+        return new OrderDelta(order.getId(), order.getOrderNumber(),
+                order.getStatus() != null ? order.getStatus().name() : null, order.getUpdatedAt(), changes);
+    }
+}
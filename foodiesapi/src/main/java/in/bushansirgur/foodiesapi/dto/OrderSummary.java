@@ -0,0 +1,30 @@
+package in.bushansirgur.foodiesapi.dto;
+
+import in.bushansirgur.foodiesapi.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+    private String id;
+    private String orderNumber;
+    private String customerId;
+    private String restaurantId;
+    private String deliveryPartnerId;
+    private BigDecimal totalAmount;
+    private Order.OrderStatus status;
+    private Order.PaymentStatus paymentStatus;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public static final String[] FIELDS = {
+            "orderNumber", "customerId", "restaurantId", "deliveryPartnerId",
+            "totalAmount", "status", "paymentStatus", "createdAt", "updatedAt"
+    };
+}
@@ -0,0 +1,6 @@
+package in.bushansirgur.foodiesapi.dto;
+
+import java.util.List;
+
+public record PaymentVerificationResult(int received, int verified, long updated, List<String> invalidOrderIds) {
+}
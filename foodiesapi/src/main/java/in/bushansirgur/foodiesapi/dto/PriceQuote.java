@@ -0,0 +1,16 @@
+package in.bushansirgur.foodiesapi.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record PriceQuote(List<Line> lines,
+                         BigDecimal subtotal,
+                         BigDecimal deliveryFee,
+                         BigDecimal taxAmount,
+                         BigDecimal totalAmount,
+                         Double distanceKm) {
+    
+    public record Line(String menuItemId, String menuItemName, String variant, int quantity,
+                       BigDecimal unitPrice, BigDecimal totalPrice) {
+    }
+}
@@ -0,0 +1,18 @@
+package in.bushansirgur.foodiesapi.dto;
+
+import in.bushansirgur.foodiesapi.model.Address;
+import in.bushansirgur.foodiesapi.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteRequest {
+    private String restaurantId;
+    private List<Order.OrderItem> items;
+    private Address deliveryAddress;
+}
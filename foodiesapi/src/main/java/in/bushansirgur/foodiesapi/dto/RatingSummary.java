@@ -0,0 +1,6 @@
+package in.bushansirgur.foodiesapi.dto;
+
+import java.util.Map;
+
+public record RatingSummary(String targetId, Double rating, int totalReviews, Map<String, Integer> histogram) {
+}
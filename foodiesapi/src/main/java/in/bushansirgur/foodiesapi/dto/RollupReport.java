@@ -0,0 +1,24 @@
+package in.bushansirgur.foodiesapi.dto;
+
+import in.bushansirgur.foodiesapi.model.OrderRollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public record RollupReport(OrderRollup.Granularity granularity,
+                           OrderRollup.Dimension dimension,
+                           String key,
+                           Bucket totals,
+                           List<Bucket> buckets) {
+    
+    public record Bucket(LocalDateTime bucketStart,
+                         long orders,
+                         long cancellations,
+                         BigDecimal gmv,
+                         BigDecimal averageBasket,
+                         Map<String, Long> paymentCounts,
+                         Map<String, BigDecimal> paymentAmounts) {
+    }
+}
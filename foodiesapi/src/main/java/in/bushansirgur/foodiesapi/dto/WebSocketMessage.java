@@ -22,12 +22,21 @@ public class WebSocketMessage {
         return message;
     }
     
-    public static WebSocketMessage deliveryUpdate(String orderId, Double latitude, Double longitude) {
+    public static WebSocketMessage orderDelta(OrderDelta delta) {
+        WebSocketMessage message = new WebSocketMessage();
+        message.setType("ORDER_DELTA");
+        message.setMessage("Order " + delta.getOrderId() + " status updated to " + delta.getStatus());
+        message.setData(delta);
+        message.setTimestamp(String.valueOf(delta.getUpdatedAt()));
+        return message;
+    }
+    
+    public static WebSocketMessage deliveryUpdate(String orderId, Double latitude, Double longitude, String timestamp) {
         WebSocketMessage message = new WebSocketMessage();
         message.setType("DELIVERY_UPDATE");
         message.setMessage("Delivery location updated for order " + orderId);
         message.setData(new DeliveryLocation(orderId, latitude, longitude));
-        message.setTimestamp(java.time.LocalDateTime.now().toString());
+        message.setTimestamp(timestamp);
         return message;
     }
     
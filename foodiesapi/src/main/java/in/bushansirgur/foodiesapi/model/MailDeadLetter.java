@@ -0,0 +1,26 @@
+package in.bushansirgur.foodiesapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "mail_dead_letters")
+public class MailDeadLetter {
+    @Id
+    private String id;
+    
+    private String recipient;
+    private String coalesceKey;
+    private String subject;
+    private String body;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+}
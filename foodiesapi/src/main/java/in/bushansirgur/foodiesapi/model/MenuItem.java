@@ -12,6 +12,7 @@ import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -40,6 +41,8 @@ public class MenuItem {
     private Integer preparationTime; // in minutes
     private Double rating;
     private Integer totalReviews;
+    private Long ratingSum;
+    private Map<String, Integer> ratingHistogram; // star ("1".."5") -> review count
     private String restaurantId; // Reference to restaurant
     private List<MenuItemVariant> variants;
     private List<String> ingredients;
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.DecimalMin;
@@ -17,12 +20,21 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "orders")
+@CompoundIndexes({
+    @CompoundIndex(name = "customer_created", def = "{'customerId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "restaurant_created", def = "{'restaurantId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "delivery_partner_created", def = "{'deliveryPartnerId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "created", def = "{'createdAt': -1, '_id': -1}")
+})
 public class Order {
     @Id
     private String id;
     
     @NotBlank(message = "Order number is required")
-    private String orderNumber;
+    private String orderNumber; // unique index created by OrderNumberIndexMigration once legacy duplicates are renumbered
+    
+    @Indexed(unique = true, sparse = true)
+    private String idempotencyKey; // customerId-scoped Idempotency-Key header of the creating request
     
     @NotBlank(message = "Customer ID is required")
     private String customerId;
@@ -0,0 +1,108 @@
+package in.bushansirgur.foodiesapi.model;
+
+import in.bushansirgur.foodiesapi.dto.OrderDelta;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only outbox entry for an order change. {@code offset} is a time-ordered unique id
+ * that sinks and replays page by; the dispatch fields track delivery to each sink. A sink that
+ * fails has its own retry state, so it never delays the other sinks. {@code nextAttemptAt} is
+ * the earliest retry among them and {@code attempts}/{@code lastError} summarise the worst one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_events")
+@CompoundIndex(name = "dispatch_offset", def = "{'dispatchStatus': 1, 'offset': 1}")
+public class OrderEvent {
+    @Id
+    private String id;
+    
+    @Indexed(unique = true)
+    private long offset;
+    
+    @Indexed
+    private String orderId;
+    
+    private EventType type;
+    private Order order; // full order for CREATED, a summary otherwise
+    private OrderDelta delta;
+    private LocalDateTime createdAt;
+    
+    private DispatchStatus dispatchStatus;
+    private List<String> deliveredSinks = new ArrayList<>();
+    private List<String> failedSinks = new ArrayList<>(); // given up after max attempts
+    private Map<String, SinkRetry> sinkRetries = new HashMap<>();
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+    private LocalDateTime dispatchedAt;
+    
+    public enum EventType {
+        CREATED, STATUS_CHANGED, DELIVERY_PARTNER_ASSIGNED
+    }
+    
+    public enum DispatchStatus {
+        PENDING, DISPATCHED, FAILED
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SinkRetry {
+        private int attempts;
+        private LocalDateTime nextAttemptAt;
+        private String lastError;
+    }
+    
+    public static OrderEvent created(Order order) {
+        return of(EventType.CREATED, order, null);
+    }
+    
+    public static OrderEvent statusChanged(Order order, String trackingField) {
+        return of(EventType.STATUS_CHANGED, summaryOf(order), OrderDelta.statusChanged(order, trackingField));
+    }
+    
+    public static OrderEvent deliveryPartnerAssigned(Order order) {
+        return of(EventType.DELIVERY_PARTNER_ASSIGNED, summaryOf(order), OrderDelta.deliveryPartnerAssigned(order));
+    }
+    
+    // Only the fields sinks route and render by; items and addresses are not copied into every event
+    private static Order summaryOf(Order order) {
+        Order summary = new Order();
+        summary.setId(order.getId());
+        summary.setOrderNumber(order.getOrderNumber());
+        summary.setCustomerId(order.getCustomerId());
+        summary.setRestaurantId(order.getRestaurantId());
+        summary.setDeliveryPartnerId(order.getDeliveryPartnerId());
+        summary.setStatus(order.getStatus());
+        summary.setPaymentStatus(order.getPaymentStatus());
+        summary.setTotalAmount(order.getTotalAmount());
+        summary.setUpdatedAt(order.getUpdatedAt());
+        summary.setTracking(order.getTracking());
+        return summary;
+    }
+    
+    private static OrderEvent of(EventType type, Order order, OrderDelta delta) {
+        OrderEvent event = new OrderEvent();
+        event.setOrderId(order.getId());
+        event.setType(type);
+        event.setOrder(order);
+        event.setDelta(delta);
+        event.setCreatedAt(LocalDateTime.now());
+        event.setDispatchStatus(DispatchStatus.PENDING);
+        return event;
+    }
+}
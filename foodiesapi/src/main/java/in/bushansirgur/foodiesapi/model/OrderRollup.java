@@ -0,0 +1,69 @@
+package in.bushansirgur.foodiesapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Order metrics for one restaurant, city or the whole platform over one minute, hour or day, keyed by the time the
+ * orders were placed. Amounts are whole paise so they can be maintained with {@code $inc};
+ * {@code gmvPaise} excludes cancelled orders.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "order_rollups")
+@CompoundIndex(name = "granularity_dimension_key_bucket", def = "{'granularity': 1, 'dimension': 1, 'key': 1, 'bucketStart': 1}")
+public class OrderRollup {
+    @Id
+    private String id; // granularity|dimension|key|bucketStart
+    
+    private Granularity granularity;
+    private Dimension dimension;
+    private String key;
+    private LocalDateTime bucketStart;
+    
+    private long orders;
+    private long cancellations;
+    private long gmvPaise;
+    private Map<String, Long> paymentCounts; // payment method -> completed payments
+    private Map<String, Long> paymentAmountPaise; // payment method -> amount paid
+    
+    @Indexed(expireAfter = "0s")
+    private LocalDateTime expireAt; // unset for buckets that are kept indefinitely
+    
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+        
+        private final ChronoUnit unit;
+        
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+        
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+        
+        public Duration duration() {
+            return unit.getDuration();
+        }
+        
+        public String unitName() {
+            return name().toLowerCase();
+        }
+    }
+    
+    public enum Dimension {
+        RESTAURANT, CITY, PLATFORM
+    }
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.DecimalMin;
@@ -16,6 +18,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "payments")
+@CompoundIndex(name = "created", def = "{'createdAt': -1, '_id': -1}")
 public class Payment {
     @Id
     private String id;
@@ -33,6 +36,7 @@ public class Payment {
     private String currency;
     private PaymentMethod method;
     private PaymentStatus status;
+    @Indexed
     private String razorpayOrderId;
     private String razorpayPaymentId;
     private String razorpaySignature;
@@ -45,6 +49,8 @@ public class Payment {
     private LocalDateTime refundedAt;
     private BigDecimal refundAmount;
     private String refundReason;
+    @Indexed(sparse = true)
+    private Boolean rollupPending; // set when completed, unset once counted into the rollups
     
     public enum PaymentMethod {
         RAZORPAY, CASH_ON_DELIVERY, WALLET, UPI, CARD
@@ -11,6 +11,7 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -20,14 +21,13 @@ public class Review {
     @Id
     private String id;
     
-    @NotBlank(message = "Customer ID is required")
-    private String customerId;
+    private String customerId; // always the authenticated caller, never taken from the request
     
     @NotBlank(message = "Order ID is required")
     private String orderId;
     
     private String restaurantId;
-    private String menuItemId;
+    private String menuItemId; // (orderId, type, menuItemId) is unique, see ReviewIndexMigration
     private String deliveryPartnerId;
     
     @NotNull(message = "Rating is required")
@@ -0,0 +1,26 @@
+package in.bushansirgur.foodiesapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that a fact (an order placed, cancelled or paid) has been counted into the rollups,
+ * so redelivered events are not counted twice.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "rollup_markers")
+public class RollupMarker {
+    @Id
+    private String id;
+    
+    @Indexed(expireAfter = "30d")
+    private LocalDateTime createdAt;
+}
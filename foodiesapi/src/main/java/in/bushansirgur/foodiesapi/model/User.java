@@ -12,6 +12,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -53,17 +54,19 @@ public class User {
     private String cuisineType;
     private Double rating;
     private Integer totalReviews;
+    private Long ratingSum;
+    private Map<String, Integer> ratingHistogram; // star ("1".."5") -> review count
     private String licenseNumber;
     private String gstNumber;
     private Boolean isRestaurantApproved;
     
     // Delivery partner specific fields
     private String vehicleType;
-    private String vehicleNumber;
-    private String licenseNumber;
+    private String vehicleNumber; // licenseNumber above is shared with restaurants
     private Boolean isDeliveryPartnerApproved;
     private Double currentLatitude;
     private Double currentLongitude;
+    private Boolean isOnline; // on shift; isAvailable is additionally false while carrying an order
     private Boolean isAvailable;
     private Double totalEarnings;
     private Integer totalDeliveries;
@@ -0,0 +1,9 @@
+package in.bushansirgur.foodiesapi.repository;
+
+import in.bushansirgur.foodiesapi.model.MailDeadLetter;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MailDeadLetterRepository extends MongoRepository<MailDeadLetter, String> {
+}
@@ -10,7 +10,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
     List<Order> findByCustomerId(String customerId);
     List<Order> findByRestaurantId(String restaurantId);
     List<Order> findByDeliveryPartnerId(String deliveryPartnerId);
@@ -32,6 +32,8 @@ public interface OrderRepository extends MongoRepository<Order, String> {
     @Query("{'orderNumber': ?0}")
     Optional<Order> findByOrderNumber(String orderNumber);
     
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+    
     @Query("{'status': 'PENDING', 'deliveryPartnerId': null}")
     List<Order> findPendingOrdersWithoutDeliveryPartner();
     
@@ -0,0 +1,13 @@
+package in.bushansirgur.foodiesapi.repository;
+
+import in.bushansirgur.foodiesapi.dto.CursorPage;
+import in.bushansirgur.foodiesapi.dto.OrderSummary;
+
+import java.time.LocalDateTime;
+
+public interface OrderRepositoryCustom {
+    CursorPage<OrderSummary> findSummariesByCustomerId(String customerId, String cursor, int limit);
+    CursorPage<OrderSummary> findSummariesByRestaurantId(String restaurantId, String cursor, int limit);
+    CursorPage<OrderSummary> findSummariesByDeliveryPartnerId(String deliveryPartnerId, String cursor, int limit);
+    CursorPage<OrderSummary> findSummariesByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate, String cursor, int limit);
+}
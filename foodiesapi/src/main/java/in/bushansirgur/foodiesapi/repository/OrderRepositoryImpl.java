@@ -0,0 +1,70 @@
+package in.bushansirgur.foodiesapi.repository;
+
+import in.bushansirgur.foodiesapi.dto.CursorPage;
+import in.bushansirgur.foodiesapi.dto.OrderSummary;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset pagination over {@code (createdAt desc, _id desc)}, newest first. Each page is a single
+ * indexed range scan regardless of how deep the client has paged.
+ */
+@RequiredArgsConstructor
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public CursorPage<OrderSummary> findSummariesByCustomerId(String customerId, String cursor, int limit) {
+        return findSummaries(Criteria.where("customerId").is(customerId), cursor, limit);
+    }
+    
+    @Override
+    public CursorPage<OrderSummary> findSummariesByRestaurantId(String restaurantId, String cursor, int limit) {
+        return findSummaries(Criteria.where("restaurantId").is(restaurantId), cursor, limit);
+    }
+    
+    @Override
+    public CursorPage<OrderSummary> findSummariesByDeliveryPartnerId(String deliveryPartnerId, String cursor, int limit) {
+        return findSummaries(Criteria.where("deliveryPartnerId").is(deliveryPartnerId), cursor, limit);
+    }
+    
+    @Override
+    public CursorPage<OrderSummary> findSummariesByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate, String cursor, int limit) {
+        return findSummaries(Criteria.where("createdAt").gte(startDate).lte(endDate), cursor, limit);
+    }
+    
+    private CursorPage<OrderSummary> findSummaries(Criteria filter, String cursor, int limit) {
+        Criteria criteria = filter;
+        if (cursor != null && !cursor.isEmpty()) {
+            PageCursor after = PageCursor.decode(cursor);
+            criteria = new Criteria().andOperator(filter, new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("_id").lt(after.id())
+            ));
+        }
+        
+        // Fetch one extra document to know whether another page exists
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit + 1);
+        query.fields().include(OrderSummary.FIELDS);
+        
+        List<OrderSummary> items = mongoTemplate.find(query, OrderSummary.class, mongoTemplate.getCollectionName(Order.class));
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            OrderSummary last = items.get(limit - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(items, nextCursor);
+    }
+}
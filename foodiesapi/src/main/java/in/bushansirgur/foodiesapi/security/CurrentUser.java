@@ -0,0 +1,40 @@
+package in.bushansirgur.foodiesapi.security;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * The JWT principal of the current HTTP request, as set by {@link JwtAuthenticationFilter}.
+ */
+public final class CurrentUser {
+    
+    private CurrentUser() {
+    }
+    
+    public static JwtPrincipal get() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal;
+        }
+        throw new AccessDeniedException("Not authenticated");
+    }
+    
+    public static String userId() {
+        return get().userId();
+    }
+    
+    public static boolean isAdmin() {
+        return "ADMIN".equals(get().role());
+    }
+    
+    /**
+     * Throws unless the caller is {@code userId} or an admin.
+     */
+    public static void requireSelfOrAdmin(String userId) {
+        JwtPrincipal principal = get();
+        if (!"ADMIN".equals(principal.role()) && (userId == null || !userId.equals(principal.userId()))) {
+            throw new AccessDeniedException("Not allowed to act for another user");
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package in.bushansirgur.foodiesapi.security;
 
 import in.bushansirgur.foodiesapi.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +23,8 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final MeterRegistry meterRegistry;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -33,27 +37,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "skipped";
         try {
             String jwt = authorizationHeader.substring(7);
-            String username = jwtUtil.extractUsername(jwt);
-            String userId = jwtUtil.extractUserId(jwt);
-            String role = jwtUtil.extractRole(jwt);
             
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtUtil.validateToken(jwt, username)) {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Single signature check per token; repeat requests are served from the cache
+                JwtPrincipal principal = verifiedTokenCache.get(jwt);
+                result = "cache_hit";
+                if (principal == null) {
+                    result = "rejected";
+                    principal = jwtUtil.parseToken(jwt);
+                    verifiedTokenCache.put(jwt, principal);
+                    result = "verified";
+                }
+                
+                if (principal.subject() != null) {
                     UsernamePasswordAuthenticationToken authToken = 
                         new UsernamePasswordAuthenticationToken(
-                            username, 
+                            principal, 
                             null, 
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.role()))
                         );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
         } catch (Exception e) {
+            result = "rejected";
             logger.error("Cannot set user authentication: {}", e);
         }
+        sample.stop(meterRegistry.timer("security.jwt.authentication", "result", result));
         
         filterChain.doFilter(request, response);
     }
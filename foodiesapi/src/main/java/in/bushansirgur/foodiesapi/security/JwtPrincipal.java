@@ -0,0 +1,16 @@
+package in.bushansirgur.foodiesapi.security;
+
+import java.security.Principal;
+import java.time.Instant;
+
+public record JwtPrincipal(String subject, String userId, String role, Instant expiresAt) implements Principal {
+    
+    @Override
+    public String getName() {
+        return subject;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,92 @@
+package in.bushansirgur.foodiesapi.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Verifies Razorpay payment signatures locally: HMAC-SHA256 of {@code orderId|paymentId} keyed
+ * with the API secret. Each thread reuses its own initialised {@link Mac} and scratch buffers,
+ * and the comparison runs in constant time.
+ */
+@Component
+public class PaymentSignatureVerifier {
+    
+    private static final int SIGNATURE_BYTES = 32;
+    private static final byte SEPARATOR = '|';
+    
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<byte[]> expected = ThreadLocal.withInitial(() -> new byte[SIGNATURE_BYTES]);
+    private final ThreadLocal<byte[]> provided = ThreadLocal.withInitial(() -> new byte[SIGNATURE_BYTES]);
+    
+    public PaymentSignatureVerifier(@Value("${razorpay.key.secret}") String keySecret) {
+        SecretKeySpec key = new SecretKeySpec(keySecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance("HmacSHA256");
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        });
+    }
+    
+    public boolean verify(String razorpayOrderId, String razorpayPaymentId, String signature) {
+        if (razorpayOrderId == null || razorpayPaymentId == null || signature == null) {
+            return false;
+        }
+        byte[] providedBytes = provided.get();
+        if (!decodeHex(signature, providedBytes)) {
+            return false;
+        }
+        
+        Mac hmac = mac.get();
+        updateAscii(hmac, razorpayOrderId);
+        hmac.update(SEPARATOR);
+        updateAscii(hmac, razorpayPaymentId);
+        byte[] expectedBytes = expected.get();
+        try {
+            hmac.doFinal(expectedBytes, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to compute signature", e);
+        }
+        
+        int diff = 0;
+        for (int i = 0; i < SIGNATURE_BYTES; i++) {
+            diff |= expectedBytes[i] ^ providedBytes[i];
+        }
+        return diff == 0;
+    }
+    
+    private static void updateAscii(Mac hmac, String value) {
+        // Razorpay ids are ASCII; fall back to a UTF-8 copy only if they ever are not
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > 0x7f) {
+                hmac.update(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            hmac.update((byte) c);
+        }
+    }
+    
+    private static boolean decodeHex(String hex, byte[] out) {
+        if (hex.length() != out.length * 2) {
+            return false;
+        }
+        for (int i = 0; i < out.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            out[i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+}
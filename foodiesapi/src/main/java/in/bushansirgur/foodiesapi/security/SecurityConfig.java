@@ -49,7 +49,10 @@ public class SecurityConfig {
                 .requestMatchers("/api/restaurants/search").permitAll()
                 .requestMatchers("/api/menu-items/search").permitAll()
                 .requestMatchers("/ws/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/ws-native/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                // Metrics and the Prometheus scrape expose internals, so scrapers need an admin token
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/restaurants/**").hasAnyRole("RESTAURANT", "ADMIN")
                 .requestMatchers("/api/delivery/**").hasAnyRole("DELIVERY_PARTNER", "ADMIN")
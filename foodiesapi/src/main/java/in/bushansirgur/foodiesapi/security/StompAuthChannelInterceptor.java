@@ -0,0 +1,171 @@
+package in.bushansirgur.foodiesapi.security;
+
+import in.bushansirgur.foodiesapi.controller.WebSocketController;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.repository.OrderRepository;
+import in.bushansirgur.foodiesapi.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates STOMP sessions from the JWT sent in the CONNECT frame and only lets a
+ * session subscribe to the destinations that belong to it. The session principal name is
+ * the user id, so {@code convertAndSendToUser} can address riders directly.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    
+    private static final Pattern ORDER_TOPIC = Pattern.compile("^/topic/orders/([^/]+)$");
+    private static final Pattern RESTAURANT_TOPIC = Pattern.compile("^/topic/restaurants/([^/]+)/orders$");
+    private static final Pattern ORDER_LOCATION = Pattern.compile("^/app/orders/([^/]+)/location$");
+    // Session attribute holding the order ids this session was already allowed to publish locations for
+    private static final String LOCATION_ORDERS_ATTRIBUTE = "locationOrders";
+    
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final OrderRepository orderRepository;
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.CONNECT) {
+            accessor.setUser(authenticate(accessor.getFirstNativeHeader("Authorization")));
+        } else if (command == StompCommand.SUBSCRIBE) {
+            authorizeSubscription(accessor.getUser(), accessor.getDestination());
+        } else if (command == StompCommand.SEND) {
+            authorizeSend(accessor.getUser(), accessor.getDestination(), accessor.getSessionAttributes());
+        }
+        return message;
+    }
+    
+    private Authentication authenticate(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            throw new MessagingException("Missing bearer token");
+        }
+        
+        String jwt = authorizationHeader.substring(7);
+        JwtPrincipal principal = verifiedTokenCache.get(jwt);
+        if (principal == null) {
+            try {
+                principal = jwtUtil.parseToken(jwt);
+            } catch (Exception e) {
+                throw new MessagingException("Invalid token");
+            }
+            verifiedTokenCache.put(jwt, principal);
+        }
+        
+        return new UsernamePasswordAuthenticationToken(
+                principal.userId(),
+                null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.role()))
+        );
+    }
+    
+    private void authorizeSubscription(Principal user, String destination) {
+        Authentication auth = requireAuthentication(user);
+        if (destination == null) {
+            throw new MessagingException("Destination is required");
+        }
+        if (hasRole(auth, "ADMIN")) {
+            return;
+        }
+        
+        Matcher orderTopic = ORDER_TOPIC.matcher(destination);
+        if (orderTopic.matches()) {
+            Order order = orderRepository.findById(orderTopic.group(1))
+                    .orElseThrow(() -> new MessagingException("Order not found"));
+            String userId = auth.getName();
+            if (userId.equals(order.getCustomerId())
+                    || userId.equals(order.getRestaurantId())
+                    || userId.equals(order.getDeliveryPartnerId())) {
+                return;
+            }
+            throw new MessagingException("Not allowed to subscribe to " + destination);
+        }
+        
+        Matcher restaurantTopic = RESTAURANT_TOPIC.matcher(destination);
+        if (restaurantTopic.matches()) {
+            if (hasRole(auth, "RESTAURANT") && auth.getName().equals(restaurantTopic.group(1))) {
+                return;
+            }
+            throw new MessagingException("Not allowed to subscribe to " + destination);
+        }
+        
+        if (destination.equals("/user" + WebSocketController.RIDER_QUEUE) && hasRole(auth, "DELIVERY_PARTNER")) {
+            return;
+        }
+        
+        throw new MessagingException("Not allowed to subscribe to " + destination);
+    }
+    
+    private void authorizeSend(Principal user, String destination, Map<String, Object> sessionAttributes) {
+        Authentication auth = requireAuthentication(user);
+        Matcher orderLocation = destination != null ? ORDER_LOCATION.matcher(destination) : null;
+        if (orderLocation == null || !orderLocation.matches()) {
+            throw new MessagingException("Not allowed to send to " + destination);
+        }
+        if (hasRole(auth, "ADMIN")) {
+            return;
+        }
+        
+        // Only the rider assigned to the order may publish its location. An assignment never
+        // changes once made, so each session checks an order once rather than on every ping.
+        if (hasRole(auth, "DELIVERY_PARTNER")) {
+            String orderId = orderLocation.group(1);
+            Set<String> allowed = sessionAttributes != null ? locationOrders(sessionAttributes) : null;
+            if (allowed != null && allowed.contains(orderId)) {
+                return;
+            }
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new MessagingException("Order not found"));
+            if (auth.getName().equals(order.getDeliveryPartnerId())) {
+                if (allowed != null) {
+                    allowed.add(orderId);
+                }
+                return;
+            }
+        }
+        throw new MessagingException("Not allowed to send to " + destination);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Set<String> locationOrders(Map<String, Object> sessionAttributes) {
+        return (Set<String>) sessionAttributes.computeIfAbsent(LOCATION_ORDERS_ATTRIBUTE, key -> ConcurrentHashMap.newKeySet());
+    }
+    
+    private Authentication requireAuthentication(Principal user) {
+        if (user instanceof Authentication auth) {
+            return auth;
+        }
+        throw new MessagingException("Not authenticated");
+    }
+    
+    private boolean hasRole(Authentication auth, String role) {
+        String authority = "ROLE_" + role;
+        return auth.getAuthorities().stream().anyMatch(a -> authority.equals(a.getAuthority()));
+    }
+}
@@ -0,0 +1,113 @@
+package in.bushansirgur.foodiesapi.security;
+
+import in.bushansirgur.foodiesapi.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of users looked up by email for the login path. Any save of a user through
+ * Spring Data on this node (password or status change included) evicts that user; deletes clear
+ * the whole cache because the delete event only carries the query. Writes made on other nodes
+ * are picked up once the entry's TTL expires.
+ */
+@Component
+public class UserCredentialCache extends AbstractMongoEventListener<User> {
+    
+    private record Entry(User user, long expiresAt) {
+    }
+    
+    public record Stats(long hits, long misses, long invalidations, int size) {
+    }
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final int maxEntries;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    public UserCredentialCache(@Value("${auth.credential-cache.ttl-ms:30000}") long ttlMs,
+                               @Value("${auth.credential-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+    
+    public User get(String email) {
+        if (email == null) {
+            return null;
+        }
+        String key = key(email);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.user();
+    }
+    
+    public void put(User user) {
+        if (maxEntries <= 0 || ttlMs <= 0 || user.getEmail() == null) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(key(user.getEmail()), new Entry(user, System.currentTimeMillis() + ttlMs));
+    }
+    
+    public void invalidate(String email) {
+        if (email != null && entries.remove(key(email)) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+    
+    public void clear() {
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+    
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), invalidations.get(), entries.size());
+    }
+    
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        invalidate(event.getSource().getEmail());
+    }
+    
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        clear();
+    }
+    
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() < now);
+        
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,81 @@
+package in.bushansirgur.foodiesapi.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of already-verified JWTs, keyed by a SHA-256 digest of the raw token so
+ * the tokens themselves are never held in memory. Entries are dropped once the token expires.
+ */
+@Component
+public class VerifiedTokenCache {
+    
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+    
+    private final Map<String, JwtPrincipal> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+    
+    public JwtPrincipal get(String token) {
+        String key = digest(token);
+        JwtPrincipal principal = entries.get(key);
+        if (principal == null) {
+            return null;
+        }
+        if (principal.isExpired(Instant.now())) {
+            entries.remove(key, principal);
+            return null;
+        }
+        return principal;
+    }
+    
+    public void put(String token, JwtPrincipal principal) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(digest(token), principal);
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private void evict() {
+        Instant now = Instant.now();
+        entries.values().removeIf(principal -> principal.isExpired(now));
+        
+        // Still full after purging expired tokens: drop arbitrary entries, they will simply be re-verified
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
+    private static String digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        sha256.reset();
+        return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,44 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feeds order events into the persistent rollups and counts them by type and resulting status
+ * for the admin stats endpoint.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsOrderEventSink implements OrderEventSink {
+    
+    private final RollupService rollupService;
+    
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    
+    @Override
+    public String name() {
+        return "analytics";
+    }
+    
+    @Override
+    public void deliver(OrderEvent event) {
+        rollupService.applyOrderEvent(event);
+        
+        String status = event.getOrder() != null && event.getOrder().getStatus() != null
+                ? event.getOrder().getStatus().name()
+                : "UNKNOWN";
+        counts.computeIfAbsent(event.getType() + ":" + status, key -> new LongAdder()).increment();
+    }
+    
+    public Map<String, Long> getCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((key, count) -> snapshot.put(key, count.sum()));
+        return snapshot;
+    }
+}
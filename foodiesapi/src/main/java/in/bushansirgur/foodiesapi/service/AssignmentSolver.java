@@ -0,0 +1,103 @@
+package in.bushansirgur.foodiesapi.service;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Minimum-cost bipartite assignment (Hungarian algorithm with potentials, O(n^3)).
+ * Rectangular problems are padded to square with {@code unassignedCost}; a row whose best
+ * option costs at least that much is reported as unassigned.
+ */
+public final class AssignmentSolver {
+    
+    private AssignmentSolver() {
+    }
+    
+    /**
+     * @return for each row, the assigned column index or -1
+     */
+    public static int[] solve(double[][] cost, int columns, double unassignedCost) {
+        return solve(cost, columns, unassignedCost, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Same as {@link #solve(double[][], int, double)}, but gives up with a {@link CancellationException}
+     * once {@link System#nanoTime()} passes {@code deadlineNanos} ({@code Long.MAX_VALUE} for none).
+     */
+    public static int[] solve(double[][] cost, int columns, double unassignedCost, long deadlineNanos) {
+        int rows = cost.length;
+        int size = Math.max(rows, columns);
+        if (size == 0) {
+            return new int[0];
+        }
+        
+        double[] u = new double[size + 1];
+        double[] v = new double[size + 1];
+        int[] match = new int[size + 1]; // column -> row (1-based), 0 when free
+        int[] way = new int[size + 1];
+        double[] minv = new double[size + 1];
+        boolean[] used = new boolean[size + 1];
+        
+        for (int row = 1; row <= size; row++) {
+            // Each row is O(n^2), so checking here bounds the overrun to one row's work
+            if (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0) {
+                throw new CancellationException("Assignment deadline passed");
+            }
+            match[0] = row;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = match[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= size; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double current = cellCost(cost, i0 - 1, j - 1, rows, columns, unassignedCost) - u[i0] - v[j];
+                    if (current < minv[j]) {
+                        minv[j] = current;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= size; j++) {
+                    if (used[j]) {
+                        u[match[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (match[j0] != 0);
+            do {
+                int j1 = way[j0];
+                match[j0] = match[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        for (int j = 1; j <= columns; j++) {
+            int row = match[j] - 1;
+            if (row >= 0 && row < rows && cost[row][j - 1] < unassignedCost) {
+                assignment[row] = j - 1;
+            }
+        }
+        return assignment;
+    }
+    
+    private static double cellCost(double[][] cost, int row, int column, int rows, int columns, double unassignedCost) {
+        if (row < rows && column < columns) {
+            return Math.min(cost[row][column], unassignedCost);
+        }
+        return unassignedCost;
+    }
+}
@@ -1,34 +1,39 @@
 package in.bushansirgur.foodiesapi.service;
 
+import in.bushansirgur.foodiesapi.dto.LoginResponse;
 import in.bushansirgur.foodiesapi.model.User;
 import in.bushansirgur.foodiesapi.repository.UserRepository;
+import in.bushansirgur.foodiesapi.security.PasswordHashingExecutor;
+import in.bushansirgur.foodiesapi.security.UserCredentialCache;
 import in.bushansirgur.foodiesapi.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService implements UserDetailsService {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final UserCredentialCache userCredentialCache;
     private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
+    
+    // Checked against unknown emails so they take as long as a wrong password
+    private volatile String unknownUserHash;
     
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        User user = findUserForLogin(email);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
         
         return new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
@@ -46,7 +51,7 @@ public class AuthService implements UserDetailsService {
             throw new RuntimeException("User already exists with phone number: " + user.getPhoneNumber());
         }
         
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingExecutor.encode(user.getPassword()));
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
         user.setEmailVerified(false);
@@ -62,26 +67,25 @@ public class AuthService implements UserDetailsService {
             user.setStatus(User.UserStatus.PENDING_APPROVAL);
         }
         
+        // Restaurants are picked up by the search index's save listener
         return userRepository.save(user);
     }
     
-    public String login(String email, String password) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(email, password)
-            );
-            
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-            
-            if (user.getStatus() != User.UserStatus.ACTIVE) {
-                throw new RuntimeException("Account is not active");
-            }
-            
-            return jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().name());
-        } catch (Exception e) {
+    public LoginResponse login(String email, String password) {
+        // One lookup per login: the same User is checked, used for the token and returned
+        User user = findUserForLogin(email);
+        if (user == null) {
+            passwordHashingExecutor.matches(password, unknownUserHash());
             throw new RuntimeException("Invalid credentials");
         }
+        
+        if (!passwordHashingExecutor.matches(password, user.getPassword())
+                || user.getStatus() != User.UserStatus.ACTIVE) {
+            throw new RuntimeException("Invalid credentials");
+        }
+        
+        String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().name());
+        return LoginResponse.fromUser(user, token);
     }
     
     public User getUserById(String userId) {
@@ -93,4 +97,22 @@ public class AuthService implements UserDetailsService {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
+    
+    private User findUserForLogin(String email) {
+        User user = userCredentialCache.get(email);
+        if (user == null) {
+            user = userRepository.findByEmail(email).orElse(null);
+            if (user != null) {
+                userCredentialCache.put(user);
+            }
+        }
+        return user;
+    }
+    
+    private String unknownUserHash() {
+        if (unknownUserHash == null) {
+            unknownUserHash = passwordHashingExecutor.encode(UUID.randomUUID().toString());
+        }
+        return unknownUserHash;
+    }
 }
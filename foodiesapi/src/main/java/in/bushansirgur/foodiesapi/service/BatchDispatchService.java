@@ -0,0 +1,321 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.Address;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import in.bushansirgur.foodiesapi.model.User;
+import in.bushansirgur.foodiesapi.repository.OrderRepository;
+import in.bushansirgur.foodiesapi.repository.UserRepository;
+import in.bushansirgur.foodiesapi.util.GeoUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically matches all pending orders against all available riders. Orders are bucketed
+ * into coarse geographic zones and each zone is solved as a min-cost assignment on the fork/join
+ * pool. A zone sees every rider within the max pickup distance, including riders across its
+ * border, so a rider may be picked by two zones; the closer pickup keeps them. Solvers check the
+ * round's deadline themselves, and zones that miss it are left for the next round. Cost is pickup
+ * distance minus a credit for how long the order has been waiting; two orders from the same
+ * restaurant with nearby drop-offs may be stacked onto one rider.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchDispatchService {
+    
+    private static final double UNASSIGNED_COST = 1_000_000;
+    private static final double KM_PER_DEGREE = 111.32;
+    
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final RiderLocationIndex riderLocationIndex;
+    private final DispatchService dispatchService;
+    private final OrderStateMachine orderStateMachine;
+    private final OrderEventOutbox orderEventOutbox;
+    
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    
+    @Value("${dispatch.batch.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${dispatch.batch.zone-degrees:0.1}")
+    private double zoneDegrees;
+    
+    @Value("${dispatch.batch.time-box-ms:500}")
+    private long timeBoxMs;
+    
+    @Value("${dispatch.batch.max-jobs-per-zone:200}")
+    private int maxJobsPerZone;
+    
+    @Value("${dispatch.batch.age-weight-km-per-minute:0.2}")
+    private double ageWeightKmPerMinute;
+    
+    @Value("${dispatch.batch.stacking:true}")
+    private boolean stacking;
+    
+    @Value("${dispatch.batch.stack-max-dropoff-km:2}")
+    private double stackMaxDropoffKm;
+    
+    @Value("${dispatch.max-distance-km:10}")
+    private double maxDistanceKm;
+    
+    /** One pickup for one rider: a single order, or two stacked orders from the same restaurant with nearby drop-offs. */
+    public record Job(String restaurantId, double latitude, double longitude, double ageMinutes, List<String> orderIds) {
+    }
+    
+    public record Assignment(Job job, String riderId, double distanceKm) {
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    @Scheduled(fixedDelayString = "${dispatch.batch.interval-ms:15000}")
+    public void dispatchRound() {
+        if (!enabled) {
+            return;
+        }
+        List<Job> jobs = buildJobs(orderRepository.findPendingOrdersWithoutDeliveryPartner());
+        if (jobs.isEmpty()) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        List<Assignment> assignments = solve(jobs, riderLocationIndex.availableRiders());
+        int assigned = apply(assignments);
+        log.info("Dispatch round: {} jobs, {} assigned, solved in {} ms",
+                jobs.size(), assigned, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    public List<Job> buildJobs(List<Order> pendingOrders) {
+        Set<String> restaurantIds = pendingOrders.stream().map(Order::getRestaurantId).collect(Collectors.toSet());
+        Map<String, Address> pickups = new HashMap<>();
+        for (User restaurant : userRepository.findAllById(restaurantIds)) {
+            Address address = restaurant.getRestaurantAddress();
+            if (address != null && address.getLatitude() != null && address.getLongitude() != null) {
+                pickups.put(restaurant.getId(), address);
+            }
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, List<Order>> byRestaurant = pendingOrders.stream()
+                .filter(order -> pickups.containsKey(order.getRestaurantId()))
+                .sorted(Comparator.comparing(Order::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.groupingBy(Order::getRestaurantId, LinkedHashMap::new, Collectors.toList()));
+        
+        List<Job> jobs = new ArrayList<>();
+        byRestaurant.forEach((restaurantId, orders) -> {
+            Address pickup = pickups.get(restaurantId);
+            // Oldest first; each order is stacked with the next-oldest one dropping off nearby
+            boolean[] taken = new boolean[orders.size()];
+            for (int i = 0; i < orders.size(); i++) {
+                if (taken[i]) {
+                    continue;
+                }
+                Order oldest = orders.get(i);
+                List<String> orderIds = new ArrayList<>(2);
+                orderIds.add(oldest.getId());
+                for (int j = i + 1; stacking && j < orders.size(); j++) {
+                    if (!taken[j] && dropoffsNearby(oldest, orders.get(j))) {
+                        taken[j] = true;
+                        orderIds.add(orders.get(j).getId());
+                        break;
+                    }
+                }
+                double ageMinutes = oldest.getCreatedAt() != null
+                        ? Duration.between(oldest.getCreatedAt(), now).toSeconds() / 60.0
+                        : 0.0;
+                jobs.add(new Job(restaurantId, pickup.getLatitude(), pickup.getLongitude(), ageMinutes, List.copyOf(orderIds)));
+            }
+        });
+        return jobs;
+    }
+    
+    private boolean dropoffsNearby(Order first, Order second) {
+        Address a = first.getDeliveryAddress();
+        Address b = second.getDeliveryAddress();
+        if (a == null || b == null || a.getLatitude() == null || a.getLongitude() == null
+                || b.getLatitude() == null || b.getLongitude() == null) {
+            return false;
+        }
+        return GeoUtils.distanceKm(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude()) <= stackMaxDropoffKm;
+    }
+    
+    /**
+     * Solves every zone in parallel within the configured time box. Pure apart from the pool, so it
+     * can be driven directly with synthetic jobs and riders.
+     */
+    public List<Assignment> solve(List<Job> jobs, List<RiderLocationIndex.RiderPosition> riders) {
+        Map<Long, List<Job>> jobsByZone = jobs.stream()
+                .collect(Collectors.groupingBy(job -> zoneOf(job.latitude(), job.longitude())));
+        
+        // Each rider joins every zone with jobs within reach, not just the one they stand in
+        Map<Long, List<RiderLocationIndex.RiderPosition>> ridersByZone = new HashMap<>();
+        for (RiderLocationIndex.RiderPosition rider : riders) {
+            long row = zoneRow(rider.latitude());
+            long col = zoneCol(rider.longitude());
+            int rowRings = (int) Math.ceil(maxDistanceKm / (zoneDegrees * KM_PER_DEGREE));
+            int colRings = (int) Math.ceil(maxDistanceKm
+                    / (zoneDegrees * KM_PER_DEGREE * Math.max(0.1, Math.cos(Math.toRadians(rider.latitude())))));
+            for (long dRow = -rowRings; dRow <= rowRings; dRow++) {
+                for (long dCol = -colRings; dCol <= colRings; dCol++) {
+                    long zone = zoneKey(row + dRow, col + dCol);
+                    if (jobsByZone.containsKey(zone)) {
+                        ridersByZone.computeIfAbsent(zone, z -> new ArrayList<>()).add(rider);
+                    }
+                }
+            }
+        }
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBoxMs);
+        List<ForkJoinTask<List<Assignment>>> tasks = new ArrayList<>();
+        jobsByZone.forEach((zone, zoneJobs) -> {
+            List<RiderLocationIndex.RiderPosition> zoneRiders = ridersByZone.getOrDefault(zone, List.of());
+            if (!zoneRiders.isEmpty()) {
+                tasks.add(pool.submit(() -> solveZone(zoneJobs, zoneRiders, deadline)));
+            }
+        });
+        
+        List<Assignment> assignments = new ArrayList<>();
+        for (ForkJoinTask<List<Assignment>> task : tasks) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                assignments.addAll(task.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (Exception e) {
+                // Zone missed the time box (or failed); its orders stay pending for the next round.
+                // A running solver stops at its own deadline check; this only drops unstarted zones.
+                task.cancel(false);
+            }
+        }
+        
+        // A rider seen by two zones keeps the closer pickup; the other job waits for the next round
+        assignments.sort(Comparator.comparingDouble(Assignment::distanceKm));
+        Set<String> taken = new HashSet<>();
+        return assignments.stream().filter(assignment -> taken.add(assignment.riderId())).toList();
+    }
+    
+    private List<Assignment> solveZone(List<Job> jobs, List<RiderLocationIndex.RiderPosition> riders, long deadline) {
+        if (jobs.size() > maxJobsPerZone || riders.size() > maxJobsPerZone * 2) {
+            return greedy(jobs, riders, deadline);
+        }
+        
+        double[][] cost = new double[jobs.size()][riders.size()];
+        double[][] distances = new double[jobs.size()][riders.size()];
+        for (int i = 0; i < jobs.size(); i++) {
+            checkDeadline(deadline);
+            Job job = jobs.get(i);
+            for (int j = 0; j < riders.size(); j++) {
+                RiderLocationIndex.RiderPosition rider = riders.get(j);
+                double distance = GeoUtils.distanceKm(job.latitude(), job.longitude(), rider.latitude(), rider.longitude());
+                distances[i][j] = distance;
+                cost[i][j] = distance > maxDistanceKm ? UNASSIGNED_COST : distance - ageWeightKmPerMinute * job.ageMinutes();
+            }
+        }
+        
+        int[] assignment = AssignmentSolver.solve(cost, riders.size(), UNASSIGNED_COST, deadline);
+        List<Assignment> result = new ArrayList<>();
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                result.add(new Assignment(jobs.get(i), riders.get(assignment[i]).riderId(), distances[i][assignment[i]]));
+            }
+        }
+        return result;
+    }
+    
+    private List<Assignment> greedy(List<Job> jobs, List<RiderLocationIndex.RiderPosition> riders, long deadline) {
+        // Oversized zones: oldest jobs first, each takes the nearest unused rider
+        List<Job> byAge = new ArrayList<>(jobs);
+        byAge.sort(Comparator.comparingDouble(Job::ageMinutes).reversed());
+        Set<String> used = new HashSet<>();
+        List<Assignment> result = new ArrayList<>();
+        for (Job job : byAge) {
+            checkDeadline(deadline);
+            RiderLocationIndex.RiderPosition best = null;
+            double bestDistance = maxDistanceKm;
+            for (RiderLocationIndex.RiderPosition rider : riders) {
+                if (used.contains(rider.riderId())) {
+                    continue;
+                }
+                double distance = GeoUtils.distanceKm(job.latitude(), job.longitude(), rider.latitude(), rider.longitude());
+                if (distance <= bestDistance) {
+                    best = rider;
+                    bestDistance = distance;
+                }
+            }
+            if (best != null) {
+                used.add(best.riderId());
+                result.add(new Assignment(job, best.riderId(), bestDistance));
+            }
+        }
+        return result;
+    }
+    
+    private int apply(List<Assignment> assignments) {
+        int assigned = 0;
+        for (Assignment assignment : assignments) {
+            if (!dispatchService.claim(assignment.riderId())) {
+                continue;
+            }
+            boolean any = false;
+            for (String orderId : assignment.job().orderIds()) {
+                try {
+                    orderEventOutbox.recordWith(
+                            () -> orderStateMachine.assignDeliveryPartner(orderId, assignment.riderId()),
+                            OrderEvent::deliveryPartnerAssigned);
+                    any = true;
+                    assigned++;
+                } catch (RuntimeException e) {
+                    log.debug("Order {} was assigned or closed before dispatch: {}", orderId, e.getMessage());
+                }
+            }
+            if (!any) {
+                dispatchService.release(assignment.riderId());
+            }
+        }
+        return assigned;
+    }
+    
+    private static void checkDeadline(long deadline) {
+        if (System.nanoTime() - deadline > 0) {
+            throw new CancellationException("Dispatch round time box passed");
+        }
+    }
+    
+    private long zoneOf(double latitude, double longitude) {
+        return zoneKey(zoneRow(latitude), zoneCol(longitude));
+    }
+    
+    private long zoneRow(double latitude) {
+        return (long) Math.floor(latitude / zoneDegrees);
+    }
+    
+    private long zoneCol(double longitude) {
+        return (long) Math.floor(longitude / zoneDegrees);
+    }
+    
+    private static long zoneKey(long row, long col) {
+        return (row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,286 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.service.ClusterTransport.Frame;
+import in.bushansirgur.foodiesapi.service.ClusterTransport.FrameType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Carries broker publications between API nodes so a client gets an update no matter which node
+ * produced it. Each node announces the destinations its own sessions subscribe to, and a
+ * publication is forwarded only to the peers that announced its destination. A subscription to a
+ * user destination is announced under the unresolved {@code /user/{name}/...} form, so a
+ * {@code convertAndSendToUser} on any node reaches the peers holding that user's sessions, where the
+ * user-destination handler resolves it to the sessions. Node-local caches also use the relay to tell peers to drop an entry. Inert unless
+ * a {@link ClusterTransport} bean is configured.
+ */
+@Slf4j
+@Component
+public class ClusterRelay implements ClusterTransport.Listener {
+    
+    private static final String USER_PREFIX = "/user/";
+    private static final String RELAYED_FROM_HEADER = "clusterRelayedFrom";
+    private static final String CONTENT_TYPE_HEADER = "content-type";
+    
+    private final ClusterTransport transport;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    
+    // sessionId -> subscriptionId -> destination, for this node's sessions
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> localSubscriberCounts = new ConcurrentHashMap<>();
+    // destination -> peers with at least one subscriber
+    private final Map<String, Set<String>> remoteInterest = new ConcurrentHashMap<>();
+    // cache name -> local eviction run when a peer invalidates a key
+    private final Map<String, Consumer<String>> invalidationHandlers = new ConcurrentHashMap<>();
+    
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    
+    public ClusterRelay(ObjectProvider<ClusterTransport> transport,
+                        ObjectProvider<SimpMessagingTemplate> messagingTemplate) {
+        this.transport = transport.getIfAvailable();
+        this.messagingTemplate = messagingTemplate;
+    }
+    
+    public record Stats(boolean enabled, String nodeId, int localDestinations, int remoteDestinations,
+                        long forwarded, long received) {
+    }
+    
+    public boolean isEnabled() {
+        return transport != null;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (transport != null) {
+            transport.start(this);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (transport != null) {
+            transport.stop();
+        }
+    }
+    
+    public Stats getStats() {
+        return new Stats(isEnabled(), transport != null ? transport.nodeId() : null,
+                localSubscriberCounts.size(), remoteInterest.size(), forwarded.get(), received.get());
+    }
+    
+    /** Evicts keys of the named cache on this node whenever a peer invalidates them. */
+    public void onInvalidation(String cache, Consumer<String> handler) {
+        invalidationHandlers.put(cache, handler);
+    }
+    
+    /** Tells every peer to drop {@code key} from the named cache. */
+    public void invalidate(String cache, String key) {
+        if (transport != null) {
+            transport.broadcast(new Frame(FrameType.INVALIDATE, cache, Map.of(), key.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+    
+    /** Client inbound interceptor tracking which destinations this node's sessions subscribe to. */
+    public ChannelInterceptor subscriptionTracker() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                if (transport != null) {
+                    trackSubscription(message);
+                }
+                return message;
+            }
+        };
+    }
+    
+    /** Broker channel interceptor forwarding local publications to interested peers. */
+    public ChannelInterceptor publicationForwarder() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                if (transport != null) {
+                    forward(message);
+                }
+                return message;
+            }
+        };
+    }
+    
+    @Override
+    public void onFrame(String peerId, Frame frame) {
+        switch (frame.type()) {
+            case SUBSCRIBED -> remoteInterest.computeIfAbsent(frame.destination(), d -> ConcurrentHashMap.newKeySet()).add(peerId);
+            case UNSUBSCRIBED -> remoteInterest.computeIfPresent(frame.destination(), (d, peers) -> {
+                peers.remove(peerId);
+                return peers.isEmpty() ? null : peers;
+            });
+            case MESSAGE -> publishLocally(peerId, frame);
+            case INVALIDATE -> {
+                Consumer<String> handler = invalidationHandlers.get(frame.destination());
+                if (handler != null) {
+                    handler.accept(new String(frame.payload(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void onPeerUp(String peerId) {
+        // Tell the new peer everything this node is currently subscribed to
+        for (String destination : localSubscriberCounts.keySet()) {
+            transport.send(peerId, Frame.interest(FrameType.SUBSCRIBED, destination));
+        }
+    }
+    
+    @Override
+    public void onPeerDown(String peerId) {
+        remoteInterest.replaceAll((destination, peers) -> {
+            peers.remove(peerId);
+            return peers;
+        });
+        remoteInterest.values().removeIf(Set::isEmpty);
+    }
+    
+    private void trackSubscription(Message<?> message) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (type == null || sessionId == null) {
+            return;
+        }
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        if (type == SimpMessageType.SUBSCRIBE) {
+            String destination = interestDestination(message);
+            if (destination != null && subscriptionId != null) {
+                String previous = sessionSubscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                        .put(subscriptionId, destination);
+                if (previous == null) {
+                    adjustLocalCount(destination, 1);
+                }
+            }
+        } else if (type == SimpMessageType.UNSUBSCRIBE) {
+            Map<String, String> subscriptions = sessionSubscriptions.get(sessionId);
+            String destination = subscriptions != null && subscriptionId != null ? subscriptions.remove(subscriptionId) : null;
+            if (destination != null) {
+                adjustLocalCount(destination, -1);
+            }
+        } else if (type == SimpMessageType.DISCONNECT) {
+            Map<String, String> subscriptions = sessionSubscriptions.remove(sessionId);
+            if (subscriptions != null) {
+                subscriptions.values().forEach(destination -> adjustLocalCount(destination, -1));
+            }
+        }
+    }
+    
+    /**
+     * The destination a publication for this subscription is sent to: the subscribed destination, or
+     * for {@code /user/queue/x} the {@code /user/{name}/queue/x} form {@code convertAndSendToUser} uses.
+     */
+    private static String interestDestination(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !destination.startsWith(USER_PREFIX)) {
+            return destination;
+        }
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        if (user == null) {
+            return null;
+        }
+        return USER_PREFIX + user.getName().replace("/", "%2F") + destination.substring(USER_PREFIX.length() - 1);
+    }
+    
+    private void adjustLocalCount(String destination, int delta) {
+        Integer count = localSubscriberCounts.merge(destination, delta, (current, change) -> {
+            int next = current + change;
+            return next > 0 ? next : null;
+        });
+        if (delta > 0 && count != null && count == 1) {
+            transport.broadcast(Frame.interest(FrameType.SUBSCRIBED, destination));
+        } else if (delta < 0 && count == null) {
+            transport.broadcast(Frame.interest(FrameType.UNSUBSCRIBED, destination));
+        }
+    }
+    
+    private void forward(Message<?> message) {
+        if (message.getHeaders().containsKey(RELAYED_FROM_HEADER)
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return;
+        }
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (type != SimpMessageType.MESSAGE || destination == null) {
+            return;
+        }
+        
+        Set<String> peers = remoteInterest.get(destination);
+        if (peers == null || peers.isEmpty()) {
+            return;
+        }
+        
+        Frame frame = new Frame(FrameType.MESSAGE, destination, frameHeaders(message), payload);
+        for (String peerId : peers) {
+            transport.send(peerId, frame);
+        }
+        forwarded.incrementAndGet();
+    }
+    
+    private static Map<String, String> frameHeaders(Message<?> message) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        MimeType contentType = accessor != null ? accessor.getContentType() : SimpMessageHeaderAccessor.wrap(message).getContentType();
+        if (contentType != null) {
+            headers.put(CONTENT_TYPE_HEADER, contentType.toString());
+        }
+        Object nativeHeaders = message.getHeaders().get(SimpMessageHeaderAccessor.NATIVE_HEADERS);
+        if (nativeHeaders instanceof Map<?, ?> map) {
+            map.forEach((name, values) -> {
+                if (values instanceof List<?> list && !list.isEmpty() && !CONTENT_TYPE_HEADER.equals(name)) {
+                    headers.put(String.valueOf(name), String.valueOf(list.get(0)));
+                }
+            });
+        }
+        return headers;
+    }
+    
+    private void publishLocally(String peerId, Frame frame) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        frame.headers().forEach((name, value) -> {
+            if (CONTENT_TYPE_HEADER.equals(name)) {
+                accessor.setContentType(MimeType.valueOf(value));
+            } else {
+                accessor.setNativeHeader(name, value);
+            }
+        });
+        accessor.setHeader(RELAYED_FROM_HEADER, peerId);
+        accessor.setLeaveMutable(true);
+        try {
+            messagingTemplate.getObject().send(frame.destination(),
+                    MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders()));
+            received.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish relayed message for {}: {}", frame.destination(), e.getMessage());
+        }
+    }
+}
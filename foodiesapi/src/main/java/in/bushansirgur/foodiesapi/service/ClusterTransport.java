@@ -0,0 +1,79 @@
+package in.bushansirgur.foodiesapi.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Node-to-node channel used by {@link ClusterRelay}. Implementations deliver frames from one
+ * sender in order and report peers coming and going; they never block the caller on the network.
+ */
+public interface ClusterTransport {
+    
+    String nodeId();
+    
+    void start(Listener listener);
+    
+    void stop();
+    
+    /** Queues a frame for one peer; silently dropped if the peer is unknown or backed up. */
+    void send(String peerId, Frame frame);
+    
+    /** Queues a frame for every connected peer. */
+    void broadcast(Frame frame);
+    
+    interface Listener {
+        
+        void onFrame(String peerId, Frame frame);
+        
+        /** The peer can now receive frames from this node. */
+        void onPeerUp(String peerId);
+        
+        /** The peer's frames stopped arriving; anything it announced is stale. */
+        void onPeerDown(String peerId);
+    }
+    
+    enum FrameType {
+        SUBSCRIBED, UNSUBSCRIBED, MESSAGE, INVALIDATE
+    }
+    
+    record Frame(FrameType type, String destination, Map<String, String> headers, byte[] payload) {
+        
+        private static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+        
+        public static Frame interest(FrameType type, String destination) {
+            return new Frame(type, destination, Map.of(), new byte[0]);
+        }
+        
+        public void write(DataOutputStream out) throws IOException {
+            out.writeByte(type.ordinal());
+            out.writeUTF(destination);
+            out.writeShort(headers.size());
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeUTF(header.getValue());
+            }
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+        
+        public static Frame read(DataInputStream in) throws IOException {
+            FrameType type = FrameType.values()[in.readUnsignedByte()];
+            String destination = in.readUTF();
+            int headerCount = in.readUnsignedShort();
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (int i = 0; i < headerCount; i++) {
+                headers.put(in.readUTF(), in.readUTF());
+            }
+            int length = in.readInt();
+            if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+                throw new IOException("Invalid cluster frame payload length " + length);
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            return new Frame(type, destination, headers, payload);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package in.bushansirgur.foodiesapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.bushansirgur.foodiesapi.controller.WebSocketController;
+import in.bushansirgur.foodiesapi.dto.DeliveryPosition;
+import in.bushansirgur.foodiesapi.dto.WebSocketMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes delivery positions to order topics at most once per tick per order. Offers replace any
+ * position still waiting for the tick, and each frame is serialized once and shared by every
+ * subscriber of the topic. Runs on its own single-threaded scheduler so a slow tick never delays
+ * the other @Scheduled jobs.
+ */
+@Slf4j
+@Service
+public class DeliveryLocationBroadcaster {
+    
+    private final WebSocketController webSocketController;
+    private final ObjectMapper objectMapper;
+    private final long intervalMs;
+    
+    private final Map<String, DeliveryPosition> pending = new ConcurrentHashMap<>();
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    
+    public DeliveryLocationBroadcaster(WebSocketController webSocketController,
+                                       ObjectMapper objectMapper,
+                                       @Value("${delivery.location.broadcast-interval-ms:1000}") long intervalMs) {
+        this.webSocketController = webSocketController;
+        this.objectMapper = objectMapper;
+        this.intervalMs = intervalMs;
+    }
+    
+    public record Stats(long offered, long superseded, long sent, int pending) {
+    }
+    
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "location-broadcaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+    
+    public void offer(DeliveryPosition position) {
+        offered.incrementAndGet();
+        if (pending.put(position.orderId(), position) != null) {
+            superseded.incrementAndGet();
+        }
+    }
+    
+    public void cancel(String orderId) {
+        pending.remove(orderId);
+    }
+    
+    public Stats getStats() {
+        return new Stats(offered.get(), superseded.get(), sent.get(), pending.size());
+    }
+    
+    private void tick() {
+        // An exception escaping a fixed-rate task would cancel all further ticks
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Delivery location broadcast failed: {}", e.getMessage());
+        }
+    }
+    
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        String timestamp = LocalDateTime.now().toString();
+        for (String orderId : pending.keySet()) {
+            DeliveryPosition position = pending.remove(orderId);
+            if (position == null) {
+                continue;
+            }
+            try {
+                byte[] frame = objectMapper.writeValueAsBytes(WebSocketMessage.deliveryUpdate(
+                        orderId, position.latitude(), position.longitude(), timestamp));
+                webSocketController.sendDeliveryUpdate(orderId, frame);
+                sent.incrementAndGet();
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to encode delivery position for order {}: {}", orderId, e.getMessage());
+            }
+        }
+    }
+}
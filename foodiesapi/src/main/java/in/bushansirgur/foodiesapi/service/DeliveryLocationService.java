@@ -0,0 +1,175 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.dto.DeliveryPosition;
+import in.bushansirgur.foodiesapi.model.Order;
+import jakarta.annotation.PostConstruct;
+import org.springframework.security.access.AccessDeniedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingests rider GPS pings into an in-memory latest-position table. Pings for the same order
+ * coalesce, the latest positions are persisted in throttled bulk {@code $set}s of the two
+ * tracking fields, and WebSocket pushes go through the conflating {@link DeliveryLocationBroadcaster}.
+ * Only the rider assigned to an active order can report its position; the assignment is read from
+ * Mongo on the first ping and then checked against the tracked position. Tracking stops on every
+ * node once the order is closed, see {@link #orderClosed}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeliveryLocationService {
+    
+    private static final String TRACKING_CACHE = "delivery-tracking";
+    
+    private final MongoTemplate mongoTemplate;
+    private final DeliveryLocationBroadcaster broadcaster;
+    private final ClusterRelay clusterRelay;
+    
+    private final Map<String, DeliveryPosition> latestPositions = new ConcurrentHashMap<>();
+    private final Set<String> pendingPersist = ConcurrentHashMap.newKeySet();
+    
+    @Value("${delivery.location.max-tracked-orders:100000}")
+    private int maxTrackedOrders;
+    
+    @Value("${delivery.location.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${delivery.location.stale-after-ms:1800000}")
+    private long staleAfterMs;
+    
+    @PostConstruct
+    void registerPeerStops() {
+        clusterRelay.onInvalidation(TRACKING_CACHE, this::stopTracking);
+    }
+    
+    /**
+     * Records a position reported by {@code callerId}, who must be the order's rider unless {@code admin}.
+     */
+    public DeliveryPosition ingest(String orderId, String callerId, boolean admin, double latitude, double longitude) {
+        DeliveryPosition current = latestPositions.get(orderId);
+        String riderId = current != null ? current.riderId() : assignedRider(orderId);
+        if (!admin && !riderId.equals(callerId)) {
+            throw new AccessDeniedException("Order is not assigned to you");
+        }
+        // Stale entries are evicted on the flush tick, never on the ping path
+        if (current == null && latestPositions.size() >= maxTrackedOrders) {
+            throw new RuntimeException("Too many active deliveries being tracked");
+        }
+        
+        DeliveryPosition position = new DeliveryPosition(orderId, riderId, latitude, longitude, System.currentTimeMillis());
+        latestPositions.put(orderId, position);
+        pendingPersist.add(orderId);
+        broadcaster.offer(position);
+        return position;
+    }
+    
+    public DeliveryPosition getLatestPosition(String orderId) {
+        return latestPositions.get(orderId);
+    }
+    
+    /**
+     * Stops tracking a closed order here and on every peer, since pings may have reached any node.
+     */
+    public void orderClosed(String orderId) {
+        stopTracking(orderId);
+        clusterRelay.invalidate(TRACKING_CACHE, orderId);
+    }
+    
+    /**
+     * Stops tracking an order on this node. Any unpersisted position is written first.
+     */
+    public void stopTracking(String orderId) {
+        if (pendingPersist.remove(orderId)) {
+            DeliveryPosition position = latestPositions.get(orderId);
+            if (position != null) {
+                persist(List.of(position));
+            }
+        }
+        broadcaster.cancel(orderId);
+        latestPositions.remove(orderId);
+    }
+    
+    @Scheduled(fixedDelayString = "${delivery.location.flush-interval-ms:5000}")
+    public void flushPositions() {
+        List<DeliveryPosition> batch = new ArrayList<>(batchSize);
+        for (String orderId : drain(pendingPersist)) {
+            DeliveryPosition position = latestPositions.get(orderId);
+            if (position == null) {
+                continue;
+            }
+            batch.add(position);
+            if (batch.size() >= batchSize) {
+                persist(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            persist(batch);
+        }
+        evictStale();
+    }
+    
+    private String assignedRider(String orderId) {
+        Query query = Query.query(Criteria.where("_id").is(orderId));
+        query.fields().include("status").include("deliveryPartnerId");
+        Order order = mongoTemplate.findOne(query, Order.class);
+        if (order == null) {
+            throw new RuntimeException("Order not found");
+        }
+        if (order.getDeliveryPartnerId() == null || OrderStateMachine.isTerminal(order.getStatus())) {
+            throw new RuntimeException("Order is not out for delivery");
+        }
+        return order.getDeliveryPartnerId();
+    }
+    
+    private void persist(List<DeliveryPosition> positions) {
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+            for (DeliveryPosition position : positions) {
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(position.orderId())),
+                        new Update()
+                                .set("tracking.currentLatitude", position.latitude())
+                                .set("tracking.currentLongitude", position.longitude())
+                );
+            }
+            bulk.execute();
+        } catch (Exception e) {
+            // Retry on the next flush; a newer ping may have superseded the position by then
+            log.warn("Failed to persist {} delivery positions: {}", positions.size(), e.getMessage());
+            positions.forEach(position -> pendingPersist.add(position.orderId()));
+        }
+    }
+    
+    private void evictStale() {
+        long cutoff = System.currentTimeMillis() - staleAfterMs;
+        latestPositions.entrySet().removeIf(entry ->
+                entry.getValue().recordedAt() < cutoff && !pendingPersist.contains(entry.getKey()));
+    }
+    
+    private static List<String> drain(Set<String> pending) {
+        List<String> drained = new ArrayList<>();
+        Iterator<String> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,29 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops delivery tracking once an order is delivered, cancelled or refunded, however it got
+ * there. Only the node holding the outbox lease runs sinks, so the stop is relayed to its peers.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeliveryTrackingOrderEventSink implements OrderEventSink {
+    
+    private final DeliveryLocationService deliveryLocationService;
+    
+    @Override
+    public String name() {
+        return "delivery-tracking";
+    }
+    
+    @Override
+    public void deliver(OrderEvent event) {
+        if (event.getType() == OrderEvent.EventType.STATUS_CHANGED && event.getOrder() != null
+                && OrderStateMachine.isTerminal(event.getOrder().getStatus())) {
+            deliveryLocationService.orderClosed(event.getOrderId());
+        }
+    }
+}
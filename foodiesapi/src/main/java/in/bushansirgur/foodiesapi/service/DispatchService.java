@@ -0,0 +1,191 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.Address;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.User;
+import in.bushansirgur.foodiesapi.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns orders to the nearest available rider using {@link RiderLocationIndex}. A rider is
+ * claimed with a conditional update on {@code isAvailable} in Mongo, so two orders (or two nodes)
+ * can never end up with the same rider; the node-local index only picks the candidates. A rider
+ * is available only while online and not carrying an order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DispatchService {
+    
+    private final RiderLocationIndex riderLocationIndex;
+    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final OrderStateMachine orderStateMachine;
+    
+    private final Set<String> pendingPositions = ConcurrentHashMap.newKeySet();
+    
+    @Value("${dispatch.candidates:5}")
+    private int candidates;
+    
+    @Value("${dispatch.max-distance-km:10}")
+    private double maxDistanceKm;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAvailableRiders() {
+        for (User rider : userRepository.findAvailableDeliveryPartners()) {
+            if (rider.getCurrentLatitude() != null && rider.getCurrentLongitude() != null) {
+                riderLocationIndex.setAvailable(rider.getId(), rider.getCurrentLatitude(), rider.getCurrentLongitude(), true);
+            }
+        }
+        log.info("Rider index loaded with {} available riders", riderLocationIndex.availableCount());
+    }
+    
+    public void updateRiderLocation(String riderId, double latitude, double longitude) {
+        riderLocationIndex.update(riderId, latitude, longitude);
+        pendingPositions.add(riderId);
+    }
+    
+    /**
+     * Puts a rider on or off shift. Going online does not make a rider who still carries an order
+     * available; {@link #release} does that once the order is closed.
+     */
+    public boolean setRiderAvailability(String riderId, double latitude, double longitude, boolean online) {
+        boolean available = online && !hasActiveOrders(riderId);
+        boolean updated = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(riderId).and("role").is(User.UserRole.DELIVERY_PARTNER)),
+                new Update()
+                        .set("isOnline", online)
+                        .set("isAvailable", available)
+                        .set("currentLatitude", latitude)
+                        .set("currentLongitude", longitude),
+                User.class).getMatchedCount() == 1;
+        if (!updated) {
+            throw new RuntimeException("Delivery partner not found");
+        }
+        riderLocationIndex.setAvailable(riderId, latitude, longitude, available);
+        return available;
+    }
+    
+    public Order autoAssign(Order order) {
+        Address pickup = restaurantAddress(order.getRestaurantId());
+        List<RiderLocationIndex.Candidate> nearest = riderLocationIndex.nearest(
+                pickup.getLatitude(), pickup.getLongitude(), candidates, maxDistanceKm);
+        
+        for (RiderLocationIndex.Candidate candidate : nearest) {
+            if (!claim(candidate.riderId())) {
+                continue;
+            }
+            try {
+                return orderStateMachine.assignDeliveryPartner(order.getId(), candidate.riderId());
+            } catch (RuntimeException e) {
+                // Order was assigned or closed concurrently; give the rider back
+                release(candidate.riderId());
+                throw e;
+            }
+        }
+        throw new RuntimeException("No delivery partner available near the restaurant");
+    }
+    
+    /**
+     * Claims a specific rider for an order, failing if they are not currently available. The
+     * database decides: the rider may have no position in this node's index, or have been made
+     * available on another node.
+     */
+    public boolean claim(String riderId) {
+        // Keeps this node's auto-dispatch from offering the rider while the claim is in flight
+        boolean takenFromIndex = riderLocationIndex.claim(riderId);
+        boolean claimed = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(riderId)
+                        .and("role").is(User.UserRole.DELIVERY_PARTNER)
+                        .and("isAvailable").is(true)),
+                Update.update("isAvailable", false),
+                User.class).getModifiedCount() == 1;
+        if (!claimed) {
+            if (takenFromIndex) {
+                // Give the candidate back; the next claim asks the database again
+                riderLocationIndex.setAvailable(riderId, true);
+            }
+            log.debug("Rider {} was not available in the database", riderId);
+        }
+        return claimed;
+    }
+    
+    /**
+     * Makes a rider available again after an order closes, unless they still carry another
+     * (stacked) order or went offline meanwhile (riders from before {@code isOnline} existed count
+     * as online).
+     */
+    public void release(String riderId) {
+        if (hasActiveOrders(riderId)) {
+            return;
+        }
+        boolean released = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(riderId).and("isOnline").ne(false)),
+                Update.update("isAvailable", true),
+                User.class).getMatchedCount() == 1;
+        if (released) {
+            riderLocationIndex.setAvailable(riderId, true);
+        }
+    }
+    
+    private boolean hasActiveOrders(String riderId) {
+        return mongoTemplate.exists(
+                Query.query(Criteria.where("deliveryPartnerId").is(riderId)
+                        .and("status").nin(Order.OrderStatus.DELIVERED, Order.OrderStatus.CANCELLED, Order.OrderStatus.REFUNDED)),
+                Order.class);
+    }
+    
+    @Scheduled(fixedDelayString = "${dispatch.position-flush-interval-ms:10000}")
+    public void flushRiderPositions() {
+        List<RiderLocationIndex.RiderPosition> batch = new ArrayList<>();
+        Iterator<String> iterator = pendingPositions.iterator();
+        while (iterator.hasNext()) {
+            RiderLocationIndex.RiderPosition position = riderLocationIndex.get(iterator.next());
+            iterator.remove();
+            if (position != null) {
+                batch.add(position);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        for (RiderLocationIndex.RiderPosition position : batch) {
+            bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(position.riderId())),
+                    new Update()
+                            .set("currentLatitude", position.latitude())
+                            .set("currentLongitude", position.longitude())
+            );
+        }
+        bulk.execute();
+    }
+    
+    private Address restaurantAddress(String restaurantId) {
+        User restaurant = userRepository.findById(restaurantId)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found"));
+        Address address = restaurant.getRestaurantAddress();
+        if (address == null || address.getLatitude() == null || address.getLongitude() == null) {
+            throw new RuntimeException("Restaurant location is not set");
+        }
+        return address;
+    }
+}
@@ -0,0 +1,76 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import in.bushansirgur.foodiesapi.model.User;
+import in.bushansirgur.foodiesapi.repository.UserRepository;
+import in.bushansirgur.foodiesapi.service.NotificationService.Template;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Emails the customer when an order is placed and when it reaches a status they act on. Mail is
+ * only queued here; {@link NotificationService} sends it in batches.
+ * <p>
+ * The outbox counts an event as delivered to this sink once its mail is in the in-memory queue,
+ * not once SMTP accepts it. Mail still queued when the node crashes is lost; mail that fails to
+ * send is retried by {@link NotificationService} and then dead-lettered, never by the outbox.
+ * Only a full queue is reported back, so the outbox retries the event later.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.sinks.email.enabled", havingValue = "true")
+public class EmailOrderEventSink implements OrderEventSink {
+    
+    private static final Map<Order.OrderStatus, Template> STATUS_TEMPLATES = new EnumMap<>(Order.OrderStatus.class);
+    
+    static {
+        STATUS_TEMPLATES.put(Order.OrderStatus.CONFIRMED, Template.ORDER_CONFIRMED);
+        STATUS_TEMPLATES.put(Order.OrderStatus.OUT_FOR_DELIVERY, Template.ORDER_OUT_FOR_DELIVERY);
+        STATUS_TEMPLATES.put(Order.OrderStatus.DELIVERED, Template.ORDER_DELIVERED);
+        STATUS_TEMPLATES.put(Order.OrderStatus.CANCELLED, Template.ORDER_CANCELLED);
+    }
+    
+    private final NotificationService notificationService;
+    private final UserRepository userRepository;
+    
+    @Override
+    public String name() {
+        return "email";
+    }
+    
+    @Override
+    public boolean replayedByDefault() {
+        return false;
+    }
+    
+    @Override
+    public void deliver(OrderEvent event) {
+        Order order = event.getOrder();
+        Template template = switch (event.getType()) {
+            case CREATED -> Template.ORDER_PLACED;
+            case STATUS_CHANGED -> STATUS_TEMPLATES.get(order.getStatus());
+            default -> null;
+        };
+        if (template == null) {
+            return;
+        }
+        User customer = userRepository.findById(order.getCustomerId()).orElse(null);
+        if (customer == null || customer.getEmail() == null) {
+            return;
+        }
+        
+        Map<String, String> variables = Map.of(
+                "name", customer.getName() != null ? customer.getName() : "there",
+                "orderNumber", order.getOrderNumber(),
+                "totalAmount", order.getTotalAmount() != null ? order.getTotalAmount().toPlainString() : "");
+        // Later status mails for the same order replace one that has not gone out yet
+        if (!notificationService.enqueue(order.getId(), customer.getEmail(), template, variables)) {
+            throw new RuntimeException("Mail queue is full");
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package in.bushansirgur.foodiesapi.service;
+
+import com.mongodb.client.MongoCursor;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.Payment;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams orders or payments straight from a Mongo cursor to the response as NDJSON or CSV.
+ * Documents are read as raw BSON with only the requested fields and written one at a time, so
+ * memory stays at one cursor batch however large the range is. Rows come out in
+ * {@code (createdAt, _id)} order, which lets a client resume an interrupted export from the last
+ * {@code _id} it received.
+ */
+@Slf4j
+@Service
+public class ExportService {
+    
+    private static final Pattern FIELD_PATTERN = Pattern.compile("[A-Za-z][A-Za-z0-9_]*(\\.[A-Za-z][A-Za-z0-9_]*)*");
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("-?\\d+(\\.\\d+)?");
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    
+    private final MongoTemplate mongoTemplate;
+    private final JsonWriterSettings jsonSettings;
+    
+    @Value("${exports.batch-size:1000}")
+    private int defaultBatchSize;
+    
+    @Value("${exports.max-batch-size:10000}")
+    private int maxBatchSize;
+    
+    public ExportService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        // Plain JSON values instead of extended JSON wrappers such as {"$oid": ...}
+        this.jsonSettings = JsonWriterSettings.builder()
+                .outputMode(JsonMode.RELAXED)
+                .objectIdConverter((value, writer) -> writer.writeString(value.toHexString()))
+                .dateTimeConverter((value, writer) -> writer.writeString(formatDate(value)))
+                .decimal128Converter((value, writer) -> writer.writeNumber(value.toString()))
+                .build();
+    }
+    
+    public enum Dataset {
+        ORDERS(Order.class, List.of("orderNumber", "customerId", "restaurantId", "deliveryPartnerId", "status",
+                "paymentStatus", "subtotal", "deliveryFee", "taxAmount", "totalAmount", "deliveryAddress.city", "updatedAt")),
+        PAYMENTS(Payment.class, List.of("orderId", "customerId", "amount", "currency", "method", "status",
+                "razorpayOrderId", "razorpayPaymentId", "paidAt", "refundAmount", "refundedAt"));
+        
+        private final Class<?> entityClass;
+        private final List<String> defaultFields;
+        
+        Dataset(Class<?> entityClass, List<String> defaultFields) {
+            this.entityClass = entityClass;
+            this.defaultFields = defaultFields;
+        }
+    }
+    
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"), CSV("text/csv", "csv");
+        
+        private final String contentType;
+        private final String extension;
+        
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public String contentType() {
+            return contentType;
+        }
+        
+        public String extension() {
+            return extension;
+        }
+    }
+    
+    public StreamingResponseBody export(Dataset dataset, Format format, LocalDateTime from, LocalDateTime to,
+                                        String afterId, List<String> requestedFields, Integer batchSize, boolean gzip) {
+        List<String> fields = fields(dataset, requestedFields);
+        int batch = batchSize != null ? Math.max(1, Math.min(batchSize, maxBatchSize)) : defaultBatchSize;
+        String collection = mongoTemplate.getCollectionName(dataset.entityClass);
+        // Built up front so a bad range or resume id fails before the response is committed
+        Document filter = filter(collection, from, to, afterId);
+        Document projection = new Document();
+        fields.forEach(field -> projection.append(field, 1));
+        
+        return outputStream -> {
+            long start = System.currentTimeMillis();
+            long rows = 0;
+            GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(outputStream, WRITE_BUFFER_BYTES) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzipStream != null ? gzipStream : outputStream,
+                    StandardCharsets.UTF_8), WRITE_BUFFER_BYTES);
+            
+            try (MongoCursor<Document> cursor = mongoTemplate.getCollection(collection)
+                    .find(filter)
+                    .projection(projection)
+                    .sort(new Document("createdAt", 1).append("_id", 1))
+                    .batchSize(batch)
+                    .cursor()) {
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, fields);
+                }
+                while (cursor.hasNext()) {
+                    Document document = cursor.next();
+                    if (format == Format.CSV) {
+                        List<String> values = new ArrayList<>(fields.size());
+                        for (String field : fields) {
+                            values.add(csvValue(valueAt(document, field)));
+                        }
+                        writeCsvRow(writer, values);
+                    } else {
+                        writer.write(document.toJson(jsonSettings));
+                        writer.write('\n');
+                    }
+                    // Push each batch to the client so the response keeps moving
+                    if (++rows % batch == 0) {
+                        writer.flush();
+                    }
+                }
+                writer.flush();
+                if (gzipStream != null) {
+                    gzipStream.finish();
+                }
+            } catch (IOException e) {
+                log.info("{} export aborted after {} rows: {}", dataset, rows, e.getMessage());
+                throw e;
+            }
+            log.info("Exported {} {} rows as {} in {} ms", rows, dataset, format, System.currentTimeMillis() - start);
+        };
+    }
+    
+    private List<String> fields(Dataset dataset, List<String> requested) {
+        // _id and createdAt are always exported: they are the resume position
+        Set<String> fields = new LinkedHashSet<>(List.of("_id", "createdAt"));
+        List<String> source = requested != null && !requested.isEmpty() ? requested : dataset.defaultFields;
+        for (String field : source) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!FIELD_PATTERN.matcher(trimmed).matches()) {
+                throw new RuntimeException("Invalid field: " + trimmed);
+            }
+            fields.add(trimmed);
+        }
+        return new ArrayList<>(fields);
+    }
+    
+    private Document filter(String collection, LocalDateTime from, LocalDateTime to, String afterId) {
+        List<Document> clauses = new ArrayList<>();
+        if (from != null || to != null) {
+            Document range = new Document();
+            if (from != null) {
+                range.append("$gte", toDate(from));
+            }
+            if (to != null) {
+                range.append("$lt", toDate(to));
+            }
+            clauses.add(new Document("createdAt", range));
+        }
+        
+        if (afterId != null && !afterId.isBlank()) {
+            // Resume strictly after the last exported row in (createdAt, _id) order
+            List<Object> candidates = ObjectId.isValid(afterId) ? List.of(new ObjectId(afterId), afterId) : List.of(afterId);
+            Document last = mongoTemplate.getCollection(collection)
+                    .find(new Document("_id", new Document("$in", candidates)))
+                    .projection(new Document("createdAt", 1))
+                    .first();
+            if (last == null) {
+                throw new RuntimeException("Resume id not found: " + afterId);
+            }
+            Object lastId = last.get("_id");
+            Object lastCreatedAt = last.get("createdAt");
+            clauses.add(new Document("$or", List.of(
+                    new Document("createdAt", new Document("$gt", lastCreatedAt)),
+                    new Document("createdAt", lastCreatedAt).append("_id", new Document("$gt", lastId)))));
+        }
+        
+        return switch (clauses.size()) {
+            case 0 -> new Document();
+            case 1 -> clauses.get(0);
+            default -> new Document("$and", clauses);
+        };
+    }
+    
+    private static Object valueAt(Document document, String path) {
+        Object value = document;
+        for (String part : path.split("\\.")) {
+            if (!(value instanceof Document current)) {
+                return null;
+            }
+            value = current.get(part);
+        }
+        return value;
+    }
+    
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        if (value instanceof Date date) {
+            return formatDate(date.getTime());
+        }
+        if (value instanceof Decimal128 decimal) {
+            return decimal.toString();
+        }
+        if (value instanceof Document document) {
+            return document.toJson(jsonSettings);
+        }
+        if (value instanceof List<?> list) {
+            String json = new Document("v", list).toJson(jsonSettings);
+            return json.substring(json.indexOf(':') + 1, json.length() - 1).trim();
+        }
+        String text = value.toString();
+        // Keep spreadsheet apps from evaluating exported text as a formula
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0
+                && !NUMBER_PATTERN.matcher(text).matches()) {
+            return "'" + text;
+        }
+        return text;
+    }
+    
+    private static void writeCsvRow(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+    
+    private static String formatDate(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).toString();
+    }
+    
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
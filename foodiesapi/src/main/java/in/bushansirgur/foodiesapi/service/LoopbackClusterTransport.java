@@ -0,0 +1,90 @@
+package in.bushansirgur.foodiesapi.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * In-JVM transport: every node started with the same cluster name is a peer. Frames are handed
+ * over on the receiving node's single delivery thread, so per-sender order is kept. Intended for
+ * tests that run several application contexts in one JVM.
+ */
+public class LoopbackClusterTransport implements ClusterTransport {
+    
+    private static final Map<String, Map<String, LoopbackClusterTransport>> CLUSTERS = new ConcurrentHashMap<>();
+    
+    private final String clusterName;
+    private final String nodeId;
+    private final ExecutorService delivery;
+    private Map<String, LoopbackClusterTransport> members;
+    private volatile Listener listener;
+    
+    public LoopbackClusterTransport(String clusterName, String nodeId) {
+        this.clusterName = clusterName;
+        this.nodeId = nodeId;
+        this.delivery = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-loopback-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+    
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+        members = CLUSTERS.computeIfAbsent(clusterName, name -> new ConcurrentHashMap<>());
+        members.put(nodeId, this);
+        for (LoopbackClusterTransport other : members.values()) {
+            if (other != this) {
+                other.deliver(() -> other.listener.onPeerUp(nodeId));
+                deliver(() -> listener.onPeerUp(other.nodeId));
+            }
+        }
+    }
+    
+    @Override
+    public void stop() {
+        if (members != null) {
+            members.remove(nodeId, this);
+            for (LoopbackClusterTransport other : members.values()) {
+                other.deliver(() -> other.listener.onPeerDown(nodeId));
+            }
+        }
+        delivery.shutdown();
+    }
+    
+    @Override
+    public void send(String peerId, Frame frame) {
+        LoopbackClusterTransport peer = members != null ? members.get(peerId) : null;
+        if (peer != null) {
+            peer.deliver(() -> peer.listener.onFrame(nodeId, frame));
+        }
+    }
+    
+    @Override
+    public void broadcast(Frame frame) {
+        if (members == null) {
+            return;
+        }
+        for (LoopbackClusterTransport peer : members.values()) {
+            if (peer != this) {
+                peer.deliver(() -> peer.listener.onFrame(nodeId, frame));
+            }
+        }
+    }
+    
+    private void deliver(Runnable task) {
+        try {
+            delivery.execute(task);
+        } catch (RejectedExecutionException e) {
+            // This node has stopped
+        }
+    }
+}
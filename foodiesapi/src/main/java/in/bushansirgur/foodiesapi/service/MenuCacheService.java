@@ -0,0 +1,142 @@
+package in.bushansirgur.foodiesapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.bushansirgur.foodiesapi.model.MenuItem;
+import in.bushansirgur.foodiesapi.repository.MenuItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches each restaurant's available menu as pre-serialized JSON plus an ETag. Entries are kept
+ * in LRU order and evicted once either the entry count or the total byte weight is exceeded.
+ * Invalidations are relayed to the other nodes; the TTL bounds staleness if one is missed.
+ */
+@Service
+public class MenuCacheService {
+    
+    private static final String CACHE_NAME = "menu";
+    
+    private final MenuItemRepository menuItemRepository;
+    private final ObjectMapper objectMapper;
+    private final ClusterRelay clusterRelay;
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final long ttlMs;
+    
+    private final LinkedHashMap<String, CachedMenu> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    
+    // Bumped on every invalidation so a load racing with a write does not cache stale data
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    public MenuCacheService(MenuItemRepository menuItemRepository,
+                            ObjectMapper objectMapper,
+                            ClusterRelay clusterRelay,
+                            @Value("${menu.cache.max-entries:10000}") int maxEntries,
+                            @Value("${menu.cache.max-weight-bytes:67108864}") long maxWeightBytes,
+                            @Value("${menu.cache.ttl-ms:60000}") long ttlMs) {
+        this.menuItemRepository = menuItemRepository;
+        this.objectMapper = objectMapper;
+        this.clusterRelay = clusterRelay;
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlMs = ttlMs;
+        clusterRelay.onInvalidation(CACHE_NAME, this::evict);
+    }
+    
+    public record CachedMenu(byte[] json, String etag, long loadedAt) {
+    }
+    
+    public record Stats(long hits, long misses, long evictions, int size, long weightBytes) {
+    }
+    
+    public CachedMenu getIfPresent(String restaurantId) {
+        CachedMenu menu;
+        synchronized (entries) {
+            menu = entries.get(restaurantId);
+            if (menu != null && System.currentTimeMillis() - menu.loadedAt() > ttlMs) {
+                entries.remove(restaurantId);
+                totalWeight -= menu.json().length;
+                menu = null;
+            }
+        }
+        if (menu != null) {
+            hits.incrementAndGet();
+        }
+        return menu;
+    }
+    
+    public CachedMenu getMenu(String restaurantId) {
+        CachedMenu menu = getIfPresent(restaurantId);
+        if (menu != null) {
+            return menu;
+        }
+        
+        misses.incrementAndGet();
+        long version = invalidations.get();
+        List<MenuItem> menuItems = menuItemRepository.findByRestaurantIdAndIsAvailable(restaurantId, true);
+        menu = serialize(menuItems);
+        
+        synchronized (entries) {
+            if (version == invalidations.get()) {
+                CachedMenu previous = entries.put(restaurantId, menu);
+                if (previous != null) {
+                    totalWeight -= previous.json().length;
+                }
+                totalWeight += menu.json().length;
+                evictIfNeeded();
+            }
+        }
+        return menu;
+    }
+    
+    public void invalidate(String restaurantId) {
+        evict(restaurantId);
+        clusterRelay.invalidate(CACHE_NAME, restaurantId);
+    }
+    
+    private void evict(String restaurantId) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            CachedMenu removed = entries.remove(restaurantId);
+            if (removed != null) {
+                totalWeight -= removed.json().length;
+            }
+        }
+    }
+    
+    public Stats getStats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), entries.size(), totalWeight);
+        }
+    }
+    
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, CachedMenu>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalWeight > maxWeightBytes) && iterator.hasNext()) {
+            totalWeight -= iterator.next().getValue().json().length;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+    
+    private CachedMenu serialize(List<MenuItem> menuItems) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(menuItems);
+            return new CachedMenu(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"", System.currentTimeMillis());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize menu: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.MailDeadLetter;
+import in.bushansirgur.foodiesapi.repository.MailDeadLetterRepository;
+import in.bushansirgur.foodiesapi.util.MailTemplate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends templated emails off the request path. Notifications wait in a bounded queue keyed by
+ * recipient and subject (e.g. an order), where a newer one for the same key replaces the one
+ * still queued. A single sender thread drains the queue in batches and hands each batch to
+ * {@link JavaMailSender#send(MimeMessage...)}, which delivers the whole batch over one SMTP
+ * connection. Failed messages are retried and then moved to the {@code mail_dead_letters} store.
+ * <p>
+ * The queue is not durable: {@link #enqueue} returning true only means the mail is queued, and
+ * whatever is still queued when the process dies is lost. A graceful shutdown drains the queue.
+ */
+@Slf4j
+@Service
+public class NotificationService {
+    
+    public enum Template {
+        ORDER_PLACED("order-placed"),
+        ORDER_CONFIRMED("order-confirmed"),
+        ORDER_OUT_FOR_DELIVERY("order-out-for-delivery"),
+        ORDER_DELIVERED("order-delivered"),
+        ORDER_CANCELLED("order-cancelled");
+        
+        private final String resource;
+        
+        Template(String resource) {
+            this.resource = resource;
+        }
+    }
+    
+    private record Notification(String coalesceKey, String recipient, String subject, String body, int attempts) {
+    }
+    
+    public record Stats(long enqueued, long coalesced, long rejected, long sent, long retried,
+                        long deadLettered, long batches, int pending) {
+    }
+    
+    private final JavaMailSender mailSender;
+    private final MailDeadLetterRepository deadLetterRepository;
+    private final Map<Template, MailTemplate> templates = new ConcurrentHashMap<>();
+    
+    // Insertion-ordered; replacing a key keeps its place in line
+    private final LinkedHashMap<String, Notification> pending = new LinkedHashMap<>();
+    private volatile boolean running;
+    private Thread sender;
+    
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    
+    @Value("${spring.mail.username:}")
+    private String from;
+    
+    @Value("${notifications.mail.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${notifications.mail.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${notifications.mail.linger-ms:500}")
+    private long lingerMs;
+    
+    @Value("${notifications.mail.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${notifications.mail.retry-delay-ms:5000}")
+    private long retryDelayMs;
+    
+    public NotificationService(JavaMailSender mailSender, MailDeadLetterRepository deadLetterRepository) {
+        this.mailSender = mailSender;
+        this.deadLetterRepository = deadLetterRepository;
+    }
+    
+    @PostConstruct
+    public void start() {
+        for (Template template : Template.values()) {
+            templates.put(template, loadTemplate(template));
+        }
+        running = true;
+        sender = new Thread(this::sendLoop, "mail-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        synchronized (pending) {
+            pending.notifyAll();
+        }
+        sender.join(10000);
+    }
+    
+    /**
+     * Queues a templated email. Returns false when the queue is full so the caller can retry later.
+     */
+    public boolean enqueue(String coalesceKey, String recipient, Template template, Map<String, String> variables) {
+        MailTemplate compiled = templates.get(template);
+        return offer(new Notification(recipient + "|" + coalesceKey, recipient,
+                compiled.renderSubject(variables), compiled.renderBody(variables), 0), true);
+    }
+    
+    public MailDeadLetter retryDeadLetter(String deadLetterId) {
+        MailDeadLetter deadLetter = deadLetterRepository.findById(deadLetterId)
+                .orElseThrow(() -> new RuntimeException("Dead letter not found"));
+        if (!offer(new Notification(deadLetter.getCoalesceKey(), deadLetter.getRecipient(),
+                deadLetter.getSubject(), deadLetter.getBody(), 0), true)) {
+            throw new RuntimeException("Mail queue is full");
+        }
+        deadLetterRepository.delete(deadLetter);
+        return deadLetter;
+    }
+    
+    public List<MailDeadLetter> getDeadLetters() {
+        return deadLetterRepository.findAll();
+    }
+    
+    public Stats getStats() {
+        int size;
+        synchronized (pending) {
+            size = pending.size();
+        }
+        return new Stats(enqueued.get(), coalesced.get(), rejected.get(), sent.get(), retried.get(),
+                deadLettered.get(), batches.get(), size);
+    }
+    
+    private boolean offer(Notification notification, boolean replace) {
+        synchronized (pending) {
+            if (pending.containsKey(notification.coalesceKey())) {
+                if (replace) {
+                    pending.put(notification.coalesceKey(), notification);
+                    coalesced.incrementAndGet();
+                }
+                // A retry never overrides a newer notification for the same key
+                return true;
+            }
+            if (pending.size() >= queueCapacity) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            pending.put(notification.coalesceKey(), notification);
+            if (replace) {
+                enqueued.incrementAndGet();
+            }
+            if (pending.size() >= batchSize) {
+                pending.notifyAll();
+            }
+            return true;
+        }
+    }
+    
+    private void sendLoop() {
+        while (running || hasPending()) {
+            List<Notification> batch = takeBatch();
+            if (batch.isEmpty()) {
+                continue;
+            }
+            if (!sendBatch(batch) && running) {
+                try {
+                    Thread.sleep(retryDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    private boolean hasPending() {
+        synchronized (pending) {
+            return !pending.isEmpty();
+        }
+    }
+    
+    private List<Notification> takeBatch() {
+        synchronized (pending) {
+            // Linger briefly so notifications arriving together share one connection
+            if (running && pending.size() < batchSize) {
+                try {
+                    pending.wait(lingerMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+            List<Notification> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<Notification> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        }
+    }
+    
+    /** Returns false if any message in the batch failed. */
+    private boolean sendBatch(List<Notification> batch) {
+        Map<MimeMessage, Notification> messages = new IdentityHashMap<>();
+        for (Notification notification : batch) {
+            try {
+                messages.put(toMimeMessage(notification), notification);
+            } catch (MessagingException e) {
+                deadLetter(notification, e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return true;
+        }
+        
+        batches.incrementAndGet();
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            sent.addAndGet(messages.size());
+            return true;
+        } catch (MailSendException e) {
+            Map<Object, Exception> failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                messages.values().forEach(notification -> retryOrDeadLetter(notification, e.getMessage()));
+            } else {
+                sent.addAndGet(messages.size() - failures.size());
+                failures.forEach((message, failure) -> {
+                    Notification notification = messages.get(message);
+                    if (notification != null) {
+                        retryOrDeadLetter(notification, failure.getMessage());
+                    }
+                });
+            }
+        } catch (MailException e) {
+            // Authentication or connection problem: nothing in the batch went out
+            messages.values().forEach(notification -> retryOrDeadLetter(notification, e.getMessage()));
+        }
+        return false;
+    }
+    
+    private MimeMessage toMimeMessage(Notification notification) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+        if (from != null && !from.isBlank()) {
+            helper.setFrom(from);
+        }
+        helper.setTo(notification.recipient());
+        helper.setSubject(notification.subject());
+        helper.setText(notification.body());
+        return message;
+    }
+    
+    private void retryOrDeadLetter(Notification notification, String error) {
+        int attempts = notification.attempts() + 1;
+        if (attempts >= maxAttempts || !offer(new Notification(notification.coalesceKey(), notification.recipient(),
+                notification.subject(), notification.body(), attempts), false)) {
+            deadLetter(notification, error);
+        } else {
+            retried.incrementAndGet();
+        }
+    }
+    
+    private void deadLetter(Notification notification, String error) {
+        log.warn("Moving email to {} to the dead-letter store: {}", notification.recipient(), error);
+        try {
+            deadLetterRepository.save(new MailDeadLetter(null, notification.recipient(), notification.coalesceKey(),
+                    notification.subject(), notification.body(), notification.attempts() + 1, error, LocalDateTime.now()));
+            deadLettered.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.error("Failed to store dead letter for {}: {}", notification.recipient(), e.getMessage());
+        }
+    }
+    
+    private static MailTemplate loadTemplate(Template template) {
+        try (InputStream in = new ClassPathResource("mail/" + template.resource + ".txt").getInputStream()) {
+            return MailTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Missing mail template " + template.resource, e);
+        }
+    }
+}
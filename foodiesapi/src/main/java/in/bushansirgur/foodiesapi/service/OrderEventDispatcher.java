@@ -0,0 +1,201 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Drains pending outbox events in offset order and hands each to every sink that has not yet
+ * accepted it. Retry state is kept per sink: a sink that fails is retried with exponential
+ * backoff and holds back its own later events of the same order until it succeeds or is given up
+ * on, while the other sinks carry on. Events waiting out a backoff are not fetched until it
+ * expires. Only the node holding the outbox lease dispatches, so events are not delivered
+ * concurrently by several nodes; the lease is renewed before every batch.
+ */
+@Slf4j
+@Service
+public class OrderEventDispatcher {
+    
+    private static final String LEASE_COLLECTION = "outbox_leases";
+    private static final String LEASE_ID = "order_events";
+    private static final int MAX_BATCHES_PER_RUN = 10;
+    
+    private final MongoTemplate mongoTemplate;
+    private final List<OrderEventSink> sinks;
+    private final String ownerId = UUID.randomUUID().toString();
+    
+    @Value("${outbox.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${outbox.retry-base-ms:1000}")
+    private long retryBaseMs;
+    
+    @Value("${outbox.lease-ms:10000}")
+    private long leaseMs;
+    
+    public OrderEventDispatcher(MongoTemplate mongoTemplate, List<OrderEventSink> sinks) {
+        this.mongoTemplate = mongoTemplate;
+        this.sinks = sinks;
+    }
+    
+    @Scheduled(fixedDelayString = "${outbox.dispatch-interval-ms:200}")
+    public void dispatch() {
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            // Renewing per batch keeps the lease alive however long the run takes
+            if (!acquireLease() || dispatchBatch() < batchSize) {
+                break;
+            }
+        }
+    }
+    
+    /** Returns how many events were fetched and worked on. */
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("dispatchStatus").is(OrderEvent.DispatchStatus.PENDING)
+                        .orOperator(Criteria.where("nextAttemptAt").is(null), Criteria.where("nextAttemptAt").lte(now)))
+                .with(Sort.by(Sort.Direction.ASC, "offset"))
+                .limit(batchSize);
+        List<OrderEvent> events = mongoTemplate.find(query, OrderEvent.class);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        
+        // "orderId|sink" -> earliest event that sink still owes for that order; later ones wait behind it
+        Map<String, Block> blocked = backedOffSinks(events, now);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderEvent.class);
+        for (OrderEvent event : events) {
+            List<String> delivered = new ArrayList<>(event.getDeliveredSinks() != null ? event.getDeliveredSinks() : List.of());
+            List<String> failed = new ArrayList<>(event.getFailedSinks() != null ? event.getFailedSinks() : List.of());
+            Map<String, OrderEvent.SinkRetry> retries = new HashMap<>(event.getSinkRetries() != null ? event.getSinkRetries() : Map.of());
+            LocalDateTime heldUntil = null;
+            
+            for (OrderEventSink sink : sinks) {
+                String name = sink.name();
+                if (delivered.contains(name) || failed.contains(name)) {
+                    continue;
+                }
+                String blockKey = event.getOrderId() + "|" + name;
+                Block block = blocked.get(blockKey);
+                OrderEvent.SinkRetry retry = retries.get(name);
+                LocalDateTime waitUntil = block != null && block.offset() < event.getOffset() ? block.until()
+                        : retry != null && retry.getNextAttemptAt() != null && retry.getNextAttemptAt().isAfter(now) ? retry.getNextAttemptAt()
+                        : null;
+                if (waitUntil != null) {
+                    heldUntil = earliest(heldUntil, waitUntil);
+                    blocked.merge(blockKey, new Block(event.getOffset(), waitUntil), Block::earlier);
+                    continue;
+                }
+                try {
+                    sink.deliver(event);
+                    delivered.add(name);
+                    retries.remove(name);
+                } catch (Exception e) {
+                    int attempts = (retry != null ? retry.getAttempts() : 0) + 1;
+                    log.debug("Sink {} failed for order event {}: {}", name, event.getOffset(), e.getMessage());
+                    if (attempts >= maxAttempts) {
+                        log.warn("Giving up on order event {} for order {} in sink {} after {} attempts: {}",
+                                event.getOffset(), event.getOrderId(), name, attempts, e.getMessage());
+                        failed.add(name);
+                        retries.remove(name);
+                    } else {
+                        long delayMs = retryBaseMs << Math.min(attempts - 1, 10);
+                        LocalDateTime nextAttemptAt = now.plusNanos(delayMs * 1_000_000);
+                        retries.put(name, new OrderEvent.SinkRetry(attempts, nextAttemptAt, e.getMessage()));
+                        heldUntil = earliest(heldUntil, nextAttemptAt);
+                        blocked.merge(blockKey, new Block(event.getOffset(), nextAttemptAt), Block::earlier);
+                    }
+                }
+            }
+            
+            Update update = new Update()
+                    .set("deliveredSinks", delivered)
+                    .set("failedSinks", failed)
+                    .set("sinkRetries", retries);
+            if (heldUntil == null) {
+                update.set("dispatchStatus", failed.isEmpty() ? OrderEvent.DispatchStatus.DISPATCHED : OrderEvent.DispatchStatus.FAILED)
+                        .set("dispatchedAt", now)
+                        .unset("nextAttemptAt");
+            } else {
+                // Not fetched again until the earliest of its sinks may go
+                update.set("nextAttemptAt", heldUntil);
+                retries.values().stream()
+                        .max(Comparator.comparingInt(OrderEvent.SinkRetry::getAttempts))
+                        .ifPresent(worst -> update.set("attempts", worst.getAttempts()).set("lastError", worst.getLastError()));
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(event.getId())), update);
+        }
+        bulk.execute();
+        return events.size();
+    }
+    
+    private record Block(long offset, LocalDateTime until) {
+        
+        Block earlier(Block other) {
+            return offset <= other.offset ? this : other;
+        }
+    }
+    
+    private static LocalDateTime earliest(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+    
+    /**
+     * Sinks that still owe an earlier, backed-off (and so unfetched) event of the batch's orders.
+     */
+    private Map<String, Block> backedOffSinks(List<OrderEvent> events, LocalDateTime now) {
+        Query query = Query.query(Criteria.where("dispatchStatus").is(OrderEvent.DispatchStatus.PENDING)
+                .and("orderId").in(events.stream().map(OrderEvent::getOrderId).distinct().toList())
+                .and("nextAttemptAt").gt(now))
+                .with(Sort.by(Sort.Direction.ASC, "offset"));
+        query.fields().include("orderId", "offset", "deliveredSinks", "failedSinks", "nextAttemptAt");
+        Map<String, Block> blocked = new HashMap<>();
+        for (OrderEvent waiting : mongoTemplate.find(query, OrderEvent.class)) {
+            for (OrderEventSink sink : sinks) {
+                String name = sink.name();
+                boolean owed = (waiting.getDeliveredSinks() == null || !waiting.getDeliveredSinks().contains(name))
+                        && (waiting.getFailedSinks() == null || !waiting.getFailedSinks().contains(name));
+                if (owed) {
+                    blocked.merge(waiting.getOrderId() + "|" + name, new Block(waiting.getOffset(), waiting.getNextAttemptAt()), Block::earlier);
+                }
+            }
+        }
+        return blocked;
+    }
+    
+    private boolean acquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("_id").is(LEASE_ID),
+                new Criteria().orOperator(Criteria.where("owner").is(ownerId), Criteria.where("expiresAt").lt(now))));
+        Update update = new Update().set("owner", ownerId).set("expiresAt", now.plusNanos(leaseMs * 1_000_000));
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, LEASE_COLLECTION) != null;
+        } catch (DuplicateKeyException e) {
+            // Another node holds a live lease
+            return false;
+        }
+    }
+}
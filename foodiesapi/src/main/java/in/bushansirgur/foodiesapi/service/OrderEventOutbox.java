@@ -0,0 +1,130 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.dto.CursorPage;
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import in.bushansirgur.foodiesapi.util.DuplicateKeys;
+import in.bushansirgur.foodiesapi.util.OrderNumberGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Writes order changes together with their {@code order_events} entry. With
+ * {@code outbox.transactions.enabled=true} a {@link MongoTransactionManager} (replica set) commits both
+ * writes atomically; by default the event is appended straight after the change. An offset that collides with an
+ * existing event (e.g. two nodes briefly sharing a node id) is retried with a fresh one.
+ */
+@Slf4j
+@Service
+public class OrderEventOutbox {
+    
+    private static final int MAX_OFFSET_ATTEMPTS = 3;
+    
+    private final MongoTemplate mongoTemplate;
+    private final OrderNumberGenerator idGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<OrderEventSink> sinks;
+    
+    public OrderEventOutbox(MongoTemplate mongoTemplate,
+                            OrderNumberGenerator idGenerator,
+                            ObjectProvider<MongoTransactionManager> transactionManager,
+                            ObjectProvider<OrderEventSink> sinks) {
+        this.mongoTemplate = mongoTemplate;
+        this.idGenerator = idGenerator;
+        this.sinks = sinks;
+        MongoTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactionTemplate = manager != null ? new TransactionTemplate(manager) : null;
+        if (manager == null) {
+            log.warn("Outbox transactions are disabled; a crash between an order write and its event loses the event");
+        }
+    }
+    
+    /**
+     * Applies {@code change} and appends the event derived from its result.
+     */
+    public <T> T recordWith(Supplier<T> change, Function<T, OrderEvent> toEvent) {
+        if (transactionTemplate == null) {
+            T result = change.get();
+            append(toEvent.apply(result));
+            return result;
+        }
+        // A write error aborts a MongoDB transaction, so an offset collision retries the whole unit
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    T result = change.get();
+                    append(toEvent.apply(result));
+                    return result;
+                });
+            } catch (DuplicateKeyException e) {
+                if (!DuplicateKeys.violates(e, "offset") || attempt >= MAX_OFFSET_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    public OrderEvent append(OrderEvent event) {
+        for (int attempt = 1; ; attempt++) {
+            event.setOffset(idGenerator.nextId());
+            try {
+                return mongoTemplate.insert(event);
+            } catch (DuplicateKeyException e) {
+                if (!DuplicateKeys.violates(e, "offset") || attempt >= MAX_OFFSET_ATTEMPTS
+                        || TransactionSynchronizationManager.isActualTransactionActive()) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    public CursorPage<OrderEvent> eventsAfter(long afterOffset, int limit) {
+        Query query = Query.query(Criteria.where("offset").gt(afterOffset))
+                .with(Sort.by(Sort.Direction.ASC, "offset"))
+                .limit(limit);
+        List<OrderEvent> events = mongoTemplate.find(query, OrderEvent.class);
+        String nextCursor = events.size() == limit ? String.valueOf(events.get(events.size() - 1).getOffset()) : null;
+        return new CursorPage<>(events, nextCursor);
+    }
+    
+    public long countByStatus(OrderEvent.DispatchStatus status) {
+        return mongoTemplate.count(Query.query(Criteria.where("dispatchStatus").is(status)), OrderEvent.class);
+    }
+    
+    /**
+     * Marks every event from {@code fromOffset} on as pending again for {@code sink}, or for every
+     * sink that is replayed by default when none is named, so the dispatcher redelivers them in
+     * order. Returns the number of events reset.
+     */
+    public long replayFrom(long fromOffset, String sink) {
+        List<String> replayed = sink != null && !sink.isBlank()
+                ? List.of(sink)
+                : sinks.orderedStream().filter(OrderEventSink::replayedByDefault).map(OrderEventSink::name).toList();
+        if (replayed.isEmpty()) {
+            return 0;
+        }
+        Update update = new Update()
+                .set("dispatchStatus", OrderEvent.DispatchStatus.PENDING)
+                .set("attempts", 0)
+                .unset("nextAttemptAt")
+                .unset("lastError")
+                .pullAll("deliveredSinks", replayed.toArray())
+                .pullAll("failedSinks", replayed.toArray());
+        replayed.forEach(name -> update.unset("sinkRetries." + name));
+        return mongoTemplate.updateMulti(Query.query(Criteria.where("offset").gte(fromOffset)), update, OrderEvent.class)
+                .getModifiedCount();
+    }
+}
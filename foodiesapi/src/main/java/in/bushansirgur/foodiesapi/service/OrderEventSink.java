@@ -0,0 +1,23 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+
+/**
+ * Destination for outbox events. Delivery is at-least-once and in offset order per order, so
+ * implementations should tolerate seeing an event again after a retry or replay.
+ */
+public interface OrderEventSink {
+    
+    /** Stable name recorded on each event once this sink has accepted it. */
+    String name();
+    
+    /**
+     * Whether a replay that names no sink redelivers to this one. Sinks whose effects reach
+     * people (e.g. email) opt out and are only replayed when named explicitly.
+     */
+    default boolean replayedByDefault() {
+        return true;
+    }
+    
+    void deliver(OrderEvent event) throws Exception;
+}
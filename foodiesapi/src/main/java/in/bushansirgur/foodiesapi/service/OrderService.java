@@ -1,30 +1,64 @@
 package in.bushansirgur.foodiesapi.service;
 
-import in.bushansirgur.foodiesapi.controller.WebSocketController;
+import in.bushansirgur.foodiesapi.dto.CursorPage;
+import in.bushansirgur.foodiesapi.dto.DeliveryPosition;
+import in.bushansirgur.foodiesapi.dto.OrderSummary;
 import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.OrderEvent;
 import in.bushansirgur.foodiesapi.model.Payment;
 import in.bushansirgur.foodiesapi.repository.OrderRepository;
 import in.bushansirgur.foodiesapi.repository.UserRepository;
+import in.bushansirgur.foodiesapi.util.DuplicateKeys;
+import in.bushansirgur.foodiesapi.util.OrderNumberGenerator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
     
+    private static final int MAX_ORDER_NUMBER_ATTEMPTS = 3;
+    
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final PaymentService paymentService;
-    private final WebSocketController webSocketController;
+    private final OrderEventOutbox orderEventOutbox;
+    private final DeliveryLocationService deliveryLocationService;
+    private final OrderStateMachine orderStateMachine;
+    private final DispatchService dispatchService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final PricingService pricingService;
+    
+    @Value("${orders.page.default-size:20}")
+    private int defaultPageSize;
+    
+    @Value("${orders.page.max-size:100}")
+    private int maxPageSize;
     
-    public Order createOrder(Order order) {
-        // Generate order number
-        order.setOrderNumber("ORD" + System.currentTimeMillis());
+    public Order createOrder(Order order, String idempotencyKey) {
+        // A retried request with the same key returns the order created by the first attempt
+        String scopedKey = idempotencyKey != null && !idempotencyKey.isBlank()
+                ? order.getCustomerId() + ":" + idempotencyKey
+                : null;
+        if (scopedKey != null) {
+            Optional<Order> existing = orderRepository.findByIdempotencyKey(scopedKey);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+        }
+        
+        // Amounts sent by the client are never trusted
+        pricingService.applyTo(order);
+        
+        order.setIdempotencyKey(scopedKey);
         order.setStatus(Order.OrderStatus.PENDING);
         order.setPaymentStatus(Order.PaymentStatus.PENDING);
         order.setCreatedAt(LocalDateTime.now());
@@ -36,100 +70,98 @@ public class OrderService {
         tracking.setCurrentStatus("PENDING");
         order.setTracking(tracking);
         
-        Order savedOrder = orderRepository.save(order);
-        
-        // Send WebSocket notification
-        webSocketController.sendOrderUpdate(savedOrder.getId(), "PENDING", savedOrder);
-        
-        return savedOrder;
+        for (int attempt = 1; ; attempt++) {
+            order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+            try {
+                return orderEventOutbox.recordWith(() -> orderRepository.insert(order), OrderEvent::created);
+            } catch (DuplicateKeyException e) {
+                // Order numbers only collide if two nodes briefly share a node id; take a fresh one
+                if (DuplicateKeys.violates(e, "orderNumber") && attempt < MAX_ORDER_NUMBER_ATTEMPTS) {
+                    continue;
+                }
+                // Concurrent retry with the same key won the insert
+                if (scopedKey == null) {
+                    throw e;
+                }
+                return orderRepository.findByIdempotencyKey(scopedKey).orElseThrow(() -> e);
+            }
+        }
     }
     
     public Order updateOrderStatus(String orderId, Order.OrderStatus status) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        
-        order.setStatus(status);
-        order.setUpdatedAt(LocalDateTime.now());
-        
-        // Update tracking
-        Order.OrderTracking tracking = order.getTracking();
-        if (tracking != null) {
-            switch (status) {
-                case CONFIRMED:
-                    tracking.setOrderConfirmed(LocalDateTime.now());
-                    break;
-                case PREPARING:
-                    tracking.setOrderPrepared(LocalDateTime.now());
-                    break;
-                case READY_FOR_PICKUP:
-                    tracking.setOrderPrepared(LocalDateTime.now());
-                    break;
-                case PICKED_UP:
-                    tracking.setOrderPickedUp(LocalDateTime.now());
-                    break;
-                case DELIVERED:
-                    tracking.setOrderDelivered(LocalDateTime.now());
-                    break;
-            }
-            tracking.setCurrentStatus(status.name());
+        // WebSocket, email, analytics and delivery tracking are fed from the outbox event, off the request path
+        Order updatedOrder = orderEventOutbox.recordWith(
+                () -> orderStateMachine.transition(orderId, status),
+                order -> OrderEvent.statusChanged(order, OrderStateMachine.trackingField(status)));
+        
+        if ((status == Order.OrderStatus.DELIVERED || status == Order.OrderStatus.CANCELLED)
+                && updatedOrder.getDeliveryPartnerId() != null) {
+            dispatchService.release(updatedOrder.getDeliveryPartnerId());
         }
         
-        Order savedOrder = orderRepository.save(order);
-        
-        // Send WebSocket notification
-        webSocketController.sendOrderUpdate(orderId, status.name(), savedOrder);
-        
-        return savedOrder;
+        return updatedOrder;
     }
     
     public Order assignDeliveryPartner(String orderId, String deliveryPartnerId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        
-        // Check if delivery partner exists and is available
-        userRepository.findById(deliveryPartnerId)
-                .orElseThrow(() -> new RuntimeException("Delivery partner not found"));
-        
-        order.setDeliveryPartnerId(deliveryPartnerId);
-        order.setUpdatedAt(LocalDateTime.now());
-        
-        Order savedOrder = orderRepository.save(order);
-        
-        // Send WebSocket notification
-        webSocketController.sendOrderUpdate(orderId, "ASSIGNED", savedOrder);
+        // Same atomic claim as auto-dispatch: only an available delivery partner can be taken
+        if (deliveryPartnerId == null || !dispatchService.claim(deliveryPartnerId)) {
+            throw new RuntimeException("Delivery partner is not available");
+        }
         
-        return savedOrder;
+        try {
+            return orderEventOutbox.recordWith(
+                    () -> orderStateMachine.assignDeliveryPartner(orderId, deliveryPartnerId),
+                    OrderEvent::deliveryPartnerAssigned);
+        } catch (RuntimeException e) {
+            dispatchService.release(deliveryPartnerId);
+            throw e;
+        }
     }
     
-    public Order updateDeliveryLocation(String orderId, Double latitude, Double longitude) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        
-        Order.OrderTracking tracking = order.getTracking();
-        if (tracking != null) {
-            tracking.setCurrentLatitude(latitude);
-            tracking.setCurrentLongitude(longitude);
+    public Order autoAssignDeliveryPartner(String orderId) {
+        Order order = getOrderById(orderId);
+        return orderEventOutbox.recordWith(() -> dispatchService.autoAssign(order), OrderEvent::deliveryPartnerAssigned);
+    }
+    
+    public DeliveryPosition updateDeliveryLocation(String orderId, String callerId, boolean admin, Double latitude, Double longitude) {
+        // Coalesced in memory; persisted and pushed to WebSocket on the ingest service's ticks
+        return deliveryLocationService.ingest(orderId, callerId, admin, latitude, longitude);
+    }
+    
+    public DeliveryPosition getDeliveryLocation(String orderId) {
+        DeliveryPosition position = deliveryLocationService.getLatestPosition(orderId);
+        if (position != null) {
+            return position;
         }
         
-        order.setUpdatedAt(LocalDateTime.now());
-        Order savedOrder = orderRepository.save(order);
-        
-        // Send WebSocket notification
-        webSocketController.sendDeliveryUpdate(orderId, latitude, longitude);
-        
-        return savedOrder;
+        Order.OrderTracking tracking = getOrderById(orderId).getTracking();
+        if (tracking == null || tracking.getCurrentLatitude() == null || tracking.getCurrentLongitude() == null) {
+            throw new RuntimeException("No delivery location for order");
+        }
+        return new DeliveryPosition(orderId, null, tracking.getCurrentLatitude(), tracking.getCurrentLongitude(), 0L);
     }
     
-    public List<Order> getOrdersByCustomer(String customerId) {
-        return orderRepository.findByCustomerId(customerId);
+    public CursorPage<OrderSummary> getOrdersByCustomer(String customerId, String cursor, Integer limit) {
+        return orderRepository.findSummariesByCustomerId(customerId, cursor, pageSize(limit));
     }
     
-    public List<Order> getOrdersByRestaurant(String restaurantId) {
-        return orderRepository.findByRestaurantId(restaurantId);
+    public CursorPage<OrderSummary> getOrdersByRestaurant(String restaurantId, String cursor, Integer limit) {
+        return orderRepository.findSummariesByRestaurantId(restaurantId, cursor, pageSize(limit));
     }
     
-    public List<Order> getOrdersByDeliveryPartner(String deliveryPartnerId) {
-        return orderRepository.findByDeliveryPartnerId(deliveryPartnerId);
+    public CursorPage<OrderSummary> getOrdersByDeliveryPartner(String deliveryPartnerId, String cursor, Integer limit) {
+        return orderRepository.findSummariesByDeliveryPartnerId(deliveryPartnerId, cursor, pageSize(limit));
+    }
+    
+    public CursorPage<OrderSummary> getOrdersCreatedBetween(LocalDateTime startDate, LocalDateTime endDate, String cursor, Integer limit) {
+        return orderRepository.findSummariesByCreatedAtBetween(startDate, endDate, cursor, pageSize(limit));
+    }
+    
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
     }
     
     public Order getOrderById(String orderId) {
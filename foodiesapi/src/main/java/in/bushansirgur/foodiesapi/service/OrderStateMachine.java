@@ -0,0 +1,109 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.Order.OrderStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies order status transitions as a single guarded {@code findAndModify}. The query only
+ * matches when the order is in a valid source state, so concurrent transitions cannot overwrite
+ * each other, and only the changed fields are written. The full updated order is returned.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderStateMachine {
+    
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED_SOURCES = new EnumMap<>(OrderStatus.class);
+    private static final Map<OrderStatus, String> TRACKING_TIMESTAMPS = new EnumMap<>(OrderStatus.class);
+    private static final Set<OrderStatus> TERMINAL = EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED, OrderStatus.REFUNDED);
+    
+    static {
+        ALLOWED_SOURCES.put(OrderStatus.PENDING, EnumSet.noneOf(OrderStatus.class));
+        ALLOWED_SOURCES.put(OrderStatus.CONFIRMED, EnumSet.of(OrderStatus.PENDING));
+        ALLOWED_SOURCES.put(OrderStatus.PREPARING, EnumSet.of(OrderStatus.CONFIRMED));
+        ALLOWED_SOURCES.put(OrderStatus.READY_FOR_PICKUP, EnumSet.of(OrderStatus.PREPARING));
+        ALLOWED_SOURCES.put(OrderStatus.PICKED_UP, EnumSet.of(OrderStatus.READY_FOR_PICKUP));
+        ALLOWED_SOURCES.put(OrderStatus.OUT_FOR_DELIVERY, EnumSet.of(OrderStatus.PICKED_UP));
+        ALLOWED_SOURCES.put(OrderStatus.DELIVERED, EnumSet.of(OrderStatus.PICKED_UP, OrderStatus.OUT_FOR_DELIVERY));
+        ALLOWED_SOURCES.put(OrderStatus.CANCELLED, EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING));
+        ALLOWED_SOURCES.put(OrderStatus.REFUNDED, EnumSet.of(OrderStatus.CANCELLED, OrderStatus.DELIVERED));
+        
+        TRACKING_TIMESTAMPS.put(OrderStatus.CONFIRMED, "tracking.orderConfirmed");
+        TRACKING_TIMESTAMPS.put(OrderStatus.READY_FOR_PICKUP, "tracking.orderPrepared");
+        TRACKING_TIMESTAMPS.put(OrderStatus.PICKED_UP, "tracking.orderPickedUp");
+        TRACKING_TIMESTAMPS.put(OrderStatus.DELIVERED, "tracking.orderDelivered");
+    }
+    
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    public static boolean isTerminal(OrderStatus status) {
+        return TERMINAL.contains(status);
+    }
+    
+    /** Tracking timestamp field stamped when an order enters {@code status}, or null. */
+    public static String trackingField(OrderStatus status) {
+        return TRACKING_TIMESTAMPS.get(status);
+    }
+    
+    public Order transition(String orderId, OrderStatus target) {
+        Set<OrderStatus> sources = ALLOWED_SOURCES.getOrDefault(target, EnumSet.noneOf(OrderStatus.class));
+        if (sources.isEmpty()) {
+            throw new RuntimeException("Orders cannot be moved to " + target);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("status", target)
+                .set("updatedAt", now)
+                .set("tracking.currentStatus", target.name());
+        String trackingField = TRACKING_TIMESTAMPS.get(target);
+        if (trackingField != null) {
+            update.set(trackingField, now);
+        }
+        
+        Query query = Query.query(Criteria.where("_id").is(orderId).and("status").in(sources));
+        Order updated = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (updated == null) {
+            meterRegistry.counter("orders.transitions", "to", target.name(), "outcome", "rejected").increment();
+            throw rejection(orderId, "Order cannot move to " + target + " from its current status");
+        }
+        meterRegistry.counter("orders.transitions", "to", target.name(), "outcome", "applied").increment();
+        return updated;
+    }
+    
+    public Order assignDeliveryPartner(String orderId, String deliveryPartnerId) {
+        Query query = Query.query(Criteria.where("_id").is(orderId)
+                .and("deliveryPartnerId").is(null)
+                .and("status").nin(TERMINAL));
+        Update update = new Update()
+                .set("deliveryPartnerId", deliveryPartnerId)
+                .set("updatedAt", LocalDateTime.now());
+        
+        Order updated = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (updated == null) {
+            throw rejection(orderId, "Order already has a delivery partner or is closed");
+        }
+        return updated;
+    }
+    
+    private RuntimeException rejection(String orderId, String message) {
+        if (!mongoTemplate.exists(Query.query(Criteria.where("_id").is(orderId)), Order.class)) {
+            return new RuntimeException("Order not found");
+        }
+        return new RuntimeException(message);
+    }
+}
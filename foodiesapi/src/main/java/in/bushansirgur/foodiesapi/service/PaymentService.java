@@ -1,74 +1,78 @@
 package in.bushansirgur.foodiesapi.service;
 
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
-import com.razorpay.RazorpayException;
+import in.bushansirgur.foodiesapi.dto.PaymentVerificationResult;
+import in.bushansirgur.foodiesapi.model.Order;
 import in.bushansirgur.foodiesapi.model.Payment;
+import in.bushansirgur.foodiesapi.repository.OrderRepository;
 import in.bushansirgur.foodiesapi.repository.PaymentRepository;
+import in.bushansirgur.foodiesapi.security.CurrentUser;
+import in.bushansirgur.foodiesapi.security.PaymentSignatureVerifier;
 import lombok.RequiredArgsConstructor;
-import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
     
     private final PaymentRepository paymentRepository;
+    private final OrderRepository orderRepository;
+    private final RazorpayGateway razorpayGateway;
+    private final PaymentSignatureVerifier signatureVerifier;
+    private final MongoTemplate mongoTemplate;
+    private final RollupService rollupService;
     
-    @Value("${razorpay.key.id}")
-    private String razorpayKeyId;
-    
-    @Value("${razorpay.key.secret}")
-    private String razorpayKeySecret;
-    
-    public Payment createRazorpayOrder(String orderId, String customerId, BigDecimal amount) {
-        try {
-            RazorpayClient razorpay = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-            
-            JSONObject orderRequest = new JSONObject();
-            orderRequest.put("amount", amount.multiply(new BigDecimal("100")).intValue()); // Convert to paise
-            orderRequest.put("currency", "INR");
-            orderRequest.put("receipt", "order_" + orderId);
-            orderRequest.put("payment_capture", 1);
-            
-            Order razorpayOrder = razorpay.orders.create(orderRequest);
-            
-            Payment payment = new Payment();
-            payment.setId(UUID.randomUUID().toString());
-            payment.setOrderId(orderId);
-            payment.setCustomerId(customerId);
-            payment.setAmount(amount);
-            payment.setCurrency("INR");
-            payment.setMethod(Payment.PaymentMethod.RAZORPAY);
-            payment.setStatus(Payment.PaymentStatus.PENDING);
-            payment.setRazorpayOrderId(razorpayOrder.get("id"));
-            payment.setCreatedAt(LocalDateTime.now());
-            payment.setUpdatedAt(LocalDateTime.now());
-            
-            return paymentRepository.save(payment);
-            
-        } catch (RazorpayException e) {
-            throw new RuntimeException("Failed to create Razorpay order: " + e.getMessage());
+    /**
+     * Charges the server-priced total of the caller's order; client-supplied amounts are never used.
+     */
+    public CompletableFuture<Payment> createRazorpayOrder(String orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        CurrentUser.requireSelfOrAdmin(order.getCustomerId());
+        BigDecimal amount = order.getTotalAmount();
+        if (amount == null || amount.signum() <= 0) {
+            throw new RuntimeException("Order has no payable amount");
         }
+        String customerId = order.getCustomerId();
+        long amountInPaise = amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        
+        // Gateway call and save both run off the request thread
+        return razorpayGateway.createOrder(amountInPaise, "INR", "order_" + orderId)
+                .thenApplyAsync(razorpayOrderId -> {
+                    Payment payment = new Payment();
+                    payment.setId(UUID.randomUUID().toString());
+                    payment.setOrderId(orderId);
+                    payment.setCustomerId(customerId);
+                    payment.setAmount(amount);
+                    payment.setCurrency("INR");
+                    payment.setMethod(Payment.PaymentMethod.RAZORPAY);
+                    payment.setStatus(Payment.PaymentStatus.PENDING);
+                    payment.setRazorpayOrderId(razorpayOrderId);
+                    payment.setCreatedAt(LocalDateTime.now());
+                    payment.setUpdatedAt(LocalDateTime.now());
+                    
+                    return paymentRepository.save(payment);
+                }, razorpayGateway.executor());
     }
     
     public Payment verifyPayment(String razorpayOrderId, String razorpayPaymentId, String razorpaySignature) {
         try {
-            RazorpayClient razorpay = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
-            
-            // Verify the payment signature
-            JSONObject attributes = new JSONObject();
-            attributes.put("razorpay_order_id", razorpayOrderId);
-            attributes.put("razorpay_payment_id", razorpayPaymentId);
-            attributes.put("razorpay_signature", razorpaySignature);
-            
-            // In a real implementation, you would verify the signature here
-            // For now, we'll assume the payment is successful
+            if (!signatureVerifier.verify(razorpayOrderId, razorpayPaymentId, razorpaySignature)) {
+                throw new RuntimeException("Invalid payment signature");
+            }
             
             Payment payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId)
                     .orElseThrow(() -> new RuntimeException("Payment not found"));
@@ -78,14 +82,59 @@ public class PaymentService {
             payment.setStatus(Payment.PaymentStatus.COMPLETED);
             payment.setPaidAt(LocalDateTime.now());
             payment.setUpdatedAt(LocalDateTime.now());
+            payment.setRollupPending(true);
             
-            return paymentRepository.save(payment);
+            Payment savedPayment = paymentRepository.save(payment);
+            rollupService.recordPayment(savedPayment);
+            return savedPayment;
             
         } catch (Exception e) {
             throw new RuntimeException("Failed to verify payment: " + e.getMessage());
         }
     }
     
+    /**
+     * Verifies many (orderId, paymentId, signature) tuples locally and marks every valid one
+     * COMPLETED in a single unordered bulk write.
+     */
+    public PaymentVerificationResult verifyPayments(List<Map<String, String>> requests) {
+        List<String> invalidOrderIds = new ArrayList<>();
+        List<String> verifiedOrderIds = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class);
+        int verified = 0;
+        
+        for (Map<String, String> request : requests) {
+            String razorpayOrderId = request.get("razorpayOrderId");
+            String razorpayPaymentId = request.get("razorpayPaymentId");
+            String razorpaySignature = request.get("razorpaySignature");
+            if (!signatureVerifier.verify(razorpayOrderId, razorpayPaymentId, razorpaySignature)) {
+                invalidOrderIds.add(razorpayOrderId);
+                continue;
+            }
+            
+            verified++;
+            verifiedOrderIds.add(razorpayOrderId);
+            bulk.updateOne(
+                    Query.query(Criteria.where("razorpayOrderId").is(razorpayOrderId)
+                            .and("status").ne(Payment.PaymentStatus.COMPLETED)),
+                    new Update()
+                            .set("razorpayPaymentId", razorpayPaymentId)
+                            .set("razorpaySignature", razorpaySignature)
+                            .set("status", Payment.PaymentStatus.COMPLETED)
+                            .set("paidAt", now)
+                            .set("updatedAt", now)
+                            .set("rollupPending", true)
+            );
+        }
+        
+        long updated = verified > 0 ? bulk.execute().getModifiedCount() : 0;
+        if (updated > 0) {
+            rollupService.recordCompletedPayments(verifiedOrderIds);
+        }
+        return new PaymentVerificationResult(requests.size(), verified, updated, invalidOrderIds);
+    }
+    
     public Payment getPaymentById(String paymentId) {
         return paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
@@ -0,0 +1,242 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.dto.PriceQuote;
+import in.bushansirgur.foodiesapi.model.Address;
+import in.bushansirgur.foodiesapi.model.MenuItem;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.User;
+import in.bushansirgur.foodiesapi.repository.MenuItemRepository;
+import in.bushansirgur.foodiesapi.repository.UserRepository;
+import in.bushansirgur.foodiesapi.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Prices carts on the server from an in-memory table of menu and variant prices, so orders never
+ * trust client-supplied amounts. The table is loaded at startup, kept current by menu writes on
+ * this node and refreshed per item after {@code pricing.table.ttl-ms} to pick up writes made on
+ * other nodes. Money is BigDecimal throughout and rounded HALF_UP to paise once per amount.
+ * <p>
+ * The delivery fee and radius need both ends of the trip, so a cart is rejected unless the
+ * delivery address and the restaurant both have coordinates.
+ */
+@Slf4j
+@Service
+public class PricingService {
+    
+    private static final int MONEY_SCALE = 2;
+    private static final int MAX_QUANTITY = 50;
+    
+    private final MongoTemplate mongoTemplate;
+    private final MenuItemRepository menuItemRepository;
+    private final UserRepository userRepository;
+    
+    private final Map<String, PriceEntry> prices = new ConcurrentHashMap<>();
+    private final Map<String, RestaurantLocation> restaurantLocations = new ConcurrentHashMap<>();
+    
+    @Value("${pricing.table.ttl-ms:300000}")
+    private long ttlMs;
+    
+    @Value("${pricing.tax-rate:0.18}")
+    private BigDecimal taxRate;
+    
+    @Value("${pricing.delivery.base-fee:40}")
+    private BigDecimal baseDeliveryFee;
+    
+    @Value("${pricing.delivery.included-km:3}")
+    private double includedKm;
+    
+    @Value("${pricing.delivery.per-km-fee:8}")
+    private BigDecimal perKmFee;
+    
+    @Value("${pricing.delivery.max-km:15}")
+    private double maxDeliveryKm;
+    
+    @Value("${pricing.delivery.free-above:500}")
+    private BigDecimal freeDeliveryAbove;
+    
+    public PricingService(MongoTemplate mongoTemplate, MenuItemRepository menuItemRepository, UserRepository userRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.menuItemRepository = menuItemRepository;
+        this.userRepository = userRepository;
+    }
+    
+    private record PriceEntry(String restaurantId, String name, BigDecimal price, boolean available,
+                              Map<String, BigDecimal> variantPrices, long loadedAt) {
+    }
+    
+    private record RestaurantLocation(Double latitude, Double longitude, long loadedAt) {
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPriceTable() {
+        long start = System.currentTimeMillis();
+        Query query = new Query();
+        query.fields().include("restaurantId", "name", "price", "isAvailable", "variants");
+        try (Stream<MenuItem> items = mongoTemplate.stream(query, MenuItem.class)) {
+            items.forEach(this::updateMenuItem);
+        }
+        log.info("Loaded {} menu prices in {} ms", prices.size(), System.currentTimeMillis() - start);
+    }
+    
+    public void updateMenuItem(MenuItem item) {
+        prices.put(item.getId(), toEntry(item));
+    }
+    
+    public void removeMenuItem(String menuItemId) {
+        prices.remove(menuItemId);
+    }
+    
+    public PriceQuote quote(String restaurantId, List<Order.OrderItem> items, Address deliveryAddress) {
+        if (restaurantId == null) {
+            throw new RuntimeException("Restaurant is required");
+        }
+        if (items == null || items.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        
+        List<PriceQuote.Line> lines = new ArrayList<>(items.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (Order.OrderItem item : items) {
+            int quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+            if (quantity < 1 || quantity > MAX_QUANTITY) {
+                throw new RuntimeException("Quantity must be between 1 and " + MAX_QUANTITY);
+            }
+            PriceEntry entry = priceEntry(item.getMenuItemId());
+            if (entry == null || !restaurantId.equals(entry.restaurantId())) {
+                throw new RuntimeException("Menu item " + item.getMenuItemId() + " is not on this restaurant's menu");
+            }
+            if (!entry.available()) {
+                throw new RuntimeException(entry.name() + " is currently unavailable");
+            }
+            BigDecimal unitPrice = entry.price();
+            String variant = item.getVariant();
+            if (variant != null && !variant.isBlank()) {
+                unitPrice = entry.variantPrices().get(variant);
+                if (unitPrice == null) {
+                    throw new RuntimeException("Variant " + variant + " is not available for " + entry.name());
+                }
+            }
+            BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+            subtotal = subtotal.add(lineTotal);
+            lines.add(new PriceQuote.Line(item.getMenuItemId(), entry.name(), variant, quantity,
+                    money(unitPrice), money(lineTotal)));
+        }
+        subtotal = money(subtotal);
+        
+        double distanceKm = deliveryDistanceKm(restaurantId, deliveryAddress);
+        BigDecimal deliveryFee = deliveryFee(subtotal, distanceKm);
+        BigDecimal taxAmount = money(subtotal.multiply(taxRate));
+        BigDecimal totalAmount = subtotal.add(deliveryFee).add(taxAmount);
+        return new PriceQuote(lines, subtotal, deliveryFee, taxAmount, totalAmount, distanceKm);
+    }
+    
+    /**
+     * Replaces every client-supplied amount on {@code order} with server-side prices.
+     */
+    public PriceQuote applyTo(Order order) {
+        PriceQuote quote = quote(order.getRestaurantId(), order.getItems(), order.getDeliveryAddress());
+        for (int i = 0; i < quote.lines().size(); i++) {
+            PriceQuote.Line line = quote.lines().get(i);
+            Order.OrderItem item = order.getItems().get(i);
+            item.setMenuItemName(line.menuItemName());
+            item.setUnitPrice(line.unitPrice());
+            item.setTotalPrice(line.totalPrice());
+        }
+        order.setSubtotal(quote.subtotal());
+        order.setDeliveryFee(quote.deliveryFee());
+        order.setTaxAmount(quote.taxAmount());
+        order.setTotalAmount(quote.totalAmount());
+        return quote;
+    }
+    
+    private BigDecimal deliveryFee(BigDecimal subtotal, double distanceKm) {
+        if (distanceKm > maxDeliveryKm) {
+            throw new RuntimeException("Delivery address is outside the " + maxDeliveryKm + " km delivery radius");
+        }
+        if (freeDeliveryAbove.signum() > 0 && subtotal.compareTo(freeDeliveryAbove) >= 0) {
+            return money(BigDecimal.ZERO);
+        }
+        BigDecimal fee = baseDeliveryFee;
+        if (distanceKm > includedKm) {
+            // Charged per started kilometre beyond the included distance
+            long extraKm = (long) Math.ceil(distanceKm - includedKm);
+            fee = fee.add(perKmFee.multiply(BigDecimal.valueOf(extraKm)));
+        }
+        return money(fee);
+    }
+    
+    private double deliveryDistanceKm(String restaurantId, Address deliveryAddress) {
+        if (deliveryAddress == null || deliveryAddress.getLatitude() == null || deliveryAddress.getLongitude() == null) {
+            throw new RuntimeException("Delivery address must have a location");
+        }
+        RestaurantLocation location = restaurantLocations.get(restaurantId);
+        if (location == null || isExpired(location.loadedAt())) {
+            location = userRepository.findById(restaurantId)
+                    .map(User::getRestaurantAddress)
+                    .map(address -> new RestaurantLocation(address.getLatitude(), address.getLongitude(), System.currentTimeMillis()))
+                    .orElse(new RestaurantLocation(null, null, System.currentTimeMillis()));
+            restaurantLocations.put(restaurantId, location);
+        }
+        if (location.latitude() == null || location.longitude() == null) {
+            throw new RuntimeException("Restaurant location is not set, so delivery cannot be priced");
+        }
+        double km = GeoUtils.distanceKm(location.latitude(), location.longitude(),
+                deliveryAddress.getLatitude(), deliveryAddress.getLongitude());
+        return Math.round(km * 100) / 100.0;
+    }
+    
+    private PriceEntry priceEntry(String menuItemId) {
+        if (menuItemId == null) {
+            return null;
+        }
+        PriceEntry entry = prices.get(menuItemId);
+        if (entry == null || isExpired(entry.loadedAt())) {
+            MenuItem item = menuItemRepository.findById(menuItemId).orElse(null);
+            if (item == null) {
+                prices.remove(menuItemId);
+                return null;
+            }
+            entry = toEntry(item);
+            prices.put(menuItemId, entry);
+        }
+        return entry;
+    }
+    
+    private boolean isExpired(long loadedAt) {
+        return System.currentTimeMillis() - loadedAt > ttlMs;
+    }
+    
+    private static PriceEntry toEntry(MenuItem item) {
+        Map<String, BigDecimal> variantPrices = new HashMap<>();
+        if (item.getVariants() != null) {
+            for (MenuItem.MenuItemVariant variant : item.getVariants()) {
+                if (variant.getName() != null && variant.getPrice() != null && !Boolean.FALSE.equals(variant.getIsAvailable())) {
+                    variantPrices.put(variant.getName(), variant.getPrice());
+                }
+            }
+        }
+        return new PriceEntry(item.getRestaurantId(), item.getName(),
+                item.getPrice() != null ? item.getPrice() : BigDecimal.ZERO,
+                Boolean.TRUE.equals(item.getIsAvailable()) && item.getPrice() != null,
+                Map.copyOf(variantPrices), System.currentTimeMillis());
+    }
+    
+    private static BigDecimal money(BigDecimal amount) {
+        return amount.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+}
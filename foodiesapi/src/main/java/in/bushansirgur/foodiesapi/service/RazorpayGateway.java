@@ -0,0 +1,212 @@
+package in.bushansirgur.foodiesapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single shared client for the Razorpay REST API. Requests are sent asynchronously over one
+ * pooled {@link HttpClient}, concurrency is capped by a bulkhead, and a circuit breaker fails
+ * fast while the gateway is unhealthy so slow calls cannot pile up. Once the open interval has
+ * passed the breaker goes half-open and admits a single probe: success closes it, failure re-opens
+ * it for another interval. The base URL is configurable
+ * so the client can be pointed at a local stub server. Every call is timed as
+ * {@code razorpay.requests}, tagged with its outcome, including calls refused by the breaker.
+ */
+@Slf4j
+@Component
+public class RazorpayGateway {
+    
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String authorization;
+    private final Duration requestTimeout;
+    private final Semaphore bulkhead;
+    private final int failureThreshold;
+    private final long openMillis;
+    
+    enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+    
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicReference<CircuitState> state = new AtomicReference<>(CircuitState.CLOSED);
+    private volatile long openedAt = -1;
+    
+    public RazorpayGateway(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${razorpay.key.id}") String keyId,
+                           @Value("${razorpay.key.secret}") String keySecret,
+                           @Value("${razorpay.api.base-url:https://api.razorpay.com/v1}") String baseUrl,
+                           @Value("${razorpay.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+                           @Value("${razorpay.http.request-timeout-ms:5000}") long requestTimeoutMs,
+                           @Value("${razorpay.bulkhead.max-concurrent:50}") int maxConcurrent,
+                           @Value("${razorpay.circuit.failure-threshold:5}") int failureThreshold,
+                           @Value("${razorpay.circuit.open-ms:30000}") long openMillis) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.baseUrl = baseUrl;
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((keyId + ":" + keySecret).getBytes(StandardCharsets.UTF_8));
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(executor)
+                .build();
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * Executor for work that continues after a gateway response (e.g. persisting the result),
+     * so it never lands back on a servlet thread.
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+    
+    /**
+     * Creates a Razorpay order and completes with its id.
+     */
+    public CompletableFuture<String> createOrder(long amountInPaise, String currency, String receipt) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("amount", amountInPaise);
+        body.put("currency", currency);
+        body.put("receipt", receipt);
+        body.put("payment_capture", 1);
+        return post("/orders", body).thenApply(response -> response.path("id").asText());
+    }
+    
+    private CompletableFuture<JsonNode> post(String path, Map<String, Object> body) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        if (!tryAcquirePermission()) {
+            record(sample, path, "circuit_open");
+            return CompletableFuture.failedFuture(new RuntimeException("Payment gateway unavailable, try again shortly"));
+        }
+        if (!bulkhead.tryAcquire()) {
+            abandonProbe();
+            record(sample, path, "busy");
+            return CompletableFuture.failedFuture(new RuntimeException("Payment gateway busy, try again shortly"));
+        }
+        
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(requestTimeout)
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (Exception e) {
+            bulkhead.release();
+            abandonProbe();
+            record(sample, path, "error");
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to build gateway request: " + e.getMessage()));
+        }
+        
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    bulkhead.release();
+                    if (error != null) {
+                        recordFailure();
+                        record(sample, path, "error");
+                        throw new RuntimeException("Payment gateway request failed: " + error.getMessage());
+                    }
+                    if (response.statusCode() >= 500) {
+                        recordFailure();
+                        record(sample, path, "server_error");
+                        throw new RuntimeException("Payment gateway error: HTTP " + response.statusCode());
+                    }
+                    // 4xx responses mean the gateway is healthy and rejected this request
+                    recordSuccess();
+                    record(sample, path, response.statusCode() >= 400 ? "client_error" : "success");
+                    JsonNode json = readJson(response.body());
+                    if (response.statusCode() >= 400) {
+                        throw new RuntimeException("Payment gateway rejected request: "
+                                + json.path("error").path("description").asText("HTTP " + response.statusCode()));
+                    }
+                    return json;
+                });
+    }
+    
+    private void record(Timer.Sample sample, String path, String outcome) {
+        sample.stop(meterRegistry.timer("razorpay.requests", "operation", path, "outcome", outcome));
+    }
+    
+    private JsonNode readJson(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid payment gateway response");
+        }
+    }
+    
+    CircuitState circuitState() {
+        return state.get();
+    }
+    
+    private boolean tryAcquirePermission() {
+        return switch (state.get()) {
+            case CLOSED -> true;
+            // Only the caller that moves the breaker to half-open gets to probe
+            case OPEN -> System.currentTimeMillis() - openedAt >= openMillis
+                    && state.compareAndSet(CircuitState.OPEN, CircuitState.HALF_OPEN);
+            case HALF_OPEN -> false;
+        };
+    }
+    
+    /**
+     * A probe that never reached the gateway proves nothing; hand the probe to the next caller.
+     */
+    private void abandonProbe() {
+        state.compareAndSet(CircuitState.HALF_OPEN, CircuitState.OPEN);
+    }
+    
+    private void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(CircuitState.CLOSED) != CircuitState.CLOSED) {
+            log.info("Payment gateway circuit closed");
+        }
+    }
+    
+    private void recordFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (state.compareAndSet(CircuitState.HALF_OPEN, CircuitState.OPEN)) {
+            openedAt = System.currentTimeMillis();
+            log.warn("Payment gateway probe failed, circuit re-opened");
+        } else if (failures >= failureThreshold && state.get() == CircuitState.CLOSED) {
+            openedAt = System.currentTimeMillis();
+            if (state.compareAndSet(CircuitState.CLOSED, CircuitState.OPEN)) {
+                log.warn("Opening payment gateway circuit after {} consecutive failures", failures);
+            }
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.dto.RatingSummary;
+import in.bushansirgur.foodiesapi.model.MenuItem;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.Review;
+import in.bushansirgur.foodiesapi.model.User;
+import in.bushansirgur.foodiesapi.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Writes reviews and keeps the rating of the reviewed restaurant, menu item or rider in step.
+ * Each target stores a running {@code ratingSum}, {@code totalReviews} and a 1-5 star histogram
+ * that are only ever changed with {@code $inc}, so concurrent reviews never lose updates; the
+ * displayed {@code rating} average is then set from the counters the increment returned.
+ * {@link #rebuildRatings()} recomputes every target from the reviews collection for repair.
+ * <p>
+ * A customer reviews each restaurant, rider and menu item of an order at most once, enforced by
+ * the unique index built by {@code ReviewIndexMigration}. Only the author or an admin may change
+ * or delete a review.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReviewService {
+    
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    
+    private final MongoTemplate mongoTemplate;
+    private final OrderRepository orderRepository;
+    private final MenuCacheService menuCacheService;
+    private final SearchIndexService searchIndexService;
+    
+    /**
+     * Review types that contribute to a rating, with the document they rate and the review field
+     * holding its id. OVERALL reviews describe the whole order and are not attributed to a target.
+     */
+    public enum RatingTarget {
+        RESTAURANT(Review.ReviewType.RESTAURANT, User.class, "restaurantId"),
+        MENU_ITEM(Review.ReviewType.MENU_ITEM, MenuItem.class, "menuItemId"),
+        DELIVERY_PARTNER(Review.ReviewType.DELIVERY_PARTNER, User.class, "deliveryPartnerId");
+        
+        private final Review.ReviewType reviewType;
+        private final Class<?> entityClass;
+        private final String reviewField;
+        
+        RatingTarget(Review.ReviewType reviewType, Class<?> entityClass, String reviewField) {
+            this.reviewType = reviewType;
+            this.entityClass = entityClass;
+            this.reviewField = reviewField;
+        }
+        
+        static RatingTarget of(Review.ReviewType type) {
+            for (RatingTarget target : values()) {
+                if (target.reviewType == type) {
+                    return target;
+                }
+            }
+            return null;
+        }
+        
+        String targetId(Review review) {
+            return switch (this) {
+                case RESTAURANT -> review.getRestaurantId();
+                case MENU_ITEM -> review.getMenuItemId();
+                case DELIVERY_PARTNER -> review.getDeliveryPartnerId();
+            };
+        }
+    }
+    
+    public record RebuildResult(Map<RatingTarget, Integer> updatedTargets, Map<RatingTarget, Integer> clearedTargets,
+                                long durationMs) {
+    }
+    
+    public Review createReview(Review review) {
+        if (review.getRating() == null || review.getRating() < 1 || review.getRating() > 5) {
+            throw new RuntimeException("Rating must be between 1 and 5");
+        }
+        if (review.getType() == null) {
+            throw new RuntimeException("Review type is required");
+        }
+        Order order = orderRepository.findById(review.getOrderId())
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        if (!order.getCustomerId().equals(review.getCustomerId())) {
+            throw new RuntimeException("Order does not belong to this customer");
+        }
+        
+        // Restaurant and rider are taken from the order rather than trusted from the request
+        review.setRestaurantId(order.getRestaurantId());
+        review.setDeliveryPartnerId(null);
+        if (review.getType() == Review.ReviewType.DELIVERY_PARTNER) {
+            if (order.getDeliveryPartnerId() == null) {
+                throw new RuntimeException("Order has no delivery partner to review");
+            }
+            review.setDeliveryPartnerId(order.getDeliveryPartnerId());
+        }
+        if (review.getType() == Review.ReviewType.MENU_ITEM) {
+            if (review.getMenuItemId() == null
+                    || order.getItems().stream().noneMatch(item -> review.getMenuItemId().equals(item.getMenuItemId()))) {
+                throw new RuntimeException("Menu item is not part of this order");
+            }
+        } else {
+            // Keeps the unique (orderId, type, menuItemId) key canonical for the other types
+            review.setMenuItemId(null);
+        }
+        
+        review.setId(null);
+        review.setIsVerified(order.getStatus() == Order.OrderStatus.DELIVERED);
+        review.setHelpfulCount(0);
+        review.setIsReported(false);
+        review.setCreatedAt(LocalDateTime.now());
+        review.setUpdatedAt(LocalDateTime.now());
+        Review saved;
+        try {
+            saved = mongoTemplate.insert(review);
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("You have already reviewed this for this order");
+        }
+        
+        apply(saved, saved.getRating(), 1);
+        ratingChanged(saved);
+        return saved;
+    }
+    
+    public Review updateReview(String reviewId, Review changes, String userId, boolean admin) {
+        if (changes.getRating() != null && (changes.getRating() < 1 || changes.getRating() > 5)) {
+            throw new RuntimeException("Rating must be between 1 and 5");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update().set("updatedAt", now);
+        if (changes.getRating() != null) {
+            update.set("rating", changes.getRating());
+        }
+        if (changes.getComment() != null) {
+            update.set("comment", changes.getComment());
+        }
+        if (changes.getImages() != null) {
+            update.set("images", changes.getImages());
+        }
+        
+        // The pre-image tells us exactly which star the target has to move away from
+        Review review = mongoTemplate.findAndModify(ownedBy(reviewId, userId, admin), update,
+                FindAndModifyOptions.options().returnNew(false), Review.class);
+        if (review == null) {
+            throw notFoundOrDenied(reviewId);
+        }
+        
+        Integer previousRating = review.getRating();
+        review.setUpdatedAt(now);
+        if (changes.getRating() != null) {
+            review.setRating(changes.getRating());
+        }
+        if (changes.getComment() != null) {
+            review.setComment(changes.getComment());
+        }
+        if (changes.getImages() != null) {
+            review.setImages(changes.getImages());
+        }
+        if (!Objects.equals(previousRating, review.getRating())) {
+            apply(review, previousRating, -1);
+            apply(review, review.getRating(), 1);
+            ratingChanged(review);
+        }
+        return review;
+    }
+    
+    public void deleteReview(String reviewId, String userId, boolean admin) {
+        Review removed = mongoTemplate.findAndRemove(ownedBy(reviewId, userId, admin), Review.class);
+        if (removed == null) {
+            throw notFoundOrDenied(reviewId);
+        }
+        apply(removed, removed.getRating(), -1);
+        ratingChanged(removed);
+    }
+    
+    public RatingSummary getRatingSummary(RatingTarget target, String targetId) {
+        Query query = Query.query(idCriteria(targetId));
+        query.fields().include("rating", "totalReviews", "ratingHistogram");
+        Document document = mongoTemplate.findOne(query, Document.class,
+                mongoTemplate.getCollectionName(target.entityClass));
+        if (document == null) {
+            throw new RuntimeException("Not found");
+        }
+        
+        Map<String, Integer> histogram = new LinkedHashMap<>();
+        Document stored = document.get("ratingHistogram", Document.class);
+        for (int star = 1; star <= 5; star++) {
+            Number count = stored != null ? stored.get(String.valueOf(star), Number.class) : null;
+            histogram.put(String.valueOf(star), count != null ? count.intValue() : 0);
+        }
+        Number rating = document.get("rating", Number.class);
+        Number total = document.get("totalReviews", Number.class);
+        return new RatingSummary(targetId, rating != null ? rating.doubleValue() : null,
+                total != null ? total.intValue() : 0, histogram);
+    }
+    
+    /**
+     * Recomputes every rated target from the reviews collection, one target type per thread.
+     * Reviews written while the rebuild runs may be overwritten by the snapshot, so run it when
+     * review traffic is quiet or simply run it again.
+     */
+    public RebuildResult rebuildRatings() {
+        long start = System.currentTimeMillis();
+        Map<RatingTarget, Integer> updated = new EnumMap<>(RatingTarget.class);
+        Map<RatingTarget, Integer> cleared = new EnumMap<>(RatingTarget.class);
+        
+        try (ExecutorService executor = Executors.newFixedThreadPool(RatingTarget.values().length)) {
+            Map<RatingTarget, CompletableFuture<int[]>> jobs = new EnumMap<>(RatingTarget.class);
+            for (RatingTarget target : RatingTarget.values()) {
+                jobs.put(target, CompletableFuture.supplyAsync(() -> rebuild(target), executor));
+            }
+            jobs.forEach((target, job) -> {
+                int[] counts = job.join();
+                updated.put(target, counts[0]);
+                cleared.put(target, counts[1]);
+            });
+        }
+        
+        RebuildResult result = new RebuildResult(updated, cleared, System.currentTimeMillis() - start);
+        log.info("Rebuilt ratings: {}", result);
+        return result;
+    }
+    
+    private int[] rebuild(RatingTarget target) {
+        GroupOperation group = Aggregation.group(target.reviewField)
+                .sum("rating").as("sum")
+                .count().as("count");
+        for (int star = 1; star <= 5; star++) {
+            group = group.sum(ConditionalOperators.when(Criteria.where("rating").is(star)).then(1).otherwise(0))
+                    .as("star" + star);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("type").is(target.reviewType.name())
+                        .and(target.reviewField).ne(null)
+                        .and("rating").gte(1).lte(5)),
+                group
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        
+        Set<String> rated = new HashSet<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, target.entityClass);
+        int pending = 0;
+        try (Stream<Document> results = mongoTemplate.aggregateStream(aggregation, Review.class, Document.class)) {
+            for (Document result : (Iterable<Document>) results::iterator) {
+                String targetId = result.getString("_id");
+                long sum = result.get("sum", Number.class).longValue();
+                int count = result.get("count", Number.class).intValue();
+                Document histogram = new Document();
+                for (int star = 1; star <= 5; star++) {
+                    histogram.put(String.valueOf(star), result.get("star" + star, Number.class).intValue());
+                }
+                bulk.updateOne(Query.query(idCriteria(targetId)), new Update()
+                        .set("ratingSum", sum)
+                        .set("totalReviews", count)
+                        .set("ratingHistogram", histogram)
+                        .set("rating", average(sum, count)));
+                rated.add(targetId);
+                if (++pending == REBUILD_BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, target.entityClass);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        
+        // Targets that still carry counters but no longer have any reviews of this type
+        int cleared = 0;
+        Query stale = Query.query(Criteria.where("totalReviews").gt(0));
+        if (target.entityClass == User.class) {
+            stale.addCriteria(Criteria.where("role").is(target == RatingTarget.RESTAURANT
+                    ? User.UserRole.RESTAURANT.name() : User.UserRole.DELIVERY_PARTNER.name()));
+        }
+        stale.fields().include("_id");
+        bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, target.entityClass);
+        pending = 0;
+        try (Stream<Document> targets = mongoTemplate.stream(stale, Document.class,
+                mongoTemplate.getCollectionName(target.entityClass))) {
+            for (Document document : (Iterable<Document>) targets::iterator) {
+                String targetId = document.get("_id").toString();
+                if (rated.contains(targetId)) {
+                    continue;
+                }
+                bulk.updateOne(Query.query(idCriteria(targetId)), new Update()
+                        .set("ratingSum", 0L)
+                        .set("totalReviews", 0)
+                        .unset("ratingHistogram")
+                        .unset("rating"));
+                cleared++;
+                if (++pending == REBUILD_BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, target.entityClass);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        return new int[]{rated.size(), cleared};
+    }
+    
+    /**
+     * Adds ({@code sign} 1) or removes ({@code sign} -1) a review of {@code rating} stars to its target.
+     */
+    private void apply(Review review, Integer rating, int sign) {
+        RatingTarget target = RatingTarget.of(review.getType());
+        String targetId = target != null ? target.targetId(review) : null;
+        if (targetId == null || rating == null) {
+            return;
+        }
+        
+        Query query = Query.query(idCriteria(targetId));
+        query.fields().include("ratingSum", "totalReviews");
+        Update update = new Update()
+                .inc("ratingSum", (long) sign * rating)
+                .inc("totalReviews", sign)
+                .inc("ratingHistogram." + rating, sign);
+        Document counters = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Document.class,
+                mongoTemplate.getCollectionName(target.entityClass));
+        if (counters == null) {
+            log.warn("Rated {} {} no longer exists", target, targetId);
+            return;
+        }
+        
+        // Only set the average if no other review has moved the counters since our increment;
+        // whichever writer increments last also sets the final average
+        long sum = counters.get("ratingSum", Number.class).longValue();
+        int count = counters.get("totalReviews", Number.class).intValue();
+        mongoTemplate.updateFirst(
+                Query.query(idCriteria(targetId).and("ratingSum").is(sum).and("totalReviews").is(count)),
+                count > 0 ? Update.update("rating", average(sum, count)) : new Update().unset("rating"),
+                target.entityClass);
+    }
+    
+    /**
+     * Refreshes what is served from memory on this node; the menu cache also evicts on peers,
+     * whose search index catches up on its next reconcile.
+     */
+    private void ratingChanged(Review review) {
+        RatingTarget target = RatingTarget.of(review.getType());
+        if (target == RatingTarget.RESTAURANT && review.getRestaurantId() != null) {
+            searchIndexService.refreshRestaurant(review.getRestaurantId());
+        } else if (target == RatingTarget.MENU_ITEM && review.getMenuItemId() != null) {
+            if (review.getRestaurantId() != null) {
+                menuCacheService.invalidate(review.getRestaurantId());
+            }
+            searchIndexService.refreshMenuItem(review.getMenuItemId());
+        }
+    }
+    
+    private static Query ownedBy(String reviewId, String userId, boolean admin) {
+        Criteria criteria = Criteria.where("_id").is(reviewId);
+        if (!admin) {
+            criteria.and("customerId").is(userId);
+        }
+        return Query.query(criteria);
+    }
+    
+    private RuntimeException notFoundOrDenied(String reviewId) {
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(reviewId)), Review.class)) {
+            return new AccessDeniedException("Only the author or an admin can change this review");
+        }
+        return new RuntimeException("Review not found");
+    }
+    
+    // Queries against raw Documents bypass the entity mapping, so convert ids the way it would
+    private static Criteria idCriteria(String id) {
+        return Criteria.where("_id").is(ObjectId.isValid(id) ? new ObjectId(id) : id);
+    }
+    
+    private static Double average(long sum, int count) {
+        return count > 0 ? Math.round(sum * 100.0 / count) / 100.0 : null;
+    }
+}
@@ -0,0 +1,188 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform lat/long grid of rider positions. Only available riders are registered in the grid
+ * cells; every change to a rider happens inside a {@code compute} on that rider's entry, so a
+ * position update, availability change and claim for the same rider never interleave.
+ */
+@Component
+public class RiderLocationIndex {
+    
+    private static final double KM_PER_DEGREE = 111.32;
+    
+    private final Map<String, RiderPosition> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+    private final double cellDegrees;
+    
+    public RiderLocationIndex(@Value("${dispatch.grid.cell-degrees:0.01}") double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+    
+    public record RiderPosition(String riderId, double latitude, double longitude, boolean available) {
+    }
+    
+    public record Candidate(String riderId, double latitude, double longitude, double distanceKm) {
+    }
+    
+    public void update(String riderId, double latitude, double longitude) {
+        positions.compute(riderId, (id, previous) -> {
+            boolean available = previous != null && previous.available();
+            RiderPosition next = new RiderPosition(id, latitude, longitude, available);
+            if (available) {
+                move(id, cellOf(previous.latitude(), previous.longitude()), cellOf(latitude, longitude));
+            }
+            return next;
+        });
+    }
+    
+    public void setAvailable(String riderId, double latitude, double longitude, boolean available) {
+        positions.compute(riderId, (id, previous) -> {
+            if (previous != null && previous.available()) {
+                removeFromCell(id, cellOf(previous.latitude(), previous.longitude()));
+            }
+            if (available) {
+                addToCell(id, cellOf(latitude, longitude));
+            }
+            return new RiderPosition(id, latitude, longitude, available);
+        });
+    }
+    
+    public void setAvailable(String riderId, boolean available) {
+        positions.computeIfPresent(riderId, (id, previous) -> {
+            if (previous.available() == available) {
+                return previous;
+            }
+            long cell = cellOf(previous.latitude(), previous.longitude());
+            if (available) {
+                addToCell(id, cell);
+            } else {
+                removeFromCell(id, cell);
+            }
+            return new RiderPosition(id, previous.latitude(), previous.longitude(), available);
+        });
+    }
+    
+    /**
+     * Atomically takes an available rider out of the index. Returns false if another caller got there first.
+     */
+    public boolean claim(String riderId) {
+        boolean[] claimed = new boolean[1];
+        positions.computeIfPresent(riderId, (id, previous) -> {
+            if (!previous.available()) {
+                return previous;
+            }
+            removeFromCell(id, cellOf(previous.latitude(), previous.longitude()));
+            claimed[0] = true;
+            return new RiderPosition(id, previous.latitude(), previous.longitude(), false);
+        });
+        return claimed[0];
+    }
+    
+    public RiderPosition get(String riderId) {
+        return positions.get(riderId);
+    }
+    
+    public List<RiderPosition> availableRiders() {
+        return positions.values().stream().filter(RiderPosition::available).toList();
+    }
+    
+    public int availableCount() {
+        return cells.values().stream().mapToInt(Set::size).sum();
+    }
+    
+    /**
+     * Returns up to {@code k} available riders nearest to the point, searching outward ring by ring
+     * until the next ring cannot contain anything closer than the current k-th candidate.
+     */
+    public List<Candidate> nearest(double latitude, double longitude, int k, double maxDistanceKm) {
+        int centerRow = row(latitude);
+        int centerCol = col(longitude);
+        double cellKm = cellDegrees * KM_PER_DEGREE * Math.max(0.1, Math.cos(Math.toRadians(latitude)));
+        int maxRing = (int) Math.ceil(maxDistanceKm / cellKm) + 1;
+        
+        List<Candidate> found = new ArrayList<>();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int dRow = -ring; dRow <= ring; dRow++) {
+                for (int dCol = -ring; dCol <= ring; dCol++) {
+                    if (Math.abs(dRow) != ring && Math.abs(dCol) != ring) {
+                        continue; // inner cells were visited in earlier rings
+                    }
+                    Set<String> riders = cells.get(key(centerRow + dRow, centerCol + dCol));
+                    if (riders == null) {
+                        continue;
+                    }
+                    for (String riderId : riders) {
+                        RiderPosition position = positions.get(riderId);
+                        if (position == null || !position.available()) {
+                            continue;
+                        }
+                        double distance = GeoUtils.distanceKm(latitude, longitude, position.latitude(), position.longitude());
+                        if (distance <= maxDistanceKm) {
+                            found.add(new Candidate(riderId, position.latitude(), position.longitude(), distance));
+                        }
+                    }
+                }
+            }
+            
+            if (found.size() >= k) {
+                found.sort(Comparator.comparingDouble(Candidate::distanceKm));
+                // Anything in the next ring is at least ring * cellKm away
+                if (found.get(k - 1).distanceKm() <= ring * cellKm) {
+                    break;
+                }
+            }
+        }
+        
+        found.sort(Comparator.comparingDouble(Candidate::distanceKm));
+        return found.size() > k ? new ArrayList<>(found.subList(0, k)) : found;
+    }
+    
+    private void move(String riderId, long fromCell, long toCell) {
+        if (fromCell != toCell) {
+            removeFromCell(riderId, fromCell);
+            addToCell(riderId, toCell);
+        }
+    }
+    
+    private void addToCell(String riderId, long cell) {
+        cells.compute(cell, (c, riders) -> {
+            Set<String> members = riders != null ? riders : ConcurrentHashMap.newKeySet();
+            members.add(riderId);
+            return members;
+        });
+    }
+    
+    private void removeFromCell(String riderId, long cell) {
+        cells.computeIfPresent(cell, (c, riders) -> {
+            riders.remove(riderId);
+            return riders.isEmpty() ? null : riders;
+        });
+    }
+    
+    private long cellOf(double latitude, double longitude) {
+        return key(row(latitude), col(longitude));
+    }
+    
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+    
+    private int col(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+    
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,503 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.dto.RollupReport;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import in.bushansirgur.foodiesapi.model.OrderRollup;
+import in.bushansirgur.foodiesapi.model.Payment;
+import in.bushansirgur.foodiesapi.model.RollupMarker;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Maintains {@link OrderRollup} buckets so dashboards read a handful of pre-aggregated documents
+ * instead of scanning orders and payments. Placed and cancelled orders arrive from the outbox and
+ * completed payments from {@link PaymentService}; each fact is applied once, with {@code $inc}, to
+ * its minute, hour and day bucket for the restaurant, the delivery city and the whole platform.
+ * {@link #backfill} rebuilds a date range from the source collections with aggregation pipelines.
+ * <p>
+ * A fact's marker and its increments commit in one transaction when the outbox transaction
+ * manager is available, so a crash can neither lose nor double count it. Completed payments are
+ * flagged {@code rollupPending} until counted; the fast path runs right after verification and a
+ * sweep retries whatever it missed.
+ */
+@Slf4j
+@Service
+public class RollupService {
+    
+    public static final String PLATFORM_KEY = "all";
+    
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+    private static final int PAYMENT_SWEEP_BATCH_SIZE = 500;
+    private static final int MAX_TRANSACTION_ATTEMPTS = 3;
+    
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${rollups.minute.retention-hours:48}")
+    private long minuteRetentionHours;
+    
+    @Value("${rollups.hour.retention-days:400}")
+    private long hourRetentionDays;
+    
+    @Value("${rollups.query.max-buckets:2000}")
+    private int maxBuckets;
+    
+    @Value("${rollups.payments.retry-after-ms:30000}")
+    private long paymentRetryAfterMs;
+    
+    public RollupService(MongoTemplate mongoTemplate, ObjectProvider<MongoTransactionManager> transactionManager) {
+        this.mongoTemplate = mongoTemplate;
+        MongoTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactionTemplate = manager != null ? new TransactionTemplate(manager) : null;
+        if (manager == null) {
+            log.warn("Rollup transactions are disabled; a crash between a rollup marker and its increments loses the fact");
+        }
+    }
+    
+    private record OrderFacts(String restaurantId, String city, LocalDateTime placedAt) {
+    }
+    
+    public record BackfillResult(Map<OrderRollup.Granularity, Integer> buckets, long durationMs) {
+    }
+    
+    public void applyOrderEvent(OrderEvent event) {
+        Order order = event.getOrder();
+        if (order == null || order.getId() == null) {
+            return;
+        }
+        if (event.getType() == OrderEvent.EventType.CREATED) {
+            long total = paise(order.getTotalAmount());
+            record("placed:" + order.getId(), facts(order), update -> update.inc("orders", 1).inc("gmvPaise", total));
+        } else if (event.getType() == OrderEvent.EventType.STATUS_CHANGED
+                && order.getStatus() == Order.OrderStatus.CANCELLED) {
+            // Status events carry a summary without the placement time or address
+            OrderFacts facts = loadFacts(order.getId());
+            if (facts == null) {
+                return;
+            }
+            long total = paise(order.getTotalAmount());
+            record("cancelled:" + order.getId(), facts, update -> update.inc("cancellations", 1).inc("gmvPaise", -total));
+        }
+    }
+    
+    @Async
+    public void recordPayment(Payment payment) {
+        try {
+            applyPayment(payment);
+        } catch (RuntimeException e) {
+            log.warn("Could not add payment {} to rollups, will retry: {}", payment.getId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Counts completed payments the fast path missed (a failed write or a restart in between).
+     */
+    @Scheduled(fixedDelayString = "${rollups.payments.retry-after-ms:30000}")
+    public void sweepPendingPayments() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(paymentRetryAfterMs));
+        Query query = Query.query(Criteria.where("rollupPending").is(true).and("updatedAt").lt(cutoff))
+                .limit(PAYMENT_SWEEP_BATCH_SIZE);
+        for (Payment payment : mongoTemplate.find(query, Payment.class)) {
+            try {
+                applyPayment(payment);
+            } catch (RuntimeException e) {
+                log.warn("Could not add payment {} to rollups, will retry: {}", payment.getId(), e.getMessage());
+            }
+        }
+    }
+    
+    @Async
+    public void recordCompletedPayments(List<String> razorpayOrderIds) {
+        List<Payment> payments = mongoTemplate.find(Query.query(Criteria.where("razorpayOrderId").in(razorpayOrderIds)
+                .and("rollupPending").is(true)), Payment.class);
+        for (Payment payment : payments) {
+            try {
+                applyPayment(payment);
+            } catch (RuntimeException e) {
+                log.warn("Could not add payment {} to rollups, will retry: {}", payment.getId(), e.getMessage());
+            }
+        }
+    }
+    
+    public RollupReport getReport(OrderRollup.Granularity granularity, OrderRollup.Dimension dimension, String key,
+                                  LocalDateTime from, LocalDateTime to) {
+        String bucketKey = dimension == OrderRollup.Dimension.PLATFORM ? PLATFORM_KEY
+                : dimension == OrderRollup.Dimension.CITY ? normalizeCity(key) : key;
+        if (bucketKey == null) {
+            throw new RuntimeException("A key is required for " + dimension + " rollups");
+        }
+        LocalDateTime start = granularity.truncate(from);
+        if (!to.isAfter(start)) {
+            throw new RuntimeException("Range end must be after its start");
+        }
+        if (Duration.between(start, to).dividedBy(granularity.duration()) > maxBuckets) {
+            throw new RuntimeException("Range spans more than " + maxBuckets + " " + granularity.unitName()
+                    + " buckets, use a coarser granularity");
+        }
+        
+        Query query = Query.query(Criteria.where("granularity").is(granularity)
+                        .and("dimension").is(dimension)
+                        .and("key").is(bucketKey)
+                        .and("bucketStart").gte(start).lt(to))
+                .with(Sort.by(Sort.Direction.ASC, "bucketStart"));
+        List<OrderRollup> rollups = mongoTemplate.find(query, OrderRollup.class);
+        
+        List<RollupReport.Bucket> buckets = new ArrayList<>(rollups.size());
+        OrderRollup totals = new OrderRollup();
+        totals.setPaymentCounts(new TreeMap<>());
+        totals.setPaymentAmountPaise(new TreeMap<>());
+        for (OrderRollup rollup : rollups) {
+            buckets.add(toBucket(rollup.getBucketStart(), rollup));
+            totals.setOrders(totals.getOrders() + rollup.getOrders());
+            totals.setCancellations(totals.getCancellations() + rollup.getCancellations());
+            totals.setGmvPaise(totals.getGmvPaise() + rollup.getGmvPaise());
+            if (rollup.getPaymentCounts() != null) {
+                rollup.getPaymentCounts().forEach((method, count) -> totals.getPaymentCounts().merge(method, count, Long::sum));
+            }
+            if (rollup.getPaymentAmountPaise() != null) {
+                rollup.getPaymentAmountPaise().forEach((method, amount) -> totals.getPaymentAmountPaise().merge(method, amount, Long::sum));
+            }
+        }
+        return new RollupReport(granularity, dimension, bucketKey, toBucket(start, totals), buckets);
+    }
+    
+    /**
+     * Rebuilds every bucket for the days in [{@code from}, {@code to}) from orders and payments.
+     * Minute buckets are only rebuilt inside their retention window. Facts counted incrementally
+     * while a range is being rebuilt can be lost, so run it when the range is closed or quiet.
+     */
+    public BackfillResult backfill(LocalDate from, LocalDate to) {
+        long startedAt = System.currentTimeMillis();
+        Map<OrderRollup.Granularity, Integer> written = new EnumMap<>(OrderRollup.Granularity.class);
+        
+        for (OrderRollup.Granularity granularity : OrderRollup.Granularity.values()) {
+            LocalDateTime start = from.atStartOfDay();
+            LocalDateTime end = to.atStartOfDay();
+            if (granularity == OrderRollup.Granularity.MINUTE) {
+                LocalDateTime retained = granularity.truncate(LocalDateTime.now().minusHours(minuteRetentionHours));
+                start = start.isBefore(retained) ? retained : start;
+            }
+            if (!end.isAfter(start)) {
+                written.put(granularity, 0);
+                continue;
+            }
+            
+            mongoTemplate.remove(Query.query(Criteria.where("granularity").is(granularity)
+                    .and("bucketStart").gte(start).lt(end)), OrderRollup.class);
+            int buckets = 0;
+            for (OrderRollup.Dimension dimension : OrderRollup.Dimension.values()) {
+                buckets += backfillOrders(granularity, dimension, start, end);
+                backfillPayments(granularity, dimension, start, end);
+            }
+            written.put(granularity, buckets);
+        }
+        
+        BackfillResult result = new BackfillResult(written, System.currentTimeMillis() - startedAt);
+        log.info("Backfilled order rollups for {} to {}: {}", from, to, result);
+        return result;
+    }
+    
+    private int backfillOrders(OrderRollup.Granularity granularity, OrderRollup.Dimension dimension,
+                               LocalDateTime start, LocalDateTime end) {
+        Document cancelled = new Document("$eq", List.of("$status", Order.OrderStatus.CANCELLED.name()));
+        List<AggregationOperation> pipeline = List.of(
+                stage("$match", new Document("createdAt", new Document("$gte", toDate(start)).append("$lt", toDate(end)))),
+                stage("$group", new Document("_id", new Document("key", keyExpression(dimension, ""))
+                        .append("bucket", truncateExpression(granularity, "$createdAt")))
+                        .append("orders", new Document("$sum", 1))
+                        .append("cancellations", new Document("$sum", new Document("$cond", List.of(cancelled, 1, 0))))
+                        .append("gmvPaise", new Document("$sum", new Document("$cond",
+                                List.of(cancelled, 0L, paiseExpression("$totalAmount"))))))
+        );
+        
+        return writeBackfill(granularity, dimension, pipeline, mongoTemplate.getCollectionName(Order.class), (update, result) -> update
+                .set("orders", result.get("orders", Number.class).longValue())
+                .set("cancellations", result.get("cancellations", Number.class).longValue())
+                .set("gmvPaise", result.get("gmvPaise", Number.class).longValue()));
+    }
+    
+    private void backfillPayments(OrderRollup.Granularity granularity, OrderRollup.Dimension dimension,
+                                  LocalDateTime start, LocalDateTime end) {
+        // Payments are bucketed by when their order was placed, and are always created after it
+        List<AggregationOperation> pipeline = List.of(
+                stage("$match", new Document("status", Payment.PaymentStatus.COMPLETED.name())
+                        .append("method", new Document("$ne", null))
+                        .append("createdAt", new Document("$gte", toDate(start)))),
+                stage("$lookup", new Document("from", mongoTemplate.getCollectionName(Order.class))
+                        .append("let", new Document("orderId", new Document("$convert", new Document("input", "$orderId")
+                                .append("to", "objectId").append("onError", null).append("onNull", null))))
+                        .append("pipeline", List.of(
+                                new Document("$match", new Document("$expr", new Document("$eq", List.of("$_id", "$$orderId")))),
+                                new Document("$project", new Document("restaurantId", 1)
+                                        .append("deliveryAddress.city", 1).append("createdAt", 1))))
+                        .append("as", "order")),
+                stage("$unwind", "$order"),
+                stage("$match", new Document("order.createdAt", new Document("$gte", toDate(start)).append("$lt", toDate(end)))),
+                stage("$group", new Document("_id", new Document("key", keyExpression(dimension, "order."))
+                        .append("bucket", truncateExpression(granularity, "$order.createdAt"))
+                        .append("method", "$method"))
+                        .append("count", new Document("$sum", 1))
+                        .append("amountPaise", new Document("$sum", paiseExpression("$amount"))))
+        );
+        
+        writeBackfill(granularity, dimension, pipeline, mongoTemplate.getCollectionName(Payment.class), (update, result) -> {
+            String method = result.get("_id", Document.class).getString("method");
+            return update
+                    .set("paymentCounts." + method, result.get("count", Number.class).longValue())
+                    .set("paymentAmountPaise." + method, result.get("amountPaise", Number.class).longValue());
+        });
+    }
+    
+    private int writeBackfill(OrderRollup.Granularity granularity, OrderRollup.Dimension dimension,
+                              List<AggregationOperation> pipeline, String collection,
+                              BiFunction<Update, Document, Update> toUpdate) {
+        Aggregation aggregation = Aggregation.newAggregation(pipeline)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        
+        int written = 0;
+        int pending = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderRollup.class);
+        try (Stream<Document> results = mongoTemplate.aggregateStream(aggregation, collection, Document.class)) {
+            for (Document result : (Iterable<Document>) results::iterator) {
+                Document id = result.get("_id", Document.class);
+                String key = id.getString("key");
+                if (key == null || key.isEmpty()) {
+                    continue;
+                }
+                LocalDateTime bucketStart = LocalDateTime.ofInstant(id.getDate("bucket").toInstant(), ZoneId.systemDefault());
+                Update update = toUpdate.apply(bucketInsertDefaults(new Update(), granularity, dimension, key, bucketStart), result);
+                bulk.upsert(Query.query(Criteria.where("_id").is(bucketId(granularity, dimension, key, bucketStart))), update);
+                written++;
+                if (++pending == BACKFILL_BATCH_SIZE) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderRollup.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        return written;
+    }
+    
+    private void applyPayment(Payment payment) {
+        OrderFacts facts = payment.getStatus() == Payment.PaymentStatus.COMPLETED && payment.getMethod() != null
+                ? loadFacts(payment.getOrderId())
+                : null;
+        if (facts != null) {
+            String method = payment.getMethod().name();
+            long amount = paise(payment.getAmount());
+            record("paid:" + payment.getId(), facts, update -> update
+                    .inc("paymentCounts." + method, 1)
+                    .inc("paymentAmountPaise." + method, amount));
+        }
+        // Counted now, counted before (the marker), or nothing to count
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(payment.getId())),
+                new Update().unset("rollupPending"), Payment.class);
+    }
+    
+    /**
+     * Applies {@code increments} to every bucket the fact falls into, unless the fact was already counted.
+     */
+    private void record(String fact, OrderFacts facts, Consumer<Update> increments) {
+        if (transactionTemplate != null) {
+            recordInTransaction(fact, facts, increments);
+            return;
+        }
+        try {
+            mongoTemplate.insert(new RollupMarker(fact, LocalDateTime.now()));
+        } catch (DuplicateKeyException e) {
+            return;
+        }
+        
+        try {
+            increment(facts, increments);
+        } catch (RuntimeException e) {
+            // Let a redelivery count it instead
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(fact)), RollupMarker.class);
+            throw e;
+        }
+    }
+    
+    private void recordInTransaction(String fact, OrderFacts facts, Consumer<Update> increments) {
+        // Concurrent facts for the same hot bucket (e.g. the platform's day) conflict and are retried
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    mongoTemplate.insert(new RollupMarker(fact, LocalDateTime.now()));
+                    increment(facts, increments);
+                });
+                return;
+            } catch (DuplicateKeyException e) {
+                // Either the fact was already counted, or a bucket upsert raced and should be retried
+                if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(fact)), RollupMarker.class)) {
+                    return;
+                }
+                if (attempt >= MAX_TRANSACTION_ATTEMPTS) {
+                    throw e;
+                }
+            } catch (TransientDataAccessException e) {
+                if (attempt >= MAX_TRANSACTION_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    private void increment(OrderFacts facts, Consumer<Update> increments) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderRollup.class);
+        for (OrderRollup.Granularity granularity : OrderRollup.Granularity.values()) {
+            LocalDateTime bucketStart = granularity.truncate(facts.placedAt());
+            for (OrderRollup.Dimension dimension : OrderRollup.Dimension.values()) {
+                String key = switch (dimension) {
+                    case RESTAURANT -> facts.restaurantId();
+                    case CITY -> facts.city();
+                    case PLATFORM -> PLATFORM_KEY;
+                };
+                if (key == null) {
+                    continue;
+                }
+                Update update = bucketInsertDefaults(new Update(), granularity, dimension, key, bucketStart);
+                increments.accept(update);
+                bulk.upsert(Query.query(Criteria.where("_id").is(bucketId(granularity, dimension, key, bucketStart))), update);
+            }
+        }
+        bulk.execute();
+    }
+    
+    private Update bucketInsertDefaults(Update update, OrderRollup.Granularity granularity, OrderRollup.Dimension dimension,
+                                        String key, LocalDateTime bucketStart) {
+        update.setOnInsert("granularity", granularity)
+                .setOnInsert("dimension", dimension)
+                .setOnInsert("key", key)
+                .setOnInsert("bucketStart", bucketStart);
+        LocalDateTime expireAt = switch (granularity) {
+            case MINUTE -> bucketStart.plusHours(minuteRetentionHours);
+            case HOUR -> bucketStart.plusDays(hourRetentionDays);
+            case DAY -> null;
+        };
+        if (expireAt != null) {
+            update.setOnInsert("expireAt", expireAt);
+        }
+        return update;
+    }
+    
+    private OrderFacts loadFacts(String orderId) {
+        if (orderId == null) {
+            return null;
+        }
+        Query query = Query.query(Criteria.where("_id").is(orderId));
+        query.fields().include("restaurantId", "deliveryAddress.city", "createdAt");
+        Order order = mongoTemplate.findOne(query, Order.class);
+        return order != null ? facts(order) : null;
+    }
+    
+    private static OrderFacts facts(Order order) {
+        return new OrderFacts(order.getRestaurantId(),
+                normalizeCity(order.getDeliveryAddress() != null ? order.getDeliveryAddress().getCity() : null),
+                order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now());
+    }
+    
+    private static RollupReport.Bucket toBucket(LocalDateTime bucketStart, OrderRollup rollup) {
+        long completed = rollup.getOrders() - rollup.getCancellations();
+        BigDecimal gmv = rupees(rollup.getGmvPaise());
+        Map<String, BigDecimal> paymentAmounts = new TreeMap<>();
+        if (rollup.getPaymentAmountPaise() != null) {
+            rollup.getPaymentAmountPaise().forEach((method, amount) -> paymentAmounts.put(method, rupees(amount)));
+        }
+        return new RollupReport.Bucket(bucketStart, rollup.getOrders(), rollup.getCancellations(), gmv,
+                completed > 0 ? gmv.divide(BigDecimal.valueOf(completed), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO.setScale(2),
+                rollup.getPaymentCounts() != null ? new TreeMap<>(rollup.getPaymentCounts()) : Map.of(),
+                paymentAmounts);
+    }
+    
+    private static String bucketId(OrderRollup.Granularity granularity, OrderRollup.Dimension dimension,
+                                   String key, LocalDateTime bucketStart) {
+        return granularity + "|" + dimension + "|" + key + "|" + bucketStart;
+    }
+    
+    private static String normalizeCity(String city) {
+        if (city == null || city.isBlank()) {
+            return null;
+        }
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static long paise(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0L;
+    }
+    
+    private static BigDecimal rupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+    
+    // The stages below are written against stored field names, so dates are converted the way
+    // the mapping layer stores LocalDateTime (system zone) and buckets are truncated in that zone
+    
+    private static Object keyExpression(OrderRollup.Dimension dimension, String prefix) {
+        return switch (dimension) {
+            case RESTAURANT -> "$" + prefix + "restaurantId";
+            case CITY -> new Document("$toLower", new Document("$trim", new Document("input",
+                    new Document("$ifNull", List.of("$" + prefix + "deliveryAddress.city", "")))));
+            case PLATFORM -> new Document("$literal", PLATFORM_KEY);
+        };
+    }
+    
+    private static Document truncateExpression(OrderRollup.Granularity granularity, String field) {
+        return new Document("$dateTrunc", new Document("date", field)
+                .append("unit", granularity.unitName())
+                .append("timezone", ZoneId.systemDefault().getId()));
+    }
+    
+    private static Document paiseExpression(String field) {
+        // BigDecimal amounts are stored as strings by default
+        return new Document("$toLong", new Document("$round", List.of(
+                new Document("$multiply", List.of(new Document("$toDecimal", new Document("$ifNull", List.of(field, "0"))), 100)),
+                0)));
+    }
+    
+    private static AggregationOperation stage(String operator, Object definition) {
+        return context -> new Document(operator, definition);
+    }
+    
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,612 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.MenuItem;
+import in.bushansirgur.foodiesapi.model.User;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over restaurants and menu items. It is built from Mongo once the
+ * application is ready, so searches never scan collections. Saves and deletes made through Spring
+ * Data on this node are indexed as they happen and relayed to the other nodes, which reload the
+ * document; a periodic reconcile picks up anything written around the mapping layer (rating
+ * counters, approvals made directly in the database). Query tokens match exact terms, term
+ * prefixes and, as a fallback, terms one edit away.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchIndexService extends AbstractMongoEventListener<Object> {
+    
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double CUISINE_WEIGHT = 2.0;
+    private static final double MENU_WEIGHT = 1.0;
+    private static final double PREFIX_FACTOR = 0.7;
+    private static final double TYPO_FACTOR = 0.4;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final int MAX_LIMIT = 100;
+    
+    private static final int VEGETARIAN = 0;
+    private static final int VEGAN = 1;
+    private static final int GLUTEN_FREE = 2;
+    
+    private static final String RESTAURANT_CACHE = "search-restaurants";
+    private static final String MENU_ITEM_CACHE = "search-menu-items";
+    
+    private final MongoTemplate mongoTemplate;
+    private final ClusterRelay clusterRelay;
+    
+    // Ids changed on other nodes, reloaded off the transport thread
+    private final Set<String> staleRestaurants = ConcurrentHashMap.newKeySet();
+    private final Set<String> staleMenuItems = ConcurrentHashMap.newKeySet();
+    
+    private final Map<String, RestaurantEntry> restaurants = new ConcurrentHashMap<>();
+    private final Map<String, MenuEntry> menuItems = new ConcurrentHashMap<>();
+    private final Map<String, AtomicIntegerArray> dietaryCounts = new ConcurrentHashMap<>();
+    
+    private final TermIndex restaurantNames = new TermIndex();
+    private final TermIndex restaurantCuisines = new TermIndex();
+    private final TermIndex restaurantMenuTerms = new TermIndex(); // ref-counted by menu item
+    private final TermIndex menuItemTerms = new TermIndex();
+    
+    public record RestaurantEntry(String id, String name, String description, String imageUrl, String cuisineType,
+                                  String city, Double rating, Integer totalReviews, boolean approved,
+                                  List<String> nameTerms, List<String> cuisineTerms) {
+    }
+    
+    public record MenuEntry(String id, String restaurantId, String name, String category, BigDecimal price,
+                            boolean vegetarian, boolean vegan, boolean glutenFree, boolean available,
+                            Double rating, List<String> terms, List<String> nameTerms) {
+    }
+    
+    // Field names mirror the restaurant User document so clients can render hits directly
+    public record RestaurantHit(String id, String restaurantName, String restaurantDescription, String restaurantImageUrl,
+                                String cuisineType, String city, Double rating, Integer totalReviews, double score) {
+    }
+    
+    public record MenuItemHit(String id, String restaurantId, String name, String category, BigDecimal price,
+                              boolean vegetarian, boolean vegan, boolean glutenFree, Double rating, double score) {
+    }
+    
+    public record SearchResult<T>(List<T> hits, int total, Map<String, Map<String, Integer>> facets) {
+    }
+    
+    public record DietaryFilter(Boolean vegetarian, Boolean vegan, Boolean glutenFree) {
+        
+        boolean matches(boolean isVegetarian, boolean isVegan, boolean isGlutenFree) {
+            return (!Boolean.TRUE.equals(vegetarian) || isVegetarian)
+                    && (!Boolean.TRUE.equals(vegan) || isVegan)
+                    && (!Boolean.TRUE.equals(glutenFree) || isGlutenFree);
+        }
+    }
+    
+    @PostConstruct
+    void registerClusterRefresh() {
+        clusterRelay.onInvalidation(RESTAURANT_CACHE, staleRestaurants::add);
+        clusterRelay.onInvalidation(MENU_ITEM_CACHE, staleMenuItems::add);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        reconcile();
+        log.info("Search index built with {} restaurants and {} menu items in {} ms",
+                restaurants.size(), menuItems.size(), System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * Re-reads every restaurant and menu item, re-indexing the ones that changed and dropping the
+     * ones that no longer exist.
+     */
+    @Scheduled(initialDelayString = "${search.reconcile-interval-ms:300000}",
+            fixedDelayString = "${search.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Set<String> seenRestaurants = new HashSet<>();
+        try (Stream<User> users = mongoTemplate.stream(Query.query(Criteria.where("role").is(User.UserRole.RESTAURANT)), User.class)) {
+            users.forEach(user -> {
+                seenRestaurants.add(user.getId());
+                indexRestaurant(user);
+            });
+        }
+        Set<String> seenMenuItems = new HashSet<>();
+        try (Stream<MenuItem> items = mongoTemplate.stream(new Query(), MenuItem.class)) {
+            items.forEach(item -> {
+                seenMenuItems.add(item.getId());
+                indexMenuItem(item);
+            });
+        }
+        
+        restaurants.keySet().stream().filter(id -> !seenRestaurants.contains(id)).toList().forEach(this::removeRestaurant);
+        menuItems.keySet().stream().filter(id -> !seenMenuItems.contains(id)).toList().forEach(this::removeMenuItem);
+    }
+    
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (event.getSource() instanceof User user) {
+            if (user.getRole() == User.UserRole.RESTAURANT) {
+                indexRestaurant(user);
+                clusterRelay.invalidate(RESTAURANT_CACHE, user.getId());
+            }
+        } else if (event.getSource() instanceof MenuItem menuItem) {
+            indexMenuItem(menuItem);
+            clusterRelay.invalidate(MENU_ITEM_CACHE, menuItem.getId());
+        }
+    }
+    
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        // The event only carries the delete query; bulk deletes are left to the reconcile
+        Object id = event.getSource().get("_id");
+        if (!(id instanceof String) && !(id instanceof ObjectId)) {
+            return;
+        }
+        if (User.class.equals(event.getType())) {
+            removeRestaurant(id.toString());
+            clusterRelay.invalidate(RESTAURANT_CACHE, id.toString());
+        } else if (MenuItem.class.equals(event.getType())) {
+            removeMenuItem(id.toString());
+            clusterRelay.invalidate(MENU_ITEM_CACHE, id.toString());
+        }
+    }
+    
+    /**
+     * Reloads documents a peer changed. Runs on a schedule so a burst of relayed changes to the
+     * same document costs one read.
+     */
+    @Scheduled(fixedDelayString = "${search.refresh-interval-ms:1000}")
+    public void refreshStale() {
+        for (String id : drain(staleRestaurants)) {
+            refreshRestaurant(id);
+        }
+        for (String id : drain(staleMenuItems)) {
+            refreshMenuItem(id);
+        }
+    }
+    
+    /**
+     * Re-reads one restaurant, e.g. after its rating counters were updated in place.
+     */
+    public void refreshRestaurant(String restaurantId) {
+        User restaurant = mongoTemplate.findById(restaurantId, User.class);
+        if (restaurant != null && restaurant.getRole() == User.UserRole.RESTAURANT) {
+            indexRestaurant(restaurant);
+        } else {
+            removeRestaurant(restaurantId);
+        }
+    }
+    
+    /**
+     * Re-reads one menu item, e.g. after its rating counters were updated in place.
+     */
+    public void refreshMenuItem(String menuItemId) {
+        MenuItem menuItem = mongoTemplate.findById(menuItemId, MenuItem.class);
+        if (menuItem != null) {
+            indexMenuItem(menuItem);
+        } else {
+            removeMenuItem(menuItemId);
+        }
+    }
+    
+    public synchronized void indexRestaurant(User restaurant) {
+        if (restaurant.getRole() != User.UserRole.RESTAURANT) {
+            return;
+        }
+        
+        String city = restaurant.getRestaurantAddress() != null ? restaurant.getRestaurantAddress().getCity() : null;
+        RestaurantEntry entry = new RestaurantEntry(
+                restaurant.getId(),
+                restaurant.getRestaurantName(),
+                restaurant.getRestaurantDescription(),
+                restaurant.getRestaurantImageUrl(),
+                restaurant.getCuisineType(),
+                city,
+                restaurant.getRating(),
+                restaurant.getTotalReviews(),
+                Boolean.TRUE.equals(restaurant.getIsRestaurantApproved()),
+                tokenize(restaurant.getRestaurantName()),
+                tokenize(restaurant.getCuisineType())
+        );
+        if (entry.equals(restaurants.get(entry.id()))) {
+            return;
+        }
+        removeRestaurant(entry.id());
+        entry.nameTerms().forEach(term -> restaurantNames.add(term, entry.id()));
+        entry.cuisineTerms().forEach(term -> restaurantCuisines.add(term, entry.id()));
+        restaurants.put(entry.id(), entry);
+    }
+    
+    public synchronized void removeRestaurant(String restaurantId) {
+        RestaurantEntry previous = restaurants.remove(restaurantId);
+        if (previous != null) {
+            previous.nameTerms().forEach(term -> restaurantNames.remove(term, restaurantId));
+            previous.cuisineTerms().forEach(term -> restaurantCuisines.remove(term, restaurantId));
+        }
+    }
+    
+    public synchronized void indexMenuItem(MenuItem menuItem) {
+        List<String> nameTerms = tokenize(menuItem.getName());
+        Set<String> terms = new LinkedHashSet<>(nameTerms);
+        terms.addAll(tokenize(menuItem.getCategory()));
+        if (menuItem.getTags() != null) {
+            menuItem.getTags().forEach(tag -> terms.addAll(tokenize(tag)));
+        }
+        
+        MenuEntry entry = new MenuEntry(
+                menuItem.getId(),
+                menuItem.getRestaurantId(),
+                menuItem.getName(),
+                menuItem.getCategory(),
+                menuItem.getPrice(),
+                Boolean.TRUE.equals(menuItem.getIsVegetarian()),
+                Boolean.TRUE.equals(menuItem.getIsVegan()),
+                Boolean.TRUE.equals(menuItem.getIsGlutenFree()),
+                !Boolean.FALSE.equals(menuItem.getIsAvailable()),
+                menuItem.getRating(),
+                List.copyOf(terms),
+                nameTerms
+        );
+        if (entry.equals(menuItems.get(entry.id()))) {
+            return;
+        }
+        removeMenuItem(entry.id());
+        menuItems.put(entry.id(), entry);
+        entry.terms().forEach(term -> menuItemTerms.add(term, entry.id()));
+        
+        if (entry.available() && entry.restaurantId() != null) {
+            entry.terms().forEach(term -> restaurantMenuTerms.add(term, entry.restaurantId()));
+            adjustDietaryCounts(entry, 1);
+        }
+    }
+    
+    public synchronized void removeMenuItem(String menuItemId) {
+        if (menuItemId == null) {
+            return;
+        }
+        MenuEntry previous = menuItems.remove(menuItemId);
+        if (previous == null) {
+            return;
+        }
+        previous.terms().forEach(term -> menuItemTerms.remove(term, menuItemId));
+        if (previous.available() && previous.restaurantId() != null) {
+            previous.terms().forEach(term -> restaurantMenuTerms.remove(term, previous.restaurantId()));
+            adjustDietaryCounts(previous, -1);
+        }
+    }
+    
+    public SearchResult<RestaurantHit> searchRestaurants(String text, String cuisineType, String city,
+                                                         DietaryFilter dietary, Integer limit) {
+        List<String> tokens = tokenize(text);
+        Map<String, Double> scores = null;
+        if (tokens.isEmpty()) {
+            scores = new HashMap<>();
+            for (String id : restaurants.keySet()) {
+                scores.put(id, 0.0);
+            }
+        } else {
+            for (String token : tokens) {
+                Map<String, Double> tokenScores = new HashMap<>();
+                collect(restaurantNames, token, NAME_WEIGHT, tokenScores);
+                collect(restaurantCuisines, token, CUISINE_WEIGHT, tokenScores);
+                collect(restaurantMenuTerms, token, MENU_WEIGHT, tokenScores);
+                scores = intersect(scores, tokenScores);
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        
+        List<RestaurantHit> hits = new ArrayList<>();
+        Map<String, Integer> cuisineFacet = new HashMap<>();
+        Map<String, Integer> cityFacet = new HashMap<>();
+        for (Map.Entry<String, Double> scored : scores.entrySet()) {
+            RestaurantEntry entry = restaurants.get(scored.getKey());
+            if (entry == null || !entry.approved()
+                    || !matchesIgnoreCase(cuisineType, entry.cuisineType())
+                    || !matchesIgnoreCase(city, entry.city())
+                    || !matchesDietary(entry.id(), dietary)) {
+                continue;
+            }
+            double score = scored.getValue() + (entry.rating() != null ? entry.rating() * 0.1 : 0.0);
+            hits.add(new RestaurantHit(entry.id(), entry.name(), entry.description(), entry.imageUrl(),
+                    entry.cuisineType(), entry.city(), entry.rating(), entry.totalReviews(), score));
+            increment(cuisineFacet, entry.cuisineType());
+            increment(cityFacet, entry.city());
+        }
+        
+        hits.sort(Comparator.comparingDouble(RestaurantHit::score).reversed());
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("cuisineType", cuisineFacet);
+        facets.put("city", cityFacet);
+        return new SearchResult<>(truncate(hits, limit), hits.size(), facets);
+    }
+    
+    public SearchResult<MenuItemHit> searchMenuItems(String text, String restaurantId, DietaryFilter dietary, Integer limit) {
+        List<String> tokens = tokenize(text);
+        if (tokens.isEmpty() && restaurantId == null) {
+            throw new RuntimeException("Search text or restaurant is required");
+        }
+        
+        Map<String, Double> scores = null;
+        if (tokens.isEmpty()) {
+            scores = new HashMap<>();
+            for (MenuEntry entry : menuItems.values()) {
+                if (restaurantId.equals(entry.restaurantId())) {
+                    scores.put(entry.id(), 0.0);
+                }
+            }
+        } else {
+            for (String token : tokens) {
+                Map<String, Double> tokenScores = new HashMap<>();
+                collect(menuItemTerms, token, MENU_WEIGHT, tokenScores);
+                scores = intersect(scores, tokenScores);
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        }
+        
+        List<MenuItemHit> hits = new ArrayList<>();
+        Map<String, Integer> categoryFacet = new HashMap<>();
+        Map<String, Integer> dietaryFacet = new HashMap<>();
+        for (Map.Entry<String, Double> scored : scores.entrySet()) {
+            MenuEntry entry = menuItems.get(scored.getKey());
+            if (entry == null || !entry.available()
+                    || (restaurantId != null && !restaurantId.equals(entry.restaurantId()))
+                    || (dietary != null && !dietary.matches(entry.vegetarian(), entry.vegan(), entry.glutenFree()))) {
+                continue;
+            }
+            // Matches on the item name rank above matches on category or tags
+            double score = scored.getValue();
+            for (String token : tokens) {
+                if (entry.nameTerms().contains(token)) {
+                    score += NAME_WEIGHT;
+                }
+            }
+            score += entry.rating() != null ? entry.rating() * 0.1 : 0.0;
+            hits.add(new MenuItemHit(entry.id(), entry.restaurantId(), entry.name(), entry.category(), entry.price(),
+                    entry.vegetarian(), entry.vegan(), entry.glutenFree(), entry.rating(), score));
+            increment(categoryFacet, entry.category());
+            if (entry.vegetarian()) {
+                increment(dietaryFacet, "vegetarian");
+            }
+            if (entry.vegan()) {
+                increment(dietaryFacet, "vegan");
+            }
+            if (entry.glutenFree()) {
+                increment(dietaryFacet, "glutenFree");
+            }
+        }
+        
+        hits.sort(Comparator.comparingDouble(MenuItemHit::score).reversed());
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put("category", categoryFacet);
+        facets.put("dietary", dietaryFacet);
+        return new SearchResult<>(truncate(hits, limit), hits.size(), facets);
+    }
+    
+    private void collect(TermIndex index, String token, double weight, Map<String, Double> scores) {
+        for (Map.Entry<String, Double> expansion : index.expand(token).entrySet()) {
+            double score = weight * expansion.getValue();
+            for (String id : index.postings(expansion.getKey())) {
+                scores.merge(id, score, Math::max);
+            }
+        }
+    }
+    
+    private Map<String, Double> intersect(Map<String, Double> accumulated, Map<String, Double> tokenScores) {
+        if (accumulated == null) {
+            return tokenScores;
+        }
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Double> entry : accumulated.entrySet()) {
+            Double tokenScore = tokenScores.get(entry.getKey());
+            if (tokenScore != null) {
+                result.put(entry.getKey(), entry.getValue() + tokenScore);
+            }
+        }
+        return result;
+    }
+    
+    private boolean matchesDietary(String restaurantId, DietaryFilter dietary) {
+        if (dietary == null) {
+            return true;
+        }
+        AtomicIntegerArray counts = dietaryCounts.get(restaurantId);
+        if (counts == null) {
+            return dietary.matches(false, false, false);
+        }
+        return dietary.matches(counts.get(VEGETARIAN) > 0, counts.get(VEGAN) > 0, counts.get(GLUTEN_FREE) > 0);
+    }
+    
+    private void adjustDietaryCounts(MenuEntry entry, int delta) {
+        AtomicIntegerArray counts = dietaryCounts.computeIfAbsent(entry.restaurantId(), id -> new AtomicIntegerArray(3));
+        if (entry.vegetarian()) {
+            counts.addAndGet(VEGETARIAN, delta);
+        }
+        if (entry.vegan()) {
+            counts.addAndGet(VEGAN, delta);
+        }
+        if (entry.glutenFree()) {
+            counts.addAndGet(GLUTEN_FREE, delta);
+        }
+    }
+    
+    private static boolean matchesIgnoreCase(String filter, String value) {
+        return filter == null || filter.isEmpty() || filter.equalsIgnoreCase(value);
+    }
+    
+    private static void increment(Map<String, Integer> facet, String value) {
+        if (value != null) {
+            facet.merge(value, 1, Integer::sum);
+        }
+    }
+    
+    private static <T> List<T> truncate(List<T> hits, Integer limit) {
+        int size = limit == null || limit <= 0 ? 20 : Math.min(limit, MAX_LIMIT);
+        return hits.size() > size ? new ArrayList<>(hits.subList(0, size)) : hits;
+    }
+    
+    private static List<String> drain(Set<String> pending) {
+        List<String> drained = new ArrayList<>();
+        Iterator<String> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+    
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return List.copyOf(tokens);
+    }
+    
+    /**
+     * Sorted term dictionary with reference-counted postings, plus a deletion neighbourhood for
+     * typo lookups: every term is also filed under each string obtained by deleting one of its
+     * characters, so two strings one edit apart always share a key. Writers are serialized by the
+     * enclosing service; readers run lock-free against the concurrent maps.
+     */
+    private static final class TermIndex {
+        
+        private static final int MIN_TYPO_TERM_LENGTH = 3;
+        
+        private final ConcurrentSkipListMap<String, Map<String, Integer>> terms = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<String>> deletions = new ConcurrentHashMap<>();
+        
+        void add(String term, String id) {
+            Map<String, Integer> postings = terms.get(term);
+            if (postings == null) {
+                postings = new ConcurrentHashMap<>();
+                terms.put(term, postings);
+                if (term.length() >= MIN_TYPO_TERM_LENGTH) {
+                    for (String key : deletionKeys(term)) {
+                        deletions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(term);
+                    }
+                }
+            }
+            postings.merge(id, 1, Integer::sum);
+        }
+        
+        void remove(String term, String id) {
+            Map<String, Integer> postings = terms.get(term);
+            if (postings == null) {
+                return;
+            }
+            postings.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+            if (postings.isEmpty()) {
+                terms.remove(term);
+                for (String key : deletionKeys(term)) {
+                    deletions.computeIfPresent(key, (k, filed) -> {
+                        filed.remove(term);
+                        return filed.isEmpty() ? null : filed;
+                    });
+                }
+            }
+        }
+        
+        Set<String> postings(String term) {
+            Map<String, Integer> postings = terms.get(term);
+            return postings != null ? postings.keySet() : Collections.emptySet();
+        }
+        
+        Map<String, Double> expand(String token) {
+            Map<String, Double> expansions = new HashMap<>();
+            if (terms.containsKey(token)) {
+                expansions.put(token, 1.0);
+            }
+            
+            for (String term : terms.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.put(term, PREFIX_FACTOR);
+            }
+            
+            // Typo tolerance only when nothing matched exactly or by prefix
+            if (expansions.isEmpty() && token.length() >= 4) {
+                for (String key : deletionKeys(token)) {
+                    for (String term : deletions.getOrDefault(key, Collections.emptySet())) {
+                        if (expansions.size() >= MAX_EXPANSIONS) {
+                            return expansions;
+                        }
+                        if (withinOneEdit(token, term)) {
+                            expansions.put(term, TYPO_FACTOR);
+                        }
+                    }
+                }
+            }
+            return expansions;
+        }
+        
+        /** The string itself and every string with one character deleted. */
+        private static Set<String> deletionKeys(String term) {
+            Set<String> keys = new LinkedHashSet<>();
+            keys.add(term);
+            for (int i = 0; i < term.length(); i++) {
+                keys.add(term.substring(0, i) + term.substring(i + 1));
+            }
+            return keys;
+        }
+        
+        private static boolean withinOneEdit(String a, String b) {
+            if (a.length() > b.length()) {
+                return withinOneEdit(b, a);
+            }
+            if (b.length() - a.length() > 1) {
+                return false;
+            }
+            int i = 0;
+            while (i < a.length() && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            if (i == a.length()) {
+                return true;
+            }
+            if (a.length() == b.length()) {
+                // Substitution
+                return a.regionMatches(i + 1, b, i + 1, a.length() - i - 1);
+            }
+            // Insertion into the shorter term
+            return a.regionMatches(i, b, i + 1, a.length() - i);
+        }
+    }
+}
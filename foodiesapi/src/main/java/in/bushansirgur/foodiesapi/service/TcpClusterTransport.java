@@ -0,0 +1,322 @@
+package in.bushansirgur.foodiesapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Full-mesh TCP transport. Every node listens on its configured address and keeps an outbound
+ * connection to each configured peer; outbound connections only write and inbound ones only
+ * read. A connection carries frames only after both ends prove knowledge of the shared secret
+ * with an HMAC-SHA256 challenge-response over fresh nonces, so unauthenticated hosts can neither
+ * inject frames nor receive them. Each peer link has one queue drained by one writer, which
+ * flushes when the queue runs dry. MESSAGE frames beyond the queue capacity are dropped, so a
+ * slow peer costs dropped publications rather than publisher latency; interest and invalidation
+ * frames are always queued, since losing one would leave a peer's view wrong until it reconnects.
+ * Links reconnect with backoff.
+ */
+@Slf4j
+public class TcpClusterTransport implements ClusterTransport {
+    
+    private static final int CONNECT_TIMEOUT_MS = 2000;
+    private static final int HANDSHAKE_TIMEOUT_MS = 5000;
+    private static final long MAX_BACKOFF_MS = 30000;
+    private static final int NONCE_BYTES = 16;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    
+    private final String nodeId;
+    private final InetSocketAddress bindAddress;
+    private final List<InetSocketAddress> peers;
+    private final int queueCapacity;
+    private final SecretKeySpec sharedSecret;
+    private final SecureRandom random = new SecureRandom();
+    
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Link> links = new ConcurrentHashMap<>();
+    private final Map<Socket, Boolean> sockets = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Listener listener;
+    private volatile boolean running;
+    private ServerSocket server;
+    
+    public TcpClusterTransport(String nodeId, InetSocketAddress bindAddress, List<InetSocketAddress> peers,
+                               int queueCapacity, String sharedSecret) {
+        if (sharedSecret == null || sharedSecret.isBlank()) {
+            throw new IllegalArgumentException("cluster.tcp.shared-secret is required for the tcp transport");
+        }
+        this.nodeId = nodeId;
+        this.bindAddress = bindAddress;
+        this.peers = peers;
+        this.queueCapacity = queueCapacity;
+        this.sharedSecret = new SecretKeySpec(sharedSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+    }
+    
+    /**
+     * Per-peer write queue. Only MESSAGE frames count against the capacity; control frames are
+     * always accepted and keep their place in the order.
+     */
+    private final class Link {
+        private final BlockingQueue<Frame> queue = new LinkedBlockingQueue<>();
+        private final AtomicInteger queuedMessages = new AtomicInteger();
+        
+        void offer(Frame frame) {
+            if (frame.type() == FrameType.MESSAGE) {
+                if (queuedMessages.incrementAndGet() > queueCapacity) {
+                    queuedMessages.decrementAndGet();
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+            queue.add(frame);
+        }
+        
+        Frame take() throws InterruptedException {
+            Frame frame = queue.take();
+            if (frame.type() == FrameType.MESSAGE) {
+                queuedMessages.decrementAndGet();
+            }
+            return frame;
+        }
+        
+        boolean isEmpty() {
+            return queue.isEmpty();
+        }
+    }
+    
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+    
+    public long droppedFrames() {
+        return dropped.get();
+    }
+    
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+        running = true;
+        try {
+            server = new ServerSocket();
+            server.bind(bindAddress);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot listen for cluster peers on " + bindAddress, e);
+        }
+        threads.submit(this::acceptLoop);
+        for (InetSocketAddress peer : peers) {
+            threads.submit(() -> connectLoop(peer));
+        }
+        log.info("Cluster node {} listening on {} with {} peers", nodeId, server.getLocalSocketAddress(), peers.size());
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException ignored) {
+        }
+        sockets.keySet().forEach(TcpClusterTransport::closeQuietly);
+        threads.shutdownNow();
+    }
+    
+    /** Bound address of the listener, e.g. to learn an ephemeral port. */
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+    
+    @Override
+    public void send(String peerId, Frame frame) {
+        Link link = links.get(peerId);
+        if (link != null) {
+            link.offer(frame);
+        }
+    }
+    
+    @Override
+    public void broadcast(Frame frame) {
+        for (Link link : links.values()) {
+            link.offer(frame);
+        }
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                threads.submit(() -> readLoop(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Cluster accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private void readLoop(Socket socket) {
+        sockets.put(socket, Boolean.TRUE);
+        String peerId = null;
+        try {
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            String claimedId = in.readUTF();
+            byte[] clientNonce = readNonce(in);
+            byte[] serverNonce = newNonce();
+            out.writeUTF(nodeId);
+            out.write(serverNonce);
+            out.write(hmac("server", clientNonce, serverNonce, nodeId, claimedId));
+            out.flush();
+            byte[] proof = in.readNBytes(32);
+            if (!MessageDigest.isEqual(proof, hmac("client", serverNonce, clientNonce, claimedId, nodeId))) {
+                log.warn("Rejected cluster connection from {}: bad shared secret", socket.getRemoteSocketAddress());
+                return;
+            }
+            socket.setSoTimeout(0);
+            peerId = claimedId;
+            while (running) {
+                listener.onFrame(peerId, Frame.read(in));
+            }
+        } catch (IOException e) {
+            if (running && peerId != null) {
+                log.info("Cluster peer {} disconnected: {}", peerId, e.getMessage());
+            }
+        } catch (GeneralSecurityException e) {
+            log.error("Cluster handshake failed: {}", e.getMessage());
+        } finally {
+            sockets.remove(socket);
+            closeQuietly(socket);
+            if (peerId != null) {
+                listener.onPeerDown(peerId);
+            }
+        }
+    }
+    
+    private void connectLoop(InetSocketAddress address) {
+        long backoffMs = 500;
+        while (running) {
+            Socket socket = new Socket();
+            sockets.put(socket, Boolean.TRUE);
+            String peerId = null;
+            Link link = null;
+            try {
+                socket.connect(address, CONNECT_TIMEOUT_MS);
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                byte[] clientNonce = newNonce();
+                out.writeUTF(nodeId);
+                out.write(clientNonce);
+                out.flush();
+                String serverId = in.readUTF();
+                byte[] serverNonce = readNonce(in);
+                byte[] proof = in.readNBytes(32);
+                if (!MessageDigest.isEqual(proof, hmac("server", clientNonce, serverNonce, serverId, nodeId))) {
+                    log.warn("Cluster peer {} failed authentication; check cluster.tcp.shared-secret", address);
+                    throw new IOException("peer failed authentication");
+                }
+                out.write(hmac("client", serverNonce, clientNonce, nodeId, serverId));
+                out.flush();
+                socket.setSoTimeout(0);
+                if (serverId.equals(nodeId)) {
+                    log.info("Ignoring cluster peer {} because it is this node", address);
+                    return;
+                }
+                peerId = serverId;
+                
+                link = new Link();
+                links.put(peerId, link);
+                backoffMs = 500;
+                listener.onPeerUp(peerId);
+                while (running) {
+                    link.take().write(out);
+                    if (link.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                if (running) {
+                    log.debug("Cluster link to {} failed: {}", address, e.getMessage());
+                }
+            } catch (GeneralSecurityException e) {
+                log.error("Cluster handshake with {} failed: {}", address, e.getMessage());
+                return;
+            } finally {
+                if (peerId != null && link != null) {
+                    links.remove(peerId, link);
+                }
+                sockets.remove(socket);
+                closeQuietly(socket);
+            }
+            
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+    
+    private byte[] newNonce() {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        return nonce;
+    }
+    
+    private static byte[] readNonce(DataInputStream in) throws IOException {
+        byte[] nonce = new byte[NONCE_BYTES];
+        in.readFully(nonce);
+        return nonce;
+    }
+    
+    /** Proof bound to the role, both nonces and both node ids, so it cannot be replayed or reflected. */
+    private byte[] hmac(String role, byte[] firstNonce, byte[] secondNonce, String senderId, String receiverId)
+            throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(sharedSecret);
+        mac.update(role.getBytes(StandardCharsets.UTF_8));
+        mac.update(firstNonce);
+        mac.update(secondNonce);
+        mac.update(senderId.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        mac.update(receiverId.getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal();
+    }
+    
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.controller.WebSocketController;
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class WebSocketOrderEventSink implements OrderEventSink {
+    
+    private final WebSocketController webSocketController;
+    
+    @Override
+    public String name() {
+        return "websocket";
+    }
+    
+    @Override
+    public void deliver(OrderEvent event) {
+        if (event.getType() == OrderEvent.EventType.CREATED) {
+            webSocketController.sendOrderUpdate(event.getOrderId(), event.getOrder().getStatus().name(), event.getOrder());
+        } else {
+            webSocketController.sendOrderDelta(event.getOrder(), event.getDelta());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package in.bushansirgur.foodiesapi.util;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoServerException;
+import com.mongodb.MongoWriteException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class DuplicateKeys {
+    
+    // E11000 duplicate key error collection: foodies_db.orders index: orderNumber dup key: { ... }
+    private static final Pattern INDEX_NAME = Pattern.compile("index: (\\S+) dup key");
+    
+    private DuplicateKeys() {
+    }
+    
+    /**
+     * Whether the duplicate was rejected by the unique index with the given name, as reported in
+     * the server's write error.
+     */
+    public static boolean violates(DuplicateKeyException e, String indexName) {
+        return indexName.equals(indexName(e));
+    }
+    
+    /**
+     * Name of the unique index the server rejected the write on, or null if it cannot be told.
+     */
+    public static String indexName(DuplicateKeyException e) {
+        String error = null;
+        if (e.getCause() instanceof MongoWriteException write) {
+            error = write.getError().getMessage();
+        } else if (e.getCause() instanceof MongoBulkWriteException bulk && !bulk.getWriteErrors().isEmpty()) {
+            error = bulk.getWriteErrors().get(0).getMessage();
+        } else if (e.getCause() instanceof MongoServerException server) {
+            error = server.getMessage();
+        }
+        if (error == null) {
+            return null;
+        }
+        Matcher matcher = INDEX_NAME.matcher(error);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
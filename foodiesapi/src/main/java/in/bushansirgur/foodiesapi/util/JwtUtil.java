@@ -1,9 +1,12 @@
 package in.bushansirgur.foodiesapi.util;
 
+import in.bushansirgur.foodiesapi.security.JwtPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -22,8 +25,35 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    
+    @PostConstruct
+    void init() {
+        // Key and parser are immutable and thread-safe, so build them once
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+    
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+    
+    /**
+     * Verifies the token once and returns everything the request path needs from it.
+     * Throws a {@link io.jsonwebtoken.JwtException} if the signature is invalid or the token has expired.
+     */
+    public JwtPrincipal parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        Date expiresAt = claims.getExpiration();
+        return new JwtPrincipal(
+                claims.getSubject(),
+                claims.get("userId", String.class),
+                claims.get("role", String.class),
+                expiresAt != null ? expiresAt.toInstant() : null
+        );
     }
     
     public String extractUsername(String token) {
@@ -40,15 +70,7 @@ public class JwtUtil {
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
     
     public String generateToken(String username, String userId, String role) {
@@ -69,8 +91,12 @@ public class JwtUtil {
     }
     
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        // The parser already rejects expired tokens, so a single parse is enough
+        try {
+            return parseToken(token).subject().equals(username);
+        } catch (Exception e) {
+            return false;
+        }
     }
     
     public String extractUserId(String token) {
@@ -0,0 +1,74 @@
+package in.bushansirgur.foodiesapi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain-text template with {@code {{name}}} placeholders, split into literal and placeholder
+ * segments once at load time so rendering is a single pass of appends. The first line of the
+ * source must be {@code Subject: ...}; the body starts after the following blank line.
+ */
+public final class MailTemplate {
+    
+    private static final String SUBJECT_PREFIX = "Subject:";
+    
+    private final List<String> subject;
+    private final List<String> body;
+    
+    private MailTemplate(List<String> subject, List<String> body) {
+        this.subject = subject;
+        this.body = body;
+    }
+    
+    public static MailTemplate compile(String source) {
+        String normalized = source.replace("\r\n", "\n");
+        int firstLineEnd = normalized.indexOf('\n');
+        String firstLine = firstLineEnd >= 0 ? normalized.substring(0, firstLineEnd) : normalized;
+        if (!firstLine.startsWith(SUBJECT_PREFIX)) {
+            throw new IllegalArgumentException("Mail template must start with a Subject: line");
+        }
+        String bodySource = firstLineEnd >= 0 ? normalized.substring(firstLineEnd + 1) : "";
+        if (bodySource.startsWith("\n")) {
+            bodySource = bodySource.substring(1);
+        }
+        return new MailTemplate(segments(firstLine.substring(SUBJECT_PREFIX.length()).trim()), segments(bodySource));
+    }
+    
+    public String renderSubject(Map<String, String> variables) {
+        return render(subject, variables);
+    }
+    
+    public String renderBody(Map<String, String> variables) {
+        return render(body, variables);
+    }
+    
+    // Even indexes are literals, odd indexes are placeholder names
+    private static List<String> segments(String source) {
+        List<String> segments = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            int close = open >= 0 ? source.indexOf("}}", open + 2) : -1;
+            if (open < 0 || close < 0) {
+                segments.add(source.substring(position));
+                return segments;
+            }
+            segments.add(source.substring(position, open));
+            segments.add(source.substring(open + 2, close).trim());
+            position = close + 2;
+        }
+    }
+    
+    private static String render(List<String> segments, Map<String, String> variables) {
+        StringBuilder out = new StringBuilder(128);
+        for (int i = 0; i < segments.size(); i++) {
+            if (i % 2 == 0) {
+                out.append(segments.get(i));
+            } else {
+                out.append(variables.getOrDefault(segments.get(i), ""));
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package in.bushansirgur.foodiesapi.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2024-01-01, 10 bits of node id
+ * and a 12-bit per-millisecond sequence, rendered as fixed-width Crockford base32 so they stay
+ * short and sort by creation time. Generation is a single CAS loop; when a millisecond's
+ * sequence is exhausted, or the clock steps back, it borrows the next millisecond instead of blocking.
+ * <p>
+ * The node id is either configured explicitly or leased from the {@code order_number_nodes}
+ * collection, so no two running nodes share one. The lease is renewed in the background; a node
+ * that loses it (e.g. after a long pause) leases a fresh id before its next renewal.
+ */
+@Slf4j
+@Component
+public class OrderNumberGenerator {
+    
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+    private static final String LEASE_COLLECTION = "order_number_nodes";
+    
+    private final MongoTemplate mongoTemplate;
+    private final boolean leased;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
+    private volatile long nodeId;
+    // Packed (timestamp << SEQUENCE_BITS | sequence) of the last id handed out
+    private final AtomicLong lastState = new AtomicLong();
+    
+    public OrderNumberGenerator(MongoTemplate mongoTemplate,
+                                @Value("${orders.node-id:-1}") long configuredNodeId,
+                                @Value("${orders.node-lease-ms:60000}") long leaseMillis) {
+        if (configuredNodeId > MAX_NODE) {
+            throw new IllegalArgumentException("orders.node-id must be between 0 and " + MAX_NODE);
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.leased = configuredNodeId < 0;
+        this.leaseMillis = leaseMillis;
+        this.nodeId = configuredNodeId;
+    }
+    
+    @PostConstruct
+    void init() {
+        if (leased) {
+            acquireLease();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "#{${orders.node-lease-ms:60000} / 3}", initialDelayString = "#{${orders.node-lease-ms:60000} / 3}")
+    void renewLease() {
+        if (!leased) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").is(nodeId).and("owner").is(owner));
+        Update update = new Update().set("expiresAt", new Date(System.currentTimeMillis() + leaseMillis));
+        if (mongoTemplate.updateFirst(query, update, LEASE_COLLECTION).getMatchedCount() == 0) {
+            log.warn("Lost order number node id {} lease, leasing a new one", nodeId);
+            acquireLease();
+        }
+    }
+    
+    @PreDestroy
+    void releaseLease() {
+        if (leased) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(nodeId).and("owner").is(owner)), LEASE_COLLECTION);
+        }
+    }
+    
+    public String nextOrderNumber() {
+        return "ORD" + encode(nextId());
+    }
+    
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        while (true) {
+            long previous = lastState.get();
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            long next;
+            if (now > previousTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = previous + 1;
+            } else {
+                next = (previousTimestamp + 1) << SEQUENCE_BITS;
+            }
+            if (lastState.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+    
+    private void acquireLease() {
+        Date now = new Date();
+        Update update = new Update()
+                .set("owner", owner)
+                .set("expiresAt", new Date(now.getTime() + leaseMillis));
+        for (long candidate = 0; candidate <= MAX_NODE; candidate++) {
+            // Takes a free or expired id; a live lease makes the upsert hit the _id index instead
+            Query query = Query.query(Criteria.where("_id").is(candidate).and("expiresAt").lt(now));
+            try {
+                Document lease = mongoTemplate.findAndModify(query, update,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, LEASE_COLLECTION);
+                if (lease != null) {
+                    nodeId = candidate;
+                    log.info("Leased order number node id {}", candidate);
+                    return;
+                }
+            } catch (DuplicateKeyException e) {
+                // Held by a live node
+            }
+        }
+        throw new IllegalStateException("No free order number node id; set orders.node-id explicitly");
+    }
+    
+    private static String encode(long id) {
+        char[] out = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+}
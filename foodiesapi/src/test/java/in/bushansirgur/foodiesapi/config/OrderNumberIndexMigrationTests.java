@@ -0,0 +1,54 @@
+package in.bushansirgur.foodiesapi.config;
+
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.util.OrderNumberGenerator;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderNumberIndexMigrationTests {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final IndexOperations indexOps = mock(IndexOperations.class);
+	private final OrderNumberIndexMigration migration = new OrderNumberIndexMigration(mongoTemplate, mock(OrderNumberGenerator.class));
+
+	@Test
+	void existingIndexSkipsDuplicateScan() {
+		when(mongoTemplate.indexOps(Order.class)).thenReturn(indexOps);
+		when(indexOps.getIndexInfo()).thenReturn(List.of(new IndexInfo(List.of(), "orderNumber", true, false, null)));
+
+		migration.migrate();
+
+		verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq(Order.class), eq(Document.class));
+		verify(indexOps, never()).createIndex(any());
+	}
+
+	@Test
+	void missingIndexIsCreatedAfterScan() {
+		when(mongoTemplate.indexOps(Order.class)).thenReturn(indexOps);
+		when(indexOps.getIndexInfo()).thenReturn(List.of(new IndexInfo(List.of(), "_id_", false, false, null)));
+		when(mongoTemplate.aggregate(any(Aggregation.class), eq(Order.class), eq(Document.class)))
+				.thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+		migration.migrate();
+
+		verify(indexOps).createIndex(argThat((IndexDefinition index) -> "orderNumber".equals(index.getIndexOptions().get("name"))
+				&& Boolean.TRUE.equals(index.getIndexOptions().get("unique"))));
+	}
+
+}
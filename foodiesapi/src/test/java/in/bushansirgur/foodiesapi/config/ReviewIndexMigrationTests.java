@@ -0,0 +1,59 @@
+package in.bushansirgur.foodiesapi.config;
+
+import in.bushansirgur.foodiesapi.model.Review;
+import in.bushansirgur.foodiesapi.service.ReviewService;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewIndexMigrationTests {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final IndexOperations indexOps = mock(IndexOperations.class);
+	private final ReviewService reviewService = mock(ReviewService.class);
+	private final ReviewIndexMigration migration = new ReviewIndexMigration(mongoTemplate, reviewService);
+
+	@Test
+	void existingIndexSkipsDuplicateScan() {
+		when(mongoTemplate.indexOps(Review.class)).thenReturn(indexOps);
+		when(indexOps.getIndexInfo()).thenReturn(List.of(new IndexInfo(List.of(), "order_type_target", true, false, null)));
+
+		migration.migrate();
+
+		verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Review.class));
+		verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq(Review.class), eq(Document.class));
+		verify(indexOps, never()).createIndex(any());
+	}
+
+	@Test
+	void missingIndexIsCreatedAfterScan() {
+		when(mongoTemplate.indexOps(Review.class)).thenReturn(indexOps);
+		when(indexOps.getIndexInfo()).thenReturn(List.of(new IndexInfo(List.of(), "_id_", false, false, null)));
+		when(mongoTemplate.aggregate(any(Aggregation.class), eq(Review.class), eq(Document.class)))
+				.thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+		migration.migrate();
+
+		verify(indexOps).createIndex(argThat((IndexDefinition index) -> "order_type_target".equals(index.getIndexOptions().get("name"))
+				&& Boolean.TRUE.equals(index.getIndexOptions().get("unique"))));
+		verify(reviewService, never()).rebuildRatings();
+	}
+
+}
@@ -0,0 +1,96 @@
+package in.bushansirgur.foodiesapi.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StompPayloadEncoderTests {
+
+	private static final byte[] JSON = """
+			{"orderId":"65a1b2c3d4e5f60718293a4b","latitude":12.9716,"longitude":77.5946,"timestamp":1700000000000,"tags":["a","b"],"rider":null}
+			""".getBytes(StandardCharsets.UTF_8);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final StompPayloadEncoder encoder = new StompPayloadEncoder(objectMapper);
+
+	@Test
+	void cborSubscriptionRoundTripsToSameTree() throws Exception {
+		encoder.preSend(subscribe("s1", "sub-1", true, "cbor"), null);
+
+		Message<?> encoded = encoder.beforeHandle(message("s1", "sub-1", JSON), null, null);
+
+		assertThat(encoded.getPayload()).isInstanceOf(byte[].class);
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(encoded);
+		assertThat(accessor.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+		assertThat(accessor.getFirstNativeHeader(StompPayloadEncoder.FORMAT_HEADER)).isEqualTo("cbor");
+		JsonNode decoded = new CBORMapper().readTree((byte[]) encoded.getPayload());
+		assertThat(decoded).isEqualTo(objectMapper.readTree(JSON));
+	}
+
+	@Test
+	void sharedPayloadIsTranscodedOnce() {
+		encoder.preSend(subscribe("s1", "sub-1", true, "cbor"), null);
+		encoder.preSend(subscribe("s2", "sub-1", true, "cbor"), null);
+
+		Message<?> first = encoder.beforeHandle(message("s1", "sub-1", JSON), null, null);
+		Message<?> second = encoder.beforeHandle(message("s2", "sub-1", JSON), null, null);
+
+		assertThat(first.getPayload()).isSameAs(second.getPayload());
+	}
+
+	@Test
+	void jsonSubscribersAndTextOnlySessionsKeepJson() {
+		encoder.preSend(subscribe("s1", "sub-1", true, null), null);
+		encoder.preSend(subscribe("s2", "sub-1", false, "cbor"), null);
+
+		assertThat(encoder.beforeHandle(message("s1", "sub-1", JSON), null, null).getPayload()).isSameAs(JSON);
+		assertThat(encoder.beforeHandle(message("s2", "sub-1", JSON), null, null).getPayload()).isSameAs(JSON);
+	}
+
+	@Test
+	void unsubscribeRevertsToJson() {
+		encoder.preSend(subscribe("s1", "sub-1", true, "cbor"), null);
+		SimpMessageHeaderAccessor unsubscribe = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+		unsubscribe.setSessionId("s1");
+		unsubscribe.setSubscriptionId("sub-1");
+		encoder.preSend(MessageBuilder.createMessage(new byte[0], unsubscribe.getMessageHeaders()), null);
+
+		assertThat(encoder.beforeHandle(message("s1", "sub-1", JSON), null, null).getPayload()).isSameAs(JSON);
+	}
+
+	private static Message<byte[]> subscribe(String sessionId, String subscriptionId, boolean binaryFrames, String format) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		accessor.setDestination("/topic/orders/65a1b2c3d4e5f60718293a4b");
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put(StompPayloadEncoder.BINARY_FRAMES_ATTRIBUTE, binaryFrames);
+		accessor.setSessionAttributes(attributes);
+		if (format != null) {
+			accessor.setNativeHeader(StompPayloadEncoder.FORMAT_HEADER, format);
+		}
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> message(String sessionId, String subscriptionId, byte[] payload) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		accessor.setDestination("/topic/orders/65a1b2c3d4e5f60718293a4b");
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+	}
+
+}
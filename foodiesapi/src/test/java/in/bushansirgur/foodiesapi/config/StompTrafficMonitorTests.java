@@ -0,0 +1,114 @@
+package in.bushansirgur.foodiesapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class StompTrafficMonitorTests {
+
+	private static final String ORDER_A = "/topic/orders/65a1b2c3d4e5f60718293a4b";
+	private static final String ORDER_B = "/topic/orders/65a1b2c3d4e5f60718293a4c";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final StompTrafficMonitor monitor = new StompTrafficMonitor(meterRegistry);
+	private final MessageHandler handler = mock(MessageHandler.class);
+
+	@Test
+	void droppedMessagesAreCountedPerDestinationPattern() {
+		RejectedExecutionHandler dropHandler = monitor.dropHandler();
+		ThreadPoolExecutor executor = mock(ThreadPoolExecutor.class);
+
+		dropHandler.rejectedExecution(rejected(frame(SimpMessageType.MESSAGE, ORDER_A, false), new AtomicBoolean()), executor);
+		dropHandler.rejectedExecution(rejected(frame(SimpMessageType.MESSAGE, ORDER_B, false), new AtomicBoolean()), executor);
+		dropHandler.rejectedExecution(rejected(frame(SimpMessageType.MESSAGE, "/topic/orders/42/delivery-location", false), new AtomicBoolean()), executor);
+
+		assertThat(monitor.getStats().droppedFrames())
+				.containsEntry("/topic/orders/{id}", 2L)
+				.containsEntry("/topic/orders/{id}/delivery-location", 1L)
+				.hasSize(2);
+		assertThat(meterRegistry.get("websocket.frames.dropped").tag("destination", "/topic/orders/{id}").functionCounter().count())
+				.isEqualTo(2);
+	}
+
+	@Test
+	void rejectedControlFramesRunOnCallerThread() {
+		AtomicBoolean ran = new AtomicBoolean();
+
+		monitor.dropHandler().rejectedExecution(rejected(frame(SimpMessageType.SUBSCRIBE, ORDER_A, false), ran), mock(ThreadPoolExecutor.class));
+
+		assertThat(ran).isTrue();
+		assertThat(monitor.getStats().droppedFrames()).isEmpty();
+	}
+
+	@Test
+	void sentFramesAreCountedPerDestinationPattern() {
+		monitor.afterMessageHandled(frame(SimpMessageType.MESSAGE, ORDER_A, false), null, handler, null);
+		monitor.afterMessageHandled(frame(SimpMessageType.MESSAGE, ORDER_B, false), null, handler, null);
+		monitor.afterMessageHandled(frame(SimpMessageType.MESSAGE, ORDER_B, false), null, handler, new IllegalStateException("closed"));
+
+		assertThat(monitor.getStats().sentFrames()).containsExactlyEntriesOf(Map.of("/topic/orders/{id}", 2L));
+	}
+
+	@Test
+	void olderQueuedFrameForSameSubscriptionIsConflated() {
+		Message<byte[]> older = frame(SimpMessageType.MESSAGE, ORDER_A + "/delivery-location", true, "{\"lat\":12.97}");
+		Message<byte[]> newer = frame(SimpMessageType.MESSAGE, ORDER_A + "/delivery-location", true, "{\"lat\":12.98}");
+		monitor.preSend(older, null);
+		monitor.preSend(newer, null);
+
+		assertThat(monitor.beforeHandle(older, null, handler)).isNull();
+		assertThat(monitor.beforeHandle(newer, null, handler)).isSameAs(newer);
+		assertThat(monitor.getStats().conflatedFrames()).containsEntry("/topic/orders/{id}/delivery-location", 1L);
+	}
+
+	private MessageHandlingRunnable rejected(Message<?> message, AtomicBoolean ran) {
+		return new MessageHandlingRunnable() {
+
+			@Override
+			public Message<?> getMessage() {
+				return message;
+			}
+
+			@Override
+			public MessageHandler getMessageHandler() {
+				return handler;
+			}
+
+			@Override
+			public void run() {
+				ran.set(true);
+			}
+
+		};
+	}
+
+	private static Message<byte[]> frame(SimpMessageType type, String destination, boolean conflate) {
+		return frame(type, destination, conflate, "{}");
+	}
+
+	private static Message<byte[]> frame(SimpMessageType type, String destination, boolean conflate, String json) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+		accessor.setSessionId("session-1");
+		accessor.setSubscriptionId("sub-1");
+		accessor.setDestination(destination);
+		if (conflate) {
+			accessor.setNativeHeader(StompTrafficMonitor.CONFLATE_HEADER, "true");
+		}
+		return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+	}
+
+}
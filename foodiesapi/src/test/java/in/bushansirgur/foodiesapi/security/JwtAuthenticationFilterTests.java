@@ -0,0 +1,107 @@
+package in.bushansirgur.foodiesapi.security;
+
+import in.bushansirgur.foodiesapi.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class JwtAuthenticationFilterTests {
+
+	private JwtUtil jwtUtil;
+	private VerifiedTokenCache cache;
+	private SimpleMeterRegistry meterRegistry;
+	private JwtAuthenticationFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		JwtUtil util = new JwtUtil();
+		ReflectionTestUtils.setField(util, "secret", "testSecretKey1234567890123456789012345678");
+		ReflectionTestUtils.setField(util, "expiration", 60_000L);
+		ReflectionTestUtils.invokeMethod(util, "init");
+		jwtUtil = spy(util);
+		cache = new VerifiedTokenCache(100);
+		meterRegistry = new SimpleMeterRegistry();
+		filter = new JwtAuthenticationFilter(jwtUtil, cache, meterRegistry);
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void parseTokenReturnsClaims() {
+		String token = jwtUtil.generateToken("alice@example.com", "u1", "CUSTOMER");
+
+		JwtPrincipal principal = jwtUtil.parseToken(token);
+
+		assertThat(principal.subject()).isEqualTo("alice@example.com");
+		assertThat(principal.userId()).isEqualTo("u1");
+		assertThat(principal.role()).isEqualTo("CUSTOMER");
+		assertThat(principal.expiresAt()).isAfter(Instant.now());
+	}
+
+	@Test
+	void parseTokenRejectsTamperedSignature() {
+		String token = jwtUtil.generateToken("alice@example.com", "u1", "CUSTOMER");
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertThatThrownBy(() -> jwtUtil.parseToken(tampered)).isInstanceOf(JwtException.class);
+	}
+
+	@Test
+	void repeatRequestIsServedFromCache() throws Exception {
+		String token = jwtUtil.generateToken("alice@example.com", "u1", "CUSTOMER");
+
+		Authentication first = authenticate(token);
+		SecurityContextHolder.clearContext();
+		Authentication second = authenticate(token);
+
+		verify(jwtUtil, times(1)).parseToken(token);
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(first.getName()).isEqualTo("alice@example.com");
+		assertThat(second.getName()).isEqualTo("alice@example.com");
+		assertThat(second.getAuthorities()).extracting("authority").containsExactly("ROLE_CUSTOMER");
+		assertThat(meterRegistry.get("security.jwt.authentication").tag("result", "verified").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("security.jwt.authentication").tag("result", "cache_hit").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void invalidTokenIsNotCached() throws Exception {
+		assertThat(authenticate("not-a-jwt")).isNull();
+		assertThat(cache.size()).isZero();
+		assertThat(meterRegistry.get("security.jwt.authentication").tag("result", "rejected").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void expiredEntryIsNotServed() {
+		cache.put("token", new JwtPrincipal("alice@example.com", "u1", "CUSTOMER", Instant.now().minusSeconds(1)));
+
+		assertThat(cache.get("token")).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	private Authentication authenticate(String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+}
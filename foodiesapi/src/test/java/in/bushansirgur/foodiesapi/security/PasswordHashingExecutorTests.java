@@ -0,0 +1,87 @@
+package in.bushansirgur.foodiesapi.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class PasswordHashingExecutorTests {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final PasswordEncoder blockingEncoder = new PasswordEncoder() {
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			block(release);
+			return "hash:" + rawPassword;
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			block(release);
+			return encodedPassword.equals("hash:" + rawPassword);
+		}
+
+	};
+
+	private PasswordHashingExecutor executor;
+
+	@AfterEach
+	void shutdown() {
+		release.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	void delegatesToEncoder() {
+		release.countDown();
+		executor = new PasswordHashingExecutor(blockingEncoder, 1, 1, 5_000);
+
+		assertThat(executor.encode("secret")).isEqualTo("hash:secret");
+		assertThat(executor.matches("secret", "hash:secret")).isTrue();
+		assertThat(executor.matches("wrong", "hash:secret")).isFalse();
+	}
+
+	@Test
+	void rejectsOnceThreadsAndQueueAreFull() {
+		executor = new PasswordHashingExecutor(blockingEncoder, 1, 1, 5_000);
+		CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.matches("a", "hash:a"));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getStats().active() == 1);
+		CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.matches("b", "hash:b"));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> executor.getStats().queued() == 1);
+
+		assertThatThrownBy(() -> executor.matches("c", "hash:c"))
+				.hasMessage("Too many sign-in attempts, please try again shortly");
+		assertThat(executor.getStats().rejected()).isEqualTo(1);
+
+		release.countDown();
+		assertThat(running.join()).isTrue();
+		assertThat(queued.join()).isTrue();
+		assertThat(executor.getStats().rejected()).isEqualTo(1);
+	}
+
+	@Test
+	void slowHashTimesOut() {
+		executor = new PasswordHashingExecutor(blockingEncoder, 1, 1, 50);
+
+		assertThatThrownBy(() -> executor.encode("secret"))
+				.hasMessage("Too many sign-in attempts, please try again shortly");
+		assertThat(executor.getStats().timedOut()).isEqualTo(1);
+	}
+
+	private static void block(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
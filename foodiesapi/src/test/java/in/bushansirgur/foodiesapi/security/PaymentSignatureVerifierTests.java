@@ -0,0 +1,59 @@
+package in.bushansirgur.foodiesapi.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentSignatureVerifierTests {
+
+	// Vectors computed independently with: printf '<order>|<payment>' | openssl dgst -sha256 -hmac <secret>
+	private static final String SECRET = "EnLs21M47BllR3X8PSFtjtbd";
+	private static final String ORDER_ID = "order_IluGWxBm9U8zJ8";
+	private static final String PAYMENT_ID = "pay_IH4NVgf4Dreq1l";
+	private static final String SIGNATURE = "c7a6b6e37e5fb8b5387cd93cff2f9cedbf5cb78112fd50292c56b4cecb49b80d";
+
+	private final PaymentSignatureVerifier verifier = new PaymentSignatureVerifier(SECRET);
+
+	@Test
+	void acceptsRazorpaySignature() {
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, SIGNATURE)).isTrue();
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, SIGNATURE.toUpperCase())).isTrue();
+	}
+
+	@Test
+	void rejectsTamperedSignatureOrIds() {
+		String tampered = SIGNATURE.substring(0, 63) + "c";
+
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, tampered)).isFalse();
+		assertThat(verifier.verify(ORDER_ID, "pay_IH4NVgf4Dreq1m", SIGNATURE)).isFalse();
+		assertThat(verifier.verify("order_IluGWxBm9U8zJ9", PAYMENT_ID, SIGNATURE)).isFalse();
+		assertThat(new PaymentSignatureVerifier("other-secret").verify(ORDER_ID, PAYMENT_ID, SIGNATURE)).isFalse();
+	}
+
+	@Test
+	void rejectsMalformedSignature() {
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, SIGNATURE.substring(0, 62))).isFalse();
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, SIGNATURE + "00")).isFalse();
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, "")).isFalse();
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, "zz" + SIGNATURE.substring(2))).isFalse();
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, null)).isFalse();
+		assertThat(verifier.verify(null, PAYMENT_ID, SIGNATURE)).isFalse();
+	}
+
+	@Test
+	void nonAsciiIdsAreSignedAsUtf8() {
+		assertThat(verifier.verify("order_Ünïcode", PAYMENT_ID,
+				"87746b0a1778e9cd3498f8794cbd920c3106e1997f90948f452d4a8d5bc5b22c")).isTrue();
+		assertThat(verifier.verify(ORDER_ID, "pay_é",
+				"67ee7aba3570f428eba8b2330641a19affe5d9da80301495e2b32d24e2065b25")).isTrue();
+	}
+
+	@Test
+	void reusedThreadStateDoesNotLeakBetweenCalls() {
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, SIGNATURE.substring(0, 63) + "c")).isFalse();
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, SIGNATURE)).isTrue();
+		assertThat(verifier.verify(ORDER_ID, "pay_é", SIGNATURE)).isFalse();
+		assertThat(verifier.verify(ORDER_ID, PAYMENT_ID, SIGNATURE)).isTrue();
+	}
+
+}
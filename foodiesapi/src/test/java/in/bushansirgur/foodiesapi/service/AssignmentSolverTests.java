@@ -0,0 +1,141 @@
+package in.bushansirgur.foodiesapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AssignmentSolverTests {
+
+	private static final double UNASSIGNED = 1_000_000;
+
+	@Test
+	void solvesKnownSquareMatrix() {
+		double[][] cost = {
+				{4, 1, 3},
+				{2, 0, 5},
+				{3, 2, 2}
+		};
+
+		int[] assignment = AssignmentSolver.solve(cost, 3, UNASSIGNED);
+
+		assertThat(assignment).containsExactly(1, 0, 2);
+		assertThat(total(cost, assignment)).isEqualTo(5.0);
+	}
+
+	@Test
+	void matchesBruteForceOnRandomMatrices() {
+		Random random = new Random(42);
+		for (int round = 0; round < 200; round++) {
+			int rows = 1 + random.nextInt(5);
+			int columns = 1 + random.nextInt(5);
+			double[][] cost = new double[rows][columns];
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					cost[i][j] = random.nextInt(50) - 10;
+				}
+			}
+
+			int[] assignment = AssignmentSolver.solve(cost, columns, UNASSIGNED);
+
+			assertValid(assignment, columns);
+			assertThat(assignedCount(assignment)).isEqualTo(Math.min(rows, columns));
+			assertThat(total(cost, assignment)).isEqualTo(bruteForce(cost, columns, 0, new boolean[columns]));
+		}
+	}
+
+	@Test
+	void leavesRowUnassignedWhenOnlyOptionIsUnassignedCost() {
+		double[][] cost = {
+				{1, UNASSIGNED},
+				{UNASSIGNED, UNASSIGNED}
+		};
+
+		int[] assignment = AssignmentSolver.solve(cost, 2, UNASSIGNED);
+
+		assertThat(assignment).containsExactly(0, -1);
+	}
+
+	@Test
+	void moreRowsThanColumnsLeavesCostliestRowsOut() {
+		double[][] cost = {
+				{5},
+				{1},
+				{3}
+		};
+
+		int[] assignment = AssignmentSolver.solve(cost, 1, UNASSIGNED);
+
+		assertThat(assignment).containsExactly(-1, 0, -1);
+	}
+
+	@Test
+	void givesUpOncePastDeadline() {
+		double[][] cost = {{1, 2}, {2, 1}};
+
+		assertThatThrownBy(() -> AssignmentSolver.solve(cost, 2, UNASSIGNED, System.nanoTime() - 1))
+				.isInstanceOf(CancellationException.class);
+	}
+
+	private static void assertValid(int[] assignment, int columns) {
+		Set<Integer> used = new HashSet<>();
+		for (int column : assignment) {
+			if (column >= 0) {
+				assertThat(column).isLessThan(columns);
+				assertThat(used.add(column)).isTrue();
+			}
+		}
+	}
+
+	private static int assignedCount(int[] assignment) {
+		int count = 0;
+		for (int column : assignment) {
+			if (column >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static double total(double[][] cost, int[] assignment) {
+		double sum = 0;
+		for (int i = 0; i < assignment.length; i++) {
+			if (assignment[i] >= 0) {
+				sum += cost[i][assignment[i]];
+			}
+		}
+		return sum;
+	}
+
+	// Minimum cost over assignments that use min(rows, columns) pairs
+	private static double bruteForce(double[][] cost, int columns, int row, boolean[] used) {
+		int remainingRows = cost.length - row;
+		int freeColumns = 0;
+		for (boolean u : used) {
+			if (!u) {
+				freeColumns++;
+			}
+		}
+		if (remainingRows == 0 || freeColumns == 0) {
+			return 0;
+		}
+		double best = Double.MAX_VALUE;
+		if (remainingRows > freeColumns) {
+			best = bruteForce(cost, columns, row + 1, used);
+		}
+		for (int j = 0; j < columns; j++) {
+			if (!used[j]) {
+				used[j] = true;
+				best = Math.min(best, cost[row][j] + bruteForce(cost, columns, row + 1, used));
+				used[j] = false;
+			}
+		}
+		return best;
+	}
+
+}
@@ -0,0 +1,191 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.config.ClusterConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two application contexts joined by the loopback transport, each with a capturing broker channel
+ * standing in for the STOMP broker.
+ */
+class ClusterRelayLoopbackTests {
+
+	private static final String DESTINATION = "/topic/orders/65a1b2c3d4e5f60718293a4b";
+
+	private ConfigurableApplicationContext nodeA;
+	private ConfigurableApplicationContext nodeB;
+
+	@BeforeEach
+	void startNodes() {
+		String cluster = "relay-test-" + UUID.randomUUID();
+		nodeA = startNode(cluster, "a");
+		nodeB = startNode(cluster, "b");
+	}
+
+	@AfterEach
+	void stopNodes() {
+		nodeB.close();
+		nodeA.close();
+	}
+
+	@Test
+	void publicationReachesSubscribedPeerOnly() {
+		ClusterRelay relayA = nodeA.getBean(ClusterRelay.class);
+		ClusterRelay relayB = nodeB.getBean(ClusterRelay.class);
+		relayA.subscriptionTracker().preSend(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-1"), null);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relayB.getStats().remoteDestinations() == 1);
+
+		relayB.publicationForwarder().preSend(publication("{\"status\":\"PREPARING\"}"), null);
+
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(published(nodeA)).hasSize(1));
+		Message<?> received = published(nodeA).get(0);
+		assertThat(SimpMessageHeaderAccessor.getDestination(received.getHeaders())).isEqualTo(DESTINATION);
+		assertThat(new String((byte[]) received.getPayload(), StandardCharsets.UTF_8)).isEqualTo("{\"status\":\"PREPARING\"}");
+		assertThat(relayB.getStats().forwarded()).isEqualTo(1);
+		assertThat(relayA.getStats().received()).isEqualTo(1);
+		assertThat(published(nodeB)).isEmpty();
+	}
+
+	@Test
+	void relayedPublicationIsNotForwardedBack() {
+		ClusterRelay relayA = nodeA.getBean(ClusterRelay.class);
+		ClusterRelay relayB = nodeB.getBean(ClusterRelay.class);
+		relayA.subscriptionTracker().preSend(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-1"), null);
+		relayB.subscriptionTracker().preSend(frame(SimpMessageType.SUBSCRIBE, "session-2", "sub-1"), null);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relayA.getStats().remoteDestinations() == 1
+				&& relayB.getStats().remoteDestinations() == 1);
+
+		relayB.publicationForwarder().preSend(publication("{}"), null);
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(published(nodeA)).hasSize(1));
+		relayA.publicationForwarder().preSend(published(nodeA).get(0), null);
+
+		assertThat(relayA.getStats().forwarded()).isZero();
+	}
+
+	@Test
+	void unsubscribedPeerStopsReceiving() {
+		ClusterRelay relayA = nodeA.getBean(ClusterRelay.class);
+		ClusterRelay relayB = nodeB.getBean(ClusterRelay.class);
+		relayA.subscriptionTracker().preSend(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-1"), null);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relayB.getStats().remoteDestinations() == 1);
+
+		relayA.subscriptionTracker().preSend(frame(SimpMessageType.DISCONNECT, "session-1", null), null);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relayB.getStats().remoteDestinations() == 0);
+		relayB.publicationForwarder().preSend(publication("{}"), null);
+
+		assertThat(relayB.getStats().forwarded()).isZero();
+	}
+
+	@Test
+	void userDestinationReachesNodeHoldingTheSession() {
+		ClusterRelay relayA = nodeA.getBean(ClusterRelay.class);
+		ClusterRelay relayB = nodeB.getBean(ClusterRelay.class);
+		SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		subscribe.setSessionId("session-1");
+		subscribe.setSubscriptionId("sub-1");
+		subscribe.setDestination("/user/queue/rider");
+		subscribe.setUser(() -> "alice");
+		relayA.subscriptionTracker().preSend(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()), null);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> relayB.getStats().remoteDestinations() == 1);
+
+		SimpMessageHeaderAccessor send = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		send.setDestination("/user/alice/queue/rider");
+		send.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		relayB.publicationForwarder().preSend(MessageBuilder.createMessage("{}".getBytes(StandardCharsets.UTF_8), send.getMessageHeaders()), null);
+
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(published(nodeA)).hasSize(1));
+		assertThat(SimpMessageHeaderAccessor.getDestination(published(nodeA).get(0).getHeaders())).isEqualTo("/user/alice/queue/rider");
+	}
+
+	@Test
+	void invalidationReachesPeers() {
+		List<String> evicted = new CopyOnWriteArrayList<>();
+		nodeA.getBean(ClusterRelay.class).onInvalidation("menu", evicted::add);
+
+		nodeB.getBean(ClusterRelay.class).invalidate("menu", "restaurant-1");
+
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(evicted).containsExactly("restaurant-1"));
+	}
+
+	private static ConfigurableApplicationContext startNode(String cluster, String nodeId) {
+		return new SpringApplicationBuilder(NodeConfig.class)
+				.web(WebApplicationType.NONE)
+				.bannerMode(Banner.Mode.OFF)
+				// Arguments rather than default properties, which application.properties would override
+				.run("--cluster.enabled=true",
+						"--cluster.transport=loopback",
+						"--cluster.loopback.name=" + cluster,
+						"--cluster.node-id=" + nodeId);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Message<?>> published(ConfigurableApplicationContext node) {
+		return node.getBean("published", List.class);
+	}
+
+	private static Message<byte[]> frame(SimpMessageType type, String sessionId, String subscriptionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+		accessor.setSessionId(sessionId);
+		if (subscriptionId != null) {
+			accessor.setSubscriptionId(subscriptionId);
+			accessor.setDestination(DESTINATION);
+		}
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> publication(String json) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setDestination(DESTINATION);
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+	}
+
+	@Configuration
+	@Import({ClusterConfig.class, ClusterRelay.class})
+	static class NodeConfig {
+
+		@Bean
+		List<Message<?>> published() {
+			return new CopyOnWriteArrayList<>();
+		}
+
+		@Bean
+		ExecutorSubscribableChannel brokerChannel() {
+			List<Message<?>> published = published();
+			ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+			channel.subscribe(published::add);
+			return channel;
+		}
+
+		@Bean
+		SimpMessagingTemplate brokerMessagingTemplate(ExecutorSubscribableChannel brokerChannel) {
+			return new SimpMessagingTemplate(brokerChannel);
+		}
+
+	}
+
+}
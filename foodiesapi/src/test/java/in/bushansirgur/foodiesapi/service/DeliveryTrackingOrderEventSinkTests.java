@@ -0,0 +1,67 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.OrderEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DeliveryTrackingOrderEventSinkTests {
+
+	private static final String ORDER_ID = "order-1";
+
+	private final DeliveryLocationBroadcaster broadcaster = mock(DeliveryLocationBroadcaster.class);
+	private final ClusterRelay clusterRelay = mock(ClusterRelay.class);
+	private final DeliveryLocationService deliveryLocationService = new DeliveryLocationService(mock(MongoTemplate.class), broadcaster, clusterRelay);
+	private final DeliveryTrackingOrderEventSink sink = new DeliveryTrackingOrderEventSink(deliveryLocationService);
+
+	@Test
+	void closedOrderStopsTrackingHereAndOnPeers() {
+		for (Order.OrderStatus status : new Order.OrderStatus[]{Order.OrderStatus.DELIVERED, Order.OrderStatus.CANCELLED}) {
+			sink.deliver(OrderEvent.statusChanged(order(status), null));
+		}
+
+		verify(broadcaster, times(2)).cancel(ORDER_ID);
+		verify(clusterRelay, times(2)).invalidate("delivery-tracking", ORDER_ID);
+	}
+
+	@Test
+	void openOrderKeepsTracking() {
+		sink.deliver(OrderEvent.statusChanged(order(Order.OrderStatus.OUT_FOR_DELIVERY), null));
+		sink.deliver(OrderEvent.deliveryPartnerAssigned(order(Order.OrderStatus.READY_FOR_PICKUP)));
+
+		verify(broadcaster, never()).cancel(anyString());
+		verify(clusterRelay, never()).invalidate(anyString(), anyString());
+	}
+
+	@Test
+	void peerStopIsAppliedLocallyWithoutRelayingAgain() {
+		@SuppressWarnings("unchecked")
+		Consumer<String>[] handler = new Consumer[1];
+		doAnswer(invocation -> handler[0] = invocation.getArgument(1)).when(clusterRelay).onInvalidation(eq("delivery-tracking"), any());
+		deliveryLocationService.registerPeerStops();
+
+		handler[0].accept(ORDER_ID);
+
+		verify(broadcaster).cancel(ORDER_ID);
+		verify(clusterRelay, never()).invalidate(anyString(), anyString());
+	}
+
+	private static Order order(Order.OrderStatus status) {
+		Order order = new Order();
+		order.setId(ORDER_ID);
+		order.setStatus(status);
+		return order;
+	}
+
+}
@@ -0,0 +1,76 @@
+package in.bushansirgur.foodiesapi.service;
+
+import com.mongodb.client.result.UpdateResult;
+import in.bushansirgur.foodiesapi.model.User;
+import in.bushansirgur.foodiesapi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DispatchServiceTests {
+
+	private final RiderLocationIndex riderLocationIndex = new RiderLocationIndex(0.01);
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final DispatchService dispatchService = new DispatchService(riderLocationIndex, mock(UserRepository.class),
+			mongoTemplate, mock(OrderStateMachine.class));
+
+	@Test
+	void riderUnknownToLocalIndexIsClaimedFromDatabase() {
+		databaseClaim(true);
+
+		assertThat(dispatchService.claim("rider-1")).isTrue();
+		assertThat(riderLocationIndex.get("rider-1")).isNull();
+	}
+
+	@Test
+	void riderMarkedUnavailableLocallyIsClaimedFromDatabase() {
+		// Made available on another node; this node still has the rider as busy
+		riderLocationIndex.setAvailable("rider-1", 12.97, 77.59, false);
+		databaseClaim(true);
+
+		assertThat(dispatchService.claim("rider-1")).isTrue();
+		assertThat(riderLocationIndex.get("rider-1").available()).isFalse();
+	}
+
+	@Test
+	void successfulClaimTakesRiderOutOfIndex() {
+		riderLocationIndex.setAvailable("rider-1", 12.97, 77.59, true);
+		databaseClaim(true);
+
+		assertThat(dispatchService.claim("rider-1")).isTrue();
+		assertThat(riderLocationIndex.nearest(12.97, 77.59, 1, 5)).isEmpty();
+	}
+
+	@Test
+	void failedDatabaseClaimRestoresIndexedRider() {
+		riderLocationIndex.setAvailable("rider-1", 12.97, 77.59, true);
+		databaseClaim(false);
+
+		assertThat(dispatchService.claim("rider-1")).isFalse();
+		assertThat(riderLocationIndex.nearest(12.97, 77.59, 1, 5))
+				.extracting(RiderLocationIndex.Candidate::riderId)
+				.containsExactly("rider-1");
+	}
+
+	@Test
+	void failedDatabaseClaimLeavesBusyRiderBusy() {
+		riderLocationIndex.setAvailable("rider-1", 12.97, 77.59, false);
+		databaseClaim(false);
+
+		assertThat(dispatchService.claim("rider-1")).isFalse();
+		assertThat(riderLocationIndex.get("rider-1").available()).isFalse();
+	}
+
+	private void databaseClaim(boolean succeeds) {
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(User.class)))
+				.thenReturn(UpdateResult.acknowledged(succeeds ? 1 : 0, succeeds ? 1L : 0L, null));
+	}
+
+}
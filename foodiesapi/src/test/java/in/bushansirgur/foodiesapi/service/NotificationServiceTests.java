@@ -0,0 +1,116 @@
+package in.bushansirgur.foodiesapi.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import in.bushansirgur.foodiesapi.model.MailDeadLetter;
+import in.bushansirgur.foodiesapi.repository.MailDeadLetterRepository;
+import in.bushansirgur.foodiesapi.service.NotificationService.Template;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class NotificationServiceTests {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	private final MailDeadLetterRepository deadLetterRepository = mock(MailDeadLetterRepository.class);
+	private NotificationService service;
+
+	@AfterEach
+	void stopService() throws InterruptedException {
+		if (service != null) {
+			service.stop();
+		}
+	}
+
+	@Test
+	void fullBatchGoesOutTogether() throws Exception {
+		service = start(ServerSetupTest.SMTP.getPort(), 3, 5_000, 5);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(service.enqueue("order-" + i, "customer" + i + "@example.com", Template.ORDER_PLACED, variables("ORD" + i))).isTrue();
+		}
+
+		assertThat(greenMail.waitForIncomingEmail(5_000, 3)).isTrue();
+		await().atMost(5, TimeUnit.SECONDS).until(() -> service.getStats().sent() == 3);
+		assertThat(service.getStats().batches()).isEqualTo(1);
+	}
+
+	@Test
+	void newerMailForSameKeyReplacesQueuedOne() throws Exception {
+		service = start(ServerSetupTest.SMTP.getPort(), 10, 2_000, 5);
+
+		service.enqueue("order-1", "customer@example.com", Template.ORDER_CONFIRMED, variables("ORD1"));
+		service.enqueue("order-1", "customer@example.com", Template.ORDER_OUT_FOR_DELIVERY, variables("ORD1"));
+		service.enqueue("order-2", "other@example.com", Template.ORDER_CONFIRMED, variables("ORD2"));
+
+		assertThat(greenMail.waitForIncomingEmail(5_000, 2)).isTrue();
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertThat(received).hasSize(2);
+		assertThat(Arrays.stream(received).map(NotificationServiceTests::subject))
+				.containsExactlyInAnyOrder("Order ORD1 is on its way", "Order ORD2 confirmed");
+		assertThat(service.getStats().coalesced()).isEqualTo(1);
+	}
+
+	@Test
+	void undeliverableMailIsDeadLetteredAfterMaxAttempts() throws Exception {
+		int closedPort;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			closedPort = socket.getLocalPort();
+		}
+		service = start(closedPort, 10, 10, 2);
+
+		service.enqueue("order-1", "customer@example.com", Template.ORDER_PLACED, variables("ORD1"));
+
+		verify(deadLetterRepository, timeout(5_000)).save(argThat((MailDeadLetter deadLetter) ->
+				deadLetter.getRecipient().equals("customer@example.com")
+						&& deadLetter.getSubject().equals("Order ORD1 placed")
+						&& deadLetter.getAttempts() == 2));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> service.getStats().deadLettered() == 1);
+		assertThat(service.getStats().retried()).isEqualTo(1);
+	}
+
+	private NotificationService start(int port, int batchSize, long lingerMs, int maxAttempts) {
+		JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("localhost");
+		mailSender.setPort(port);
+		NotificationService notificationService = new NotificationService(mailSender, deadLetterRepository);
+		ReflectionTestUtils.setField(notificationService, "from", "orders@foodies.test");
+		ReflectionTestUtils.setField(notificationService, "queueCapacity", 100);
+		ReflectionTestUtils.setField(notificationService, "batchSize", batchSize);
+		ReflectionTestUtils.setField(notificationService, "lingerMs", lingerMs);
+		ReflectionTestUtils.setField(notificationService, "maxAttempts", maxAttempts);
+		ReflectionTestUtils.setField(notificationService, "retryDelayMs", 10L);
+		notificationService.start();
+		return notificationService;
+	}
+
+	private static Map<String, String> variables(String orderNumber) {
+		return Map.of("name", "Asha", "orderNumber", orderNumber, "totalAmount", "250.00");
+	}
+
+	private static String subject(MimeMessage message) {
+		try {
+			return message.getSubject();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
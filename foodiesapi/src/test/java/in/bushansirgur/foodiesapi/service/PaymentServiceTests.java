@@ -0,0 +1,97 @@
+package in.bushansirgur.foodiesapi.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import in.bushansirgur.foodiesapi.dto.PaymentVerificationResult;
+import in.bushansirgur.foodiesapi.model.Payment;
+import in.bushansirgur.foodiesapi.repository.OrderRepository;
+import in.bushansirgur.foodiesapi.repository.PaymentRepository;
+import in.bushansirgur.foodiesapi.security.PaymentSignatureVerifier;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceTests {
+
+	private static final String SECRET = "EnLs21M47BllR3X8PSFtjtbd";
+	private static final String ORDER_ID = "order_IluGWxBm9U8zJ8";
+	private static final String PAYMENT_ID = "pay_IH4NVgf4Dreq1l";
+	private static final String SIGNATURE = "c7a6b6e37e5fb8b5387cd93cff2f9cedbf5cb78112fd50292c56b4cecb49b80d";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final BulkOperations bulk = mock(BulkOperations.class);
+	private final BulkWriteResult bulkResult = mock(BulkWriteResult.class);
+	private final RollupService rollupService = mock(RollupService.class);
+	private final PaymentService paymentService = new PaymentService(mock(PaymentRepository.class), mock(OrderRepository.class),
+			mock(RazorpayGateway.class), new PaymentSignatureVerifier(SECRET), mongoTemplate, rollupService);
+
+	@BeforeEach
+	void configure() {
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class)).thenReturn(bulk);
+		when(bulk.execute()).thenReturn(bulkResult);
+	}
+
+	@Test
+	void verifiedPaymentsAreCompletedInOneBulkWrite() {
+		when(bulkResult.getModifiedCount()).thenReturn(1);
+
+		PaymentVerificationResult result = paymentService.verifyPayments(List.of(
+				request(ORDER_ID, PAYMENT_ID, SIGNATURE),
+				request("order_forged", PAYMENT_ID, SIGNATURE)));
+
+		assertThat(result.received()).isEqualTo(2);
+		assertThat(result.verified()).isEqualTo(1);
+		assertThat(result.updated()).isEqualTo(1);
+		assertThat(result.invalidOrderIds()).containsExactly("order_forged");
+		verify(bulk, times(1)).updateOne(argThat((Query query) -> ORDER_ID.equals(query.getQueryObject().get("razorpayOrderId"))),
+				argThat((Update update) -> PAYMENT_ID.equals(update.getUpdateObject().get("$set", Document.class).get("razorpayPaymentId"))));
+		verify(bulk, times(1)).execute();
+		verify(rollupService).recordCompletedPayments(List.of(ORDER_ID));
+	}
+
+	@Test
+	void nothingIsWrittenWhenNoSignatureVerifies() {
+		PaymentVerificationResult result = paymentService.verifyPayments(List.of(
+				request(ORDER_ID, PAYMENT_ID, SIGNATURE.substring(0, 63) + "c"),
+				request(ORDER_ID, PAYMENT_ID, "not-hex")));
+
+		assertThat(result.verified()).isZero();
+		assertThat(result.updated()).isZero();
+		assertThat(result.invalidOrderIds()).containsExactly(ORDER_ID, ORDER_ID);
+		verify(bulk, never()).updateOne(any(Query.class), any(Update.class));
+		verify(bulk, never()).execute();
+		verify(rollupService, never()).recordCompletedPayments(anyList());
+	}
+
+	@Test
+	void alreadyCompletedPaymentsAreNotCountedAgain() {
+		when(bulkResult.getModifiedCount()).thenReturn(0);
+
+		PaymentVerificationResult result = paymentService.verifyPayments(List.of(request(ORDER_ID, PAYMENT_ID, SIGNATURE)));
+
+		assertThat(result.verified()).isEqualTo(1);
+		assertThat(result.updated()).isZero();
+		verify(rollupService, never()).recordCompletedPayments(anyList());
+	}
+
+	private static Map<String, String> request(String orderId, String paymentId, String signature) {
+		return Map.of("razorpayOrderId", orderId, "razorpayPaymentId", paymentId, "razorpaySignature", signature);
+	}
+
+}
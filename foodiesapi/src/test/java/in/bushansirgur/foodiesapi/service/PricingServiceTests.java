@@ -0,0 +1,158 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.dto.PriceQuote;
+import in.bushansirgur.foodiesapi.model.Address;
+import in.bushansirgur.foodiesapi.model.MenuItem;
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.User;
+import in.bushansirgur.foodiesapi.repository.MenuItemRepository;
+import in.bushansirgur.foodiesapi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PricingServiceTests {
+
+	private static final String RESTAURANT_ID = "restaurant-1";
+	private static final double RESTAURANT_LAT = 12.9716;
+	private static final double RESTAURANT_LON = 77.5946;
+	// Along a meridian the haversine distance is exactly this many km per degree
+	private static final double KM_PER_DEGREE = 6371.0088 * Math.PI / 180;
+
+	private final MenuItemRepository menuItemRepository = mock(MenuItemRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final PricingService pricingService = new PricingService(mock(MongoTemplate.class), menuItemRepository, userRepository);
+
+	@BeforeEach
+	void configure() {
+		ReflectionTestUtils.setField(pricingService, "ttlMs", 300_000L);
+		ReflectionTestUtils.setField(pricingService, "taxRate", new BigDecimal("0.18"));
+		ReflectionTestUtils.setField(pricingService, "baseDeliveryFee", new BigDecimal("40"));
+		ReflectionTestUtils.setField(pricingService, "includedKm", 3.0);
+		ReflectionTestUtils.setField(pricingService, "perKmFee", new BigDecimal("8"));
+		ReflectionTestUtils.setField(pricingService, "maxDeliveryKm", 15.0);
+		ReflectionTestUtils.setField(pricingService, "freeDeliveryAbove", new BigDecimal("500"));
+		restaurantAt(RESTAURANT_LAT, RESTAURANT_LON);
+	}
+
+	@Test
+	void includedDistanceChargesBaseFee() {
+		menuItem("200.00");
+
+		PriceQuote quote = pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(3.0));
+
+		assertThat(quote.distanceKm()).isEqualTo(3.0);
+		assertThat(quote.deliveryFee()).isEqualByComparingTo("40.00");
+		assertThat(quote.taxAmount()).isEqualByComparingTo("36.00");
+		assertThat(quote.totalAmount()).isEqualByComparingTo("276.00");
+	}
+
+	@Test
+	void everyStartedKilometreBeyondIncludedIsCharged() {
+		menuItem("200.00");
+
+		assertThat(pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(3.01)).deliveryFee()).isEqualByComparingTo("48.00");
+		assertThat(pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(5.5)).deliveryFee()).isEqualByComparingTo("64.00");
+	}
+
+	@Test
+	void radiusIsInclusive() {
+		menuItem("200.00");
+
+		assertThat(pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(15.0)).deliveryFee()).isEqualByComparingTo("136.00");
+		assertThatThrownBy(() -> pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(15.01)))
+				.hasMessageContaining("delivery radius");
+	}
+
+	@Test
+	void deliveryIsFreeFromThreshold() {
+		menuItem("500.00");
+		assertThat(pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(10.0)).deliveryFee()).isEqualByComparingTo("0.00");
+
+		menuItem("499.99");
+		assertThat(pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(10.0)).deliveryFee()).isEqualByComparingTo("96.00");
+	}
+
+	@Test
+	void freeDeliveryStillRespectsRadius() {
+		menuItem("900.00");
+
+		assertThatThrownBy(() -> pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(20.0)))
+				.hasMessageContaining("delivery radius");
+	}
+
+	@Test
+	void rejectsDeliveryAddressWithoutLocation() {
+		menuItem("200.00");
+		Address address = addressAtKm(1.0);
+		address.setLatitude(null);
+
+		assertThatThrownBy(() -> pricingService.quote(RESTAURANT_ID, cart(), address))
+				.hasMessage("Delivery address must have a location");
+		assertThatThrownBy(() -> pricingService.quote(RESTAURANT_ID, cart(), null))
+				.hasMessage("Delivery address must have a location");
+	}
+
+	@Test
+	void rejectsRestaurantWithoutLocation() {
+		menuItem("200.00");
+		restaurantAt(null, null);
+
+		assertThatThrownBy(() -> pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(1.0)))
+				.hasMessageContaining("Restaurant location is not set");
+	}
+
+	@Test
+	void rejectsUnknownRestaurant() {
+		menuItem("200.00");
+		when(userRepository.findById(RESTAURANT_ID)).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> pricingService.quote(RESTAURANT_ID, cart(), addressAtKm(1.0)))
+				.hasMessageContaining("Restaurant location is not set");
+	}
+
+	private void menuItem(String price) {
+		MenuItem item = new MenuItem();
+		item.setId("item-1");
+		item.setRestaurantId(RESTAURANT_ID);
+		item.setName("Masala Dosa");
+		item.setPrice(new BigDecimal(price));
+		item.setIsAvailable(true);
+		pricingService.updateMenuItem(item);
+	}
+
+	private void restaurantAt(Double latitude, Double longitude) {
+		Address address = new Address();
+		address.setLatitude(latitude);
+		address.setLongitude(longitude);
+		User restaurant = new User();
+		restaurant.setId(RESTAURANT_ID);
+		restaurant.setRestaurantAddress(address);
+		when(userRepository.findById(RESTAURANT_ID)).thenReturn(Optional.of(restaurant));
+	}
+
+	private static List<Order.OrderItem> cart() {
+		Order.OrderItem item = new Order.OrderItem();
+		item.setMenuItemId("item-1");
+		item.setQuantity(1);
+		return List.of(item);
+	}
+
+	private static Address addressAtKm(double km) {
+		Address address = new Address();
+		address.setLatitude(RESTAURANT_LAT + km / KM_PER_DEGREE);
+		address.setLongitude(RESTAURANT_LON);
+		return address;
+	}
+
+}
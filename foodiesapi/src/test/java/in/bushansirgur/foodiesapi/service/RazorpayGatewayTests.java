@@ -0,0 +1,129 @@
+package in.bushansirgur.foodiesapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RazorpayGatewayTests {
+
+	private static final long OPEN_MS = 200;
+
+	private HttpServer server;
+	private final AtomicInteger hits = new AtomicInteger();
+	private volatile int status = 500;
+	private volatile CountDownLatch hold = new CountDownLatch(0);
+	private RazorpayGateway gateway;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/orders", exchange -> {
+			hits.incrementAndGet();
+			try {
+				hold.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "{\"id\":\"order_stub\"}".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(status, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		gateway = new RazorpayGateway(new ObjectMapper(), new SimpleMeterRegistry(), "key", "secret",
+				baseUrl, 1000, 5000, 10, 2, OPEN_MS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		hold.countDown();
+		server.stop(0);
+		gateway.shutdown();
+	}
+
+	@Test
+	void opensAfterConsecutiveFailuresAndFailsFast() {
+		assertFails(call());
+		assertThat(gateway.circuitState()).isEqualTo(RazorpayGateway.CircuitState.CLOSED);
+		assertFails(call());
+		assertThat(gateway.circuitState()).isEqualTo(RazorpayGateway.CircuitState.OPEN);
+
+		assertThatThrownBy(() -> call().join()).hasMessageContaining("unavailable");
+		assertThat(hits.get()).isEqualTo(2);
+	}
+
+	@Test
+	void failedProbeReopens() throws Exception {
+		tripBreaker();
+		Thread.sleep(OPEN_MS + 50);
+
+		assertFails(call());
+
+		assertThat(hits.get()).isEqualTo(3);
+		assertThat(gateway.circuitState()).isEqualTo(RazorpayGateway.CircuitState.OPEN);
+		assertThatThrownBy(() -> call().join()).hasMessageContaining("unavailable");
+		assertThat(hits.get()).isEqualTo(3);
+	}
+
+	@Test
+	void successfulProbeCloses() throws Exception {
+		tripBreaker();
+		Thread.sleep(OPEN_MS + 50);
+		status = 200;
+
+		assertThat(call().join()).isEqualTo("order_stub");
+
+		assertThat(gateway.circuitState()).isEqualTo(RazorpayGateway.CircuitState.CLOSED);
+		assertThat(call().join()).isEqualTo("order_stub");
+		assertThat(hits.get()).isEqualTo(4);
+	}
+
+	@Test
+	void halfOpenAdmitsSingleProbe() throws Exception {
+		tripBreaker();
+		Thread.sleep(OPEN_MS + 50);
+		status = 200;
+		hold = new CountDownLatch(1);
+
+		CompletableFuture<String> probe = call();
+		assertThat(gateway.circuitState()).isEqualTo(RazorpayGateway.CircuitState.HALF_OPEN);
+		assertThatThrownBy(() -> call().join()).hasMessageContaining("unavailable");
+
+		hold.countDown();
+		assertThat(probe.get(5, TimeUnit.SECONDS)).isEqualTo("order_stub");
+		assertThat(hits.get()).isEqualTo(3);
+		assertThat(gateway.circuitState()).isEqualTo(RazorpayGateway.CircuitState.CLOSED);
+	}
+
+	private void tripBreaker() {
+		assertFails(call());
+		assertFails(call());
+		assertThat(gateway.circuitState()).isEqualTo(RazorpayGateway.CircuitState.OPEN);
+	}
+
+	private CompletableFuture<String> call() {
+		return gateway.createOrder(1000, "INR", "receipt");
+	}
+
+	private static void assertFails(CompletableFuture<String> future) {
+		assertThatThrownBy(future::join).hasMessageContaining("HTTP 500");
+	}
+
+}
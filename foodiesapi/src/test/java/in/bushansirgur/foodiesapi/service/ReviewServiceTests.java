@@ -0,0 +1,154 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.Review;
+import in.bushansirgur.foodiesapi.model.User;
+import in.bushansirgur.foodiesapi.repository.OrderRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewServiceTests {
+
+	private static final String REVIEW_ID = "review-1";
+	private static final String AUTHOR_ID = "customer-1";
+	private static final String RESTAURANT_ID = "restaurant-1";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final SearchIndexService searchIndexService = mock(SearchIndexService.class);
+	private final ReviewService reviewService = new ReviewService(mongoTemplate, mock(OrderRepository.class),
+			mock(MenuCacheService.class), searchIndexService);
+
+	@BeforeEach
+	void configure() {
+		when(mongoTemplate.getCollectionName(User.class)).thenReturn("users");
+	}
+
+	@Test
+	void changedRatingMovesTargetCountersFromOldStarToNew() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Review.class)))
+				.thenReturn(restaurantReview(4));
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Document.class), eq("users")))
+				.thenReturn(new Document("ratingSum", 10L).append("totalReviews", 3),
+						new Document("ratingSum", 8L).append("totalReviews", 2));
+
+		Review updated = reviewService.updateReview(REVIEW_ID, rating(2), AUTHOR_ID, false);
+
+		assertThat(updated.getRating()).isEqualTo(2);
+		ArgumentCaptor<UpdateDefinition> increments = ArgumentCaptor.forClass(UpdateDefinition.class);
+		verify(mongoTemplate, times(2)).findAndModify(any(Query.class), increments.capture(), any(FindAndModifyOptions.class),
+				eq(Document.class), eq("users"));
+		assertThat(increments.getAllValues().get(0).getUpdateObject().get("$inc", Document.class))
+				.isEqualTo(new Document("ratingSum", -4L).append("totalReviews", -1).append("ratingHistogram.4", -1));
+		assertThat(increments.getAllValues().get(1).getUpdateObject().get("$inc", Document.class))
+				.isEqualTo(new Document("ratingSum", 2L).append("totalReviews", 1).append("ratingHistogram.2", 1));
+		// The average is only written if the counters are still the ones the increment returned
+		verify(mongoTemplate).updateFirst(argThat((Query query) -> query.getQueryObject().get("ratingSum").equals(8L)
+						&& query.getQueryObject().get("totalReviews").equals(2)),
+				argThat((UpdateDefinition update) -> update.getUpdateObject().get("$set", Document.class).get("rating").equals(4.0)),
+				eq(User.class));
+		verify(searchIndexService).refreshRestaurant(RESTAURANT_ID);
+	}
+
+	@Test
+	void unchangedRatingLeavesCountersAlone() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Review.class)))
+				.thenReturn(restaurantReview(4));
+
+		reviewService.updateReview(REVIEW_ID, rating(4), AUTHOR_ID, false);
+
+		verify(mongoTemplate, never()).findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+				eq(Document.class), any(String.class));
+	}
+
+	@Test
+	void onlyAuthorCanEdit() {
+		when(mongoTemplate.exists(any(Query.class), eq(Review.class))).thenReturn(true);
+
+		assertThatThrownBy(() -> reviewService.updateReview(REVIEW_ID, rating(1), "customer-2", false))
+				.isInstanceOf(AccessDeniedException.class);
+		verify(mongoTemplate).findAndModify(argThat((Query query) -> "customer-2".equals(query.getQueryObject().get("customerId"))),
+				any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Review.class));
+		verify(mongoTemplate, never()).findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+				eq(Document.class), any(String.class));
+	}
+
+	@Test
+	void adminCanEditAnyReview() {
+		when(mongoTemplate.findAndModify(argThat((Query query) -> !query.getQueryObject().containsKey("customerId")),
+				any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Review.class)))
+				.thenReturn(restaurantReview(4));
+
+		assertThat(reviewService.updateReview(REVIEW_ID, rating(4), "admin-1", true).getRating()).isEqualTo(4);
+	}
+
+	@Test
+	void onlyAuthorCanDelete() {
+		when(mongoTemplate.exists(any(Query.class), eq(Review.class))).thenReturn(true);
+
+		assertThatThrownBy(() -> reviewService.deleteReview(REVIEW_ID, "customer-2", false))
+				.isInstanceOf(AccessDeniedException.class);
+		verify(mongoTemplate).findAndRemove(argThat((Query query) -> "customer-2".equals(query.getQueryObject().get("customerId"))),
+				eq(Review.class));
+	}
+
+	@Test
+	void deletingMissingReviewIsNotFound() {
+		assertThatThrownBy(() -> reviewService.deleteReview(REVIEW_ID, AUTHOR_ID, false))
+				.isNotInstanceOf(AccessDeniedException.class)
+				.hasMessage("Review not found");
+	}
+
+	@Test
+	void deletedReviewIsTakenOffItsTarget() {
+		when(mongoTemplate.findAndRemove(any(Query.class), eq(Review.class))).thenReturn(restaurantReview(5));
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Document.class), eq("users")))
+				.thenReturn(new Document("ratingSum", 0L).append("totalReviews", 0));
+
+		reviewService.deleteReview(REVIEW_ID, AUTHOR_ID, false);
+
+		verify(mongoTemplate).findAndModify(any(Query.class),
+				argThat((UpdateDefinition update) -> update.getUpdateObject().get("$inc", Document.class)
+						.equals(new Document("ratingSum", -5L).append("totalReviews", -1).append("ratingHistogram.5", -1))),
+				any(FindAndModifyOptions.class), eq(Document.class), eq("users"));
+		// No reviews left, so the average is cleared
+		verify(mongoTemplate).updateFirst(any(Query.class),
+				argThat((UpdateDefinition update) -> update.getUpdateObject().containsKey("$unset")), eq(User.class));
+	}
+
+	private static Review restaurantReview(int rating) {
+		Review review = new Review();
+		review.setId(REVIEW_ID);
+		review.setCustomerId(AUTHOR_ID);
+		review.setRestaurantId(RESTAURANT_ID);
+		review.setType(Review.ReviewType.RESTAURANT);
+		review.setRating(rating);
+		review.setImages(List.of());
+		return review;
+	}
+
+	private static Review rating(int rating) {
+		Review changes = new Review();
+		changes.setRating(rating);
+		return changes;
+	}
+
+}
@@ -0,0 +1,82 @@
+package in.bushansirgur.foodiesapi.service;
+
+import in.bushansirgur.foodiesapi.model.Order;
+import in.bushansirgur.foodiesapi.model.OrderRollup;
+import in.bushansirgur.foodiesapi.model.Payment;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RollupServiceTests {
+
+	private static final Document CITY_KEY = new Document("$toLower", new Document("$trim", new Document("input",
+			new Document("$ifNull", List.of("$deliveryAddress.city", "")))));
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final BulkOperations bulk = mock(BulkOperations.class);
+	private RollupService rollupService;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void configure() {
+		ObjectProvider<MongoTransactionManager> transactionManager = mock(ObjectProvider.class);
+		rollupService = new RollupService(mongoTemplate, transactionManager);
+		ReflectionTestUtils.setField(rollupService, "minuteRetentionHours", 48L);
+		ReflectionTestUtils.setField(rollupService, "hourRetentionDays", 400L);
+		when(mongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+		when(mongoTemplate.getCollectionName(Payment.class)).thenReturn("payments");
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderRollup.class)).thenReturn(bulk);
+	}
+
+	@Test
+	void cityBucketsGroupOrdersByNormalizedDeliveryCity() {
+		LocalDate today = LocalDate.now();
+		Date bucket = Date.from(today.atStartOfDay(ZoneId.systemDefault()).toInstant());
+		when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("orders"), eq(Document.class))).thenAnswer(invocation -> {
+			Document group = groupStage(invocation.getArgument(0));
+			if (!CITY_KEY.equals(group.get("_id", Document.class).get("key"))) {
+				return Stream.empty();
+			}
+			return Stream.of(new Document("_id", new Document("key", "bengaluru").append("bucket", bucket))
+					.append("orders", 3).append("cancellations", 1).append("gmvPaise", 50_000L));
+		});
+		when(mongoTemplate.aggregateStream(any(Aggregation.class), eq("payments"), eq(Document.class))).thenAnswer(invocation -> Stream.empty());
+
+		RollupService.BackfillResult result = rollupService.backfill(today, today.plusDays(1));
+
+		assertThat(result.buckets()).containsEntry(OrderRollup.Granularity.DAY, 1);
+		verify(bulk).upsert(argThat((Query query) -> query.getQueryObject().get("_id")
+				.equals("DAY|CITY|bengaluru|" + LocalDateTime.ofInstant(bucket.toInstant(), ZoneId.systemDefault()))), any());
+	}
+
+	private static Document groupStage(Aggregation aggregation) {
+		return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT).stream()
+				.filter(stage -> stage.containsKey("$group"))
+				.map(stage -> stage.get("$group", Document.class))
+				.findFirst()
+				.orElseThrow();
+	}
+
+}
@@ -0,0 +1,42 @@
+package in.bushansirgur.foodiesapi.util;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateKeysTests {
+
+	@Test
+	void readsIndexNameFromWriteError() {
+		DuplicateKeyException e = duplicate("E11000 duplicate key error collection: foodies_db.orders index: orderNumber dup key: { orderNumber: \"ORD1\" }");
+
+		assertThat(DuplicateKeys.indexName(e)).isEqualTo("orderNumber");
+		assertThat(DuplicateKeys.violates(e, "orderNumber")).isTrue();
+		assertThat(DuplicateKeys.violates(e, "offset")).isFalse();
+	}
+
+	@Test
+	void fieldValueMentioningIndexNameIsNotAMatch() {
+		DuplicateKeyException e = duplicate("E11000 duplicate key error collection: foodies_db.orders index: idempotencyKey dup key: { idempotencyKey: \"user-1:orderNumber\" }");
+
+		assertThat(DuplicateKeys.violates(e, "orderNumber")).isFalse();
+	}
+
+	@Test
+	void unknownCauseHasNoIndexName() {
+		assertThat(DuplicateKeys.indexName(new DuplicateKeyException("index: orderNumber dup key"))).isNull();
+	}
+
+	private static DuplicateKeyException duplicate(String error) {
+		MongoWriteException cause = new MongoWriteException(new WriteError(11000, error, new BsonDocument()), new ServerAddress(), Set.of());
+		return new DuplicateKeyException(cause.getMessage(), cause);
+	}
+
+}
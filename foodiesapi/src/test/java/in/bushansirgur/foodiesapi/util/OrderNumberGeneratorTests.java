@@ -0,0 +1,97 @@
+package in.bushansirgur.foodiesapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderNumberGeneratorTests {
+
+	@Test
+	void idsIncreaseWithinThread() {
+		OrderNumberGenerator generator = new OrderNumberGenerator(null, 7, 60_000);
+
+		long previous = generator.nextId();
+		for (int i = 0; i < 100_000; i++) {
+			long next = generator.nextId();
+			assertThat(next).isGreaterThan(previous);
+			previous = next;
+		}
+	}
+
+	@Test
+	void orderNumbersSortLikeIds() {
+		OrderNumberGenerator generator = new OrderNumberGenerator(null, 7, 60_000);
+
+		List<String> numbers = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			numbers.add(generator.nextOrderNumber());
+		}
+
+		assertThat(numbers).isSorted();
+		assertThat(numbers).allSatisfy(number -> assertThat(number).hasSize(16).startsWith("ORD"));
+	}
+
+	@Test
+	void idsAreUniqueUnderContention() throws Exception {
+		OrderNumberGenerator generator = new OrderNumberGenerator(null, 7, 60_000);
+		int threads = 16;
+		int perThread = 20_000;
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					long previous = Long.MIN_VALUE;
+					for (int i = 0; i < perThread; i++) {
+						long id = generator.nextId();
+						assertThat(id).isGreaterThan(previous);
+						previous = id;
+						ids.add(id);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(ids).hasSize(threads * perThread);
+	}
+
+	@Test
+	void differentNodesNeverCollide() {
+		OrderNumberGenerator first = new OrderNumberGenerator(null, 1, 60_000);
+		OrderNumberGenerator second = new OrderNumberGenerator(null, 2, 60_000);
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+		for (int i = 0; i < 50_000; i++) {
+			assertThat(ids.add(first.nextId())).isTrue();
+			assertThat(ids.add(second.nextId())).isTrue();
+		}
+	}
+
+	@Test
+	void rejectsOutOfRangeNodeId() {
+		assertThatThrownBy(() -> new OrderNumberGenerator(null, 1024, 60_000))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
@@ -136,7 +136,7 @@ const RestaurantList = () => {
                   <div className="flex items-center text-sm text-gray-500">
                     <FiMapPin className="w-4 h-4 mr-1" />
                     <span className="truncate">
-                      {restaurant.restaurantAddress?.city || 'Location not available'}
+                      {restaurant.city || restaurant.restaurantAddress?.city || 'Location not available'}
                     </span>
                   </div>
                 </div>
@@ -47,7 +47,7 @@ export const authAPI = {
 // Restaurant API
 export const restaurantAPI = {
   getAll: () => api.get('/restaurants').then(res => res.data),
-  search: (params) => api.get('/restaurants/search', { params }).then(res => res.data),
+  search: (params) => api.get('/restaurants/search', { params }).then(res => res.data.hits),
   getById: (id) => api.get(`/restaurants/${id}`).then(res => res.data),
   getMenu: (id) => api.get(`/restaurants/${id}/menu`).then(res => res.data),
   addMenuItem: (restaurantId, menuItem) => api.post(`/restaurants/${restaurantId}/menu`, menuItem).then(res => res.data),
@@ -58,9 +58,10 @@ export const restaurantAPI = {
 // Order API
 export const orderAPI = {
   create: (order) => api.post('/orders', order).then(res => res.data),
-  getByCustomer: (customerId) => api.get(`/orders/customer/${customerId}`).then(res => res.data),
-  getByRestaurant: (restaurantId) => api.get(`/orders/restaurant/${restaurantId}`).then(res => res.data),
-  getByDeliveryPartner: (deliveryPartnerId) => api.get(`/orders/delivery/${deliveryPartnerId}`).then(res => res.data),
+  quote: (cart) => api.post('/orders/quote', cart).then(res => res.data),
+  getByCustomer: (customerId, cursor, limit) => api.get(`/orders/customer/${customerId}`, { params: { cursor, limit } }).then(res => res.data),
+  getByRestaurant: (restaurantId, cursor, limit) => api.get(`/orders/restaurant/${restaurantId}`, { params: { cursor, limit } }).then(res => res.data),
+  getByDeliveryPartner: (deliveryPartnerId, cursor, limit) => api.get(`/orders/delivery/${deliveryPartnerId}`, { params: { cursor, limit } }).then(res => res.data),
   getById: (id) => api.get(`/orders/${id}`).then(res => res.data),
   updateStatus: (id, status) => api.put(`/orders/${id}/status`, { status }).then(res => res.data),
   assignDeliveryPartner: (id, deliveryPartnerId) => api.put(`/orders/${id}/assign-delivery`, { deliveryPartnerId }).then(res => res.data),
@@ -93,6 +94,7 @@ export const reviewAPI = {
   getByRestaurant: (restaurantId) => api.get(`/reviews/restaurant/${restaurantId}`).then(res => res.data),
   getByMenuItem: (menuItemId) => api.get(`/reviews/menu-item/${menuItemId}`).then(res => res.data),
   getByDeliveryPartner: (deliveryPartnerId) => api.get(`/reviews/delivery-partner/${deliveryPartnerId}`).then(res => res.data),
+  getRatingSummary: (target, targetId) => api.get(`/reviews/ratings/${target}/${targetId}`).then(res => res.data),
   update: (id, review) => api.put(`/reviews/${id}`, review).then(res => res.data),
   delete: (id) => api.delete(`/reviews/${id}`).then(res => res.data),
 };